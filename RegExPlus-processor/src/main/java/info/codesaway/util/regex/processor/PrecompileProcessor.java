@@ -0,0 +1,291 @@
+package info.codesaway.util.regex.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import info.codesaway.util.regex.Precompile;
+import info.codesaway.util.regex.PrecompiledPattern;
+import info.codesaway.util.regex.PrecompiledPatternProvider;
+
+/**
+ * Annotation processor which refactors the regular expression constants annotated with {@link Precompile}
+ *
+ * <p>For each top-level class with annotated constants, generates a {@link PrecompiledPatternProvider} named
+ * <code><i>ClassName</i>_PrecompiledPatterns</code> and lists it in
+ * <code>META-INF/services/info.codesaway.util.regex.PrecompiledPatternProvider</code>. A regular expression with
+ * invalid syntax is reported as a compile error.</p>
+ *
+ * <p>The processor is in the separate <code>regexplus-processor</code> artifact (so it isn't part of the RegExPlus
+ * runtime jar). Add it to the annotation processor path (or as a <code>provided</code> dependency) of the project
+ * which uses {@link Precompile}.</p>
+ *
+ * @since 2.1
+ */
+@SupportedAnnotationTypes("info.codesaway.util.regex.Precompile")
+public final class PrecompileProcessor extends AbstractProcessor {
+	private static final String SERVICE_FILE = "META-INF/services/" + PrecompiledPatternProvider.class.getName();
+
+	private static final String PROVIDER_SUFFIX = "_PrecompiledPatterns";
+
+	/**
+	 * The names of the generated providers
+	 */
+	private final Set<String> providers = new TreeSet<>();
+
+	private Filer filer;
+	private Messager messager;
+
+	@Override
+	public synchronized void init(final ProcessingEnvironment processingEnv) {
+		super.init(processingEnv);
+		this.filer = processingEnv.getFiler();
+		this.messager = processingEnv.getMessager();
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			if (!this.providers.isEmpty()) {
+				this.writeServiceFile();
+			}
+
+			return false;
+		}
+
+		// Group the patterns by top-level class
+		Map<TypeElement, Map<String, PrecompiledPattern>> patterns = new LinkedHashMap<>();
+
+		for (Element element : roundEnv.getElementsAnnotatedWith(Precompile.class)) {
+			PrecompiledPattern precompiled = this.refactor(element);
+
+			if (precompiled != null) {
+				patterns.computeIfAbsent(getTopLevelType(element), k -> new LinkedHashMap<>())
+						.putIfAbsent(precompiled.getFlags() + ":" + precompiled.getPattern(), precompiled);
+			}
+		}
+
+		for (Entry<TypeElement, Map<String, PrecompiledPattern>> entry : patterns.entrySet()) {
+			this.writeProvider(entry.getKey(), new ArrayList<>(entry.getValue().values()));
+		}
+
+		return true;
+	}
+
+	/**
+	 * Refactors the annotated constant
+	 *
+	 * @return the refactored pattern, or <code>null</code> if an error was reported
+	 */
+	private PrecompiledPattern refactor(final Element element) {
+		Object value = element instanceof VariableElement ? ((VariableElement) element).getConstantValue() : null;
+
+		if (element.getKind() != ElementKind.FIELD || !element.getModifiers().contains(Modifier.STATIC)
+				|| !(value instanceof String)) {
+			this.messager.printMessage(Kind.ERROR, "@Precompile requires a static final String constant", element);
+			return null;
+		}
+
+		int flags = element.getAnnotation(Precompile.class).flags();
+
+		try {
+			return PrecompiledPattern.refactor((String) value, flags);
+		} catch (IllegalArgumentException e) {
+			// PatternSyntaxException (or invalid flags)
+			this.messager.printMessage(Kind.ERROR, e.getMessage(), element);
+			return null;
+		}
+	}
+
+	private void writeProvider(final TypeElement type, final List<PrecompiledPattern> patterns) {
+		String packageName = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String simpleName = type.getSimpleName() + PROVIDER_SUFFIX;
+		String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+		try (PrintWriter out = new PrintWriter(this.filer.createSourceFile(qualifiedName, type).openWriter())) {
+			if (!packageName.isEmpty()) {
+				out.println("package " + packageName + ";");
+				out.println();
+			}
+
+			out.println("import java.util.Arrays;");
+			out.println("import java.util.Collection;");
+			out.println("import java.util.HashMap;");
+			out.println("import java.util.Map;");
+			out.println();
+			out.println("import info.codesaway.util.regex.PrecompiledPattern;");
+			out.println("import info.codesaway.util.regex.PrecompiledPatternProvider;");
+			out.println();
+			out.println("/**");
+			out.println(" * Patterns refactored at build time for {@link " + type.getSimpleName() + "}");
+			out.println(" *");
+			out.println(" * <p>Generated by " + PrecompileProcessor.class.getName() + "</p>");
+			out.println(" */");
+			out.println("public final class " + simpleName + " implements PrecompiledPatternProvider {");
+			out.println("\t@Override");
+			out.println("\tpublic String getLibraryVersion() {");
+			out.println("\t\treturn " + literal(PrecompiledPattern.libraryVersion()) + ";");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic Collection<PrecompiledPattern> getPrecompiledPatterns() {");
+			out.println("\t\treturn Arrays.asList(");
+
+			for (int i = 0; i < patterns.size(); i++) {
+				PrecompiledPattern precompiled = patterns.get(i);
+
+				out.println("\t\t\t\tPrecompiledPattern.of(" + literal(precompiled.getPattern()) + ", "
+						+ precompiled.getFlags() + ",");
+				out.println("\t\t\t\t\t\t" + literal(precompiled.getInternalPattern()) + ", "
+						+ precompiled.getCapturingGroupCount() + ", " + precompiled.hasAddedGroups() + ",");
+				out.println("\t\t\t\t\t\t" + map(precompiled.getGroupMapping()) + ",");
+				out.println("\t\t\t\t\t\t" + map(precompiled.getGroupCounts()) + ")"
+						+ (i < patterns.size() - 1 ? "," : ");"));
+			}
+
+			out.println("\t}");
+			out.println();
+			out.println("\tprivate static Map<String, Integer> map(final Object... keysAndValues) {");
+			out.println("\t\tMap<String, Integer> map = new HashMap<>();");
+			out.println();
+			out.println("\t\tfor (int i = 0; i < keysAndValues.length; i += 2) {");
+			out.println("\t\t\tmap.put((String) keysAndValues[i], (Integer) keysAndValues[i + 1]);");
+			out.println("\t\t}");
+			out.println();
+			out.println("\t\treturn map;");
+			out.println("\t}");
+			out.println("}");
+		} catch (IOException e) {
+			this.messager.printMessage(Kind.ERROR, "Unable to generate " + qualifiedName + ": " + e, type);
+			return;
+		}
+
+		this.providers.add(qualifiedName);
+	}
+
+	/**
+	 * Writes the service file, listing the providers generated by this compilation
+	 *
+	 * <p>Any existing service file is replaced, rather than merged, so providers which are no longer generated (such
+	 * as for a removed class) aren't listed.</p>
+	 */
+	private void writeServiceFile() {
+		try {
+			FileObject serviceFile = this.filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+
+			try (Writer writer = serviceFile.openWriter()) {
+				for (String provider : this.providers) {
+					writer.write(provider);
+					writer.write('\n');
+				}
+			}
+		} catch (IOException e) {
+			this.messager.printMessage(Kind.ERROR, "Unable to write " + SERVICE_FILE + ": " + e);
+		}
+	}
+
+	private static TypeElement getTopLevelType(final Element element) {
+		Element type = element.getEnclosingElement();
+
+		while (!(type.getEnclosingElement() instanceof PackageElement)) {
+			type = type.getEnclosingElement();
+		}
+
+		return (TypeElement) type;
+	}
+
+	/**
+	 * Returns the code for a map with the same entries (sorted, so the generated code is reproducible)
+	 */
+	private static String map(final Map<String, Integer> map) {
+		StringBuilder code = new StringBuilder("map(");
+
+		for (Entry<String, Integer> entry : new TreeMap<>(map).entrySet()) {
+			if (code.length() > "map(".length()) {
+				code.append(", ");
+			}
+
+			code.append(literal(entry.getKey())).append(", ").append(entry.getValue());
+		}
+
+		return code.append(')').toString();
+	}
+
+	/**
+	 * Returns the Java string literal for the value
+	 *
+	 * <p>Control characters are written as escape sequences (such as <code>&#92;n</code>) or octal escapes, rather than
+	 * Unicode escapes, since Unicode escapes are translated before the source is parsed (so <code>&#92;u000a</code>
+	 * would end the string literal).</p>
+	 */
+	private static String literal(final String value) {
+		StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			switch (c) {
+			case '"':
+			case '\\':
+				literal.append('\\').append(c);
+				break;
+			case '\b':
+				literal.append("\\b");
+				break;
+			case '\t':
+				literal.append("\\t");
+				break;
+			case '\n':
+				literal.append("\\n");
+				break;
+			case '\f':
+				literal.append("\\f");
+				break;
+			case '\r':
+				literal.append("\\r");
+				break;
+			default:
+				if (c >= ' ' && c < 0x7F) {
+					literal.append(c);
+				} else if (c <= 0x7F) {
+					// Other control characters (three digits, so a following digit isn't part of the escape)
+					literal.append(String.format("\\%03o", (int) c));
+				} else {
+					literal.append(String.format("\\u%04x", (int) c));
+				}
+			}
+		}
+
+		return literal.append('"').toString();
+	}
+}
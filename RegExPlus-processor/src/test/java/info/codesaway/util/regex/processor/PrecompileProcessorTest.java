@@ -0,0 +1,148 @@
+package info.codesaway.util.regex.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import info.codesaway.util.regex.Matcher;
+import info.codesaway.util.regex.Pattern;
+import info.codesaway.util.regex.Precompile;
+import info.codesaway.util.regex.PrecompiledPattern;
+import info.codesaway.util.regex.PrecompiledPatternProvider;
+
+public class PrecompileProcessorTest {
+	/**
+	 * Refactored when this test is compiled (the generated provider is PrecompileProcessorTest_PrecompiledPatterns)
+	 */
+	@Precompile(flags = Pattern.CASE_INSENSITIVE)
+	static final String DATE_REGEX = "(?<year>\\d{4})-(?<month>\\d\\d)(?(month)\\u00e9|\"\\n)";
+
+	/**
+	 * Contains line terminators and other control characters (rather than escapes, such as "\\n"), which must be
+	 * written to the generated provider as escape sequences
+	 */
+	@Precompile
+	static final String LINE_REGEX = "(?<line>[^\r\n]*+)\r?\n\t\b\f\u0001\u007f1\u00e9(?(line)x|y)";
+
+	private static final String SERVICE_FILE = "META-INF/services/" + PrecompiledPatternProvider.class.getName();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testGeneratedProvider() {
+		Map<String, PrecompiledPattern> patterns = new HashMap<>();
+
+		for (PrecompiledPatternProvider provider : ServiceLoader.load(PrecompiledPatternProvider.class)) {
+			if (provider.getClass().getSimpleName().equals("PrecompileProcessorTest_PrecompiledPatterns")) {
+				assertThat(provider.getLibraryVersion()).isEqualTo(PrecompiledPattern.libraryVersion());
+
+				for (PrecompiledPattern precompiled : provider.getPrecompiledPatterns()) {
+					patterns.put(precompiled.getPattern(), precompiled);
+				}
+			}
+		}
+
+		assertThat(patterns).hasSize(2);
+		assertPrecompiled(patterns.get(DATE_REGEX), DATE_REGEX, Pattern.CASE_INSENSITIVE);
+		assertPrecompiled(patterns.get(LINE_REGEX), LINE_REGEX, 0);
+
+		Matcher matcher = Pattern.compile(DATE_REGEX, Pattern.CASE_INSENSITIVE).matcher("2024-01\u00e9");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group("month")).isEqualTo("01");
+
+		matcher = Pattern.compile(LINE_REGEX).matcher("line\r\n\t\b\f\u0001\u007f1\u00e9x");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group("line")).isEqualTo("line");
+	}
+
+	private static void assertPrecompiled(final PrecompiledPattern precompiled, final String regex, final int flags) {
+		PrecompiledPattern expected = PrecompiledPattern.refactor(regex, flags);
+
+		assertThat(precompiled).as(regex).isNotNull();
+		assertThat(precompiled.getPattern()).isEqualTo(regex);
+		assertThat(precompiled.getFlags()).isEqualTo(flags);
+		assertThat(precompiled.getInternalPattern()).isEqualTo(expected.getInternalPattern());
+		assertThat(precompiled.getCapturingGroupCount()).isEqualTo(expected.getCapturingGroupCount());
+		assertThat(precompiled.hasAddedGroups()).isEqualTo(expected.hasAddedGroups());
+		assertThat(precompiled.getGroupMapping()).isEqualTo(expected.getGroupMapping());
+		assertThat(precompiled.getGroupCounts()).isEqualTo(expected.getGroupCounts());
+	}
+
+	@Test
+	public void testInvalidRegexFailsBuild() throws Exception {
+		String source = "class Invalid {\n"
+				+ "\t@info.codesaway.util.regex.Precompile\n"
+				+ "\tstatic final String REGEX = \"(?<a>x\";\n"
+				+ "}\n";
+
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+		assertThat(this.compile("Invalid", source, this.folder.getRoot().toPath(), diagnostics)).isFalse();
+		assertThat(diagnostics.getDiagnostics()).anySatisfy(
+				diagnostic -> assertThat(diagnostic.getKind()).isEqualTo(Diagnostic.Kind.ERROR));
+	}
+
+	@Test
+	public void testServiceFileReplaced() throws Exception {
+		Path output = this.folder.getRoot().toPath();
+		Path serviceFile = output.resolve(SERVICE_FILE);
+
+		// Service file from a previous compile, whose provider is no longer generated
+		Files.createDirectories(serviceFile.getParent());
+		Files.write(serviceFile, Collections.singletonList("Removed_PrecompiledPatterns"));
+
+		String source = "class Valid {\n"
+				+ "\t@info.codesaway.util.regex.Precompile\n"
+				+ "\tstatic final String REGEX = \"(?<a>x)\\\\k<a>\";\n"
+				+ "}\n";
+
+		assertThat(this.compile("Valid", source, output, new DiagnosticCollector<>())).isTrue();
+		assertThat(Files.readAllLines(serviceFile, StandardCharsets.UTF_8))
+				.containsExactly("Valid_PrecompiledPatterns");
+	}
+
+	private boolean compile(final String className, final String source, final Path output,
+			final DiagnosticCollector<JavaFileObject> diagnostics) throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+		JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+
+		String classpath = new File(Precompile.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+				.getPath();
+
+		List<String> options = Arrays.asList("-classpath", classpath, "-d", output.toString());
+		JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null,
+				Collections.singletonList(file));
+		task.setProcessors(Collections.singletonList(new PrecompileProcessor()));
+
+		return task.call();
+	}
+}
@@ -171,7 +171,9 @@ public final class Differences {
 	 * <p>The replacement consists of the insertions and deletions required to
 	 * change the original string to the replacement string.</p>
 	 *
-	 * <p>The differences are detected using the {@link LcsString#getDiff0()} method.</p>
+	 * <p>The differences are detected using the {@link LcsString#getDiff0()} method. Since they are only needed to
+	 * map an index back to the original string, they are calculated the first time
+	 * {@link #getOriginalIndex(int)} needs them, rather than when the replacement is added.</p>
 	 *
 	 * @param start
 	 *            initial position for the replacement
@@ -185,12 +187,10 @@ public final class Differences {
 			return;
 		}
 
-		LcsString seq = new LcsString(original, replacement);
-
 		int end = start + original.length();
 
-		this.changes.add(new ReplaceDifferencePlus(start, end, replacement, seq
-				.getDiff0()));
+		// The differences are only calculated if an original index is requested
+		this.changes.add(new ReplaceDifferencePlus(start, end, original, replacement));
 	}
 
 	/**
@@ -324,10 +324,22 @@ public final class Differences {
 	 * </p>
 	 */
 	private static class ReplaceDifferencePlus extends Difference {
+		/**
+		 * The original string
+		 */
+		private final String original;
+
+		/**
+		 * The replacement string
+		 */
+		private final String replacement;
+
 		/**
 		 * List of differences in this replacement
+		 *
+		 * <p>Calculated the first time it's needed (<code>null</code> until then)</p>
 		 */
-		private final Stack<Difference> differences;
+		private Stack<Difference> differences;
 
 		/**
 		 * Constructs a new <code>ReplaceDifferencePlus</code>
@@ -336,18 +348,33 @@ public final class Differences {
 		 *            the begin index, inclusive
 		 * @param end
 		 *            the end index, exclusive.
+		 * @param original
+		 *            the original string
 		 * @param replacement
 		 *            the replacement string
-		 * @param diff
-		 *            the list of differences
 		 */
-		ReplaceDifferencePlus(final int start, final int end, final String replacement,
-				final List<String> diff) {
+		ReplaceDifferencePlus(final int start, final int end, final String original, final String replacement) {
 			// super(DifferenceOperation.REPLACE, start, end, replacement);
 			super(DifferenceOperation.REPLACE, start, end);
 
-			this.differences = new Stack<>();
+			this.original = original;
+			this.replacement = replacement;
+		}
 
+		/**
+		 * Returns the list of differences in this replacement, calculating them if necessary
+		 *
+		 * @return the list of differences in this replacement
+		 */
+		private Stack<Difference> getDifferences() {
+			if (this.differences != null) {
+				return this.differences;
+			}
+
+			List<String> diff = new LcsString(this.original, this.replacement).getDiff0();
+			Stack<Difference> differences = new Stack<>();
+
+			int start = this.getStart();
 			int itemStart = start;
 
 			for (String string : diff) {
@@ -357,15 +384,18 @@ public final class Differences {
 				if (string.charAt(0) == '+') {
 					// insert
 
-					this.differences.add(new InsertDifference(start, string
+					differences.add(new InsertDifference(start, string
 							.substring(1)));
 				} else if (string.charAt(0) == '-') {
 					// remove
 
 					int itemEnd = start + length;
-					this.differences.add(new DeleteDifference(itemStart, itemEnd));
+					differences.add(new DeleteDifference(itemStart, itemEnd));
 				}
 			}
+
+			this.differences = differences;
+			return differences;
 		}
 
 		/**
@@ -396,10 +426,11 @@ public final class Differences {
 		@Override
 		protected int getOriginalIndexStep_Private(final int currentIndex) {
 			int newIndex = currentIndex;
+			Stack<Difference> differences = this.getDifferences();
 
 			// go from the top of the stack, down (descending order)
-			for (int i = this.differences.size() - 1; i >= 0; i--) {
-				Difference difference = this.differences.get(i);
+			for (int i = differences.size() - 1; i >= 0; i--) {
+				Difference difference = differences.get(i);
 
 				newIndex = difference.getOriginalIndexStep(newIndex);
 			}
@@ -23,6 +23,12 @@ import java.util.List;
  * ://en.wikipedia.org/wiki/Longest_common_subsequence_problem</a>
  * </p>
  *
+ * <p>
+ * For long <code>char</code> or <code>int</code> sequences, the separate
+ * {@link MyersDiff} API uses linear memory instead of a full table (the
+ * differences it finds may be aligned differently).
+ * </p>
+ *
  * @author jhess
  * @param <E> the element type
  * @see <a href=
@@ -216,17 +222,21 @@ public abstract class LongestCommonSubsequence<E> {
 	 * @param i the 1-based position in X
 	 * @param j the 1-based position in Y
 	 */
-	private void backtrack(final int i, final int j) {
-		if (i == 0 || j == 0) {
-			return;
-		} else if (this.isXYEqual(i, j)) {
-			this.backtrack(i - 1, j - 1);
-			this.backtrack.add(this.valueOfXInternal(i));
-		} else if (this.lcsTable[i][j - 1] > this.lcsTable[i - 1][j]) {
-			this.backtrack(i, j - 1);
-		} else {
-			this.backtrack(i - 1, j);
+	private void backtrack(int i, int j) {
+		// Iterative (rather than recursive) to prevent a StackOverflowError for long values
+		while (i != 0 && j != 0) {
+			if (this.isXYEqual(i, j)) {
+				this.backtrack.add(this.valueOfXInternal(i));
+				i--;
+				j--;
+			} else if (this.lcsTable[i][j - 1] > this.lcsTable[i - 1][j]) {
+				j--;
+			} else {
+				i--;
+			}
 		}
+
+		Collections.reverse(this.backtrack);
 	}
 
 	/**
@@ -0,0 +1,385 @@
+package info.codesaway.util.lcs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import info.codesaway.util.lcs.LongestCommonSubsequence.LcsDiffEntry;
+import info.codesaway.util.lcs.LongestCommonSubsequence.LcsDiffType;
+
+/**
+ * <p>
+ * Computes the differences between two <code>char</code> or <code>int</code>
+ * sequences using Myers' O(ND) difference algorithm, in its linear space
+ * (divide and conquer) form.
+ * </p>
+ *
+ * <p>
+ * Unlike {@link LongestCommonSubsequence}, which fills an
+ * (<i>n</i>+1)&times;(<i>m</i>+1) table and compares boxed elements, this
+ * class uses memory proportional to <i>n</i>+<i>m</i>, compares the
+ * primitive values directly, and doesn't use recursion, so it can be used to
+ * diff long inputs.
+ * </p>
+ *
+ * <p>
+ * This is a separate API, not a replacement implementation of
+ * {@link LongestCommonSubsequence} (so it isn't used by {@link LcsString} or
+ * {@link info.codesaway.util.Differences}). The result uses the same
+ * {@link LcsDiffEntry} type as {@link LongestCommonSubsequence#diff()}: a
+ * shortest edit script, in order, where the removals in each changed section
+ * come before the additions. However, if there are several longest common
+ * subsequences, the elements matched (and so where the changes are placed)
+ * may differ from {@link LongestCommonSubsequence#diff()}. There is no
+ * equivalent of {@link LongestCommonSubsequence#diff0()}.
+ * </p>
+ *
+ * <p>
+ * Algorithm from: Eugene W. Myers, "An O(ND) Difference Algorithm and Its
+ * Variations", <i>Algorithmica</i> 1 (1986)
+ * </p>
+ *
+ * @since 2.1
+ */
+public final class MyersDiff {
+	/**
+	 * Compares elements in the "before" and "after" sequences
+	 */
+	private interface Sequences {
+		int lengthOfBefore();
+
+		int lengthOfAfter();
+
+		/**
+		 * Indicates whether the element at index <code>i</code> in the "before"
+		 * sequence equals the element at index <code>j</code> in the "after"
+		 * sequence (both 0-based).
+		 */
+		boolean equals(int i, int j);
+	}
+
+	private MyersDiff() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Returns the differences between the two character sequences.
+	 *
+	 * @param before the "before" value in the diff process
+	 * @param after  the "after" value in the diff process
+	 * @return a list of the differences
+	 */
+	public static List<LcsDiffEntry<Character>> diff(final CharSequence before, final CharSequence after) {
+		int[] matches = match(sequences(before, after));
+
+		List<LcsDiffEntry<Character>> diff = new ArrayList<>(Math.max(before.length(), after.length()));
+
+		int j = 0;
+
+		for (int i = 0; i <= before.length(); i++) {
+			int match = i < before.length() ? matches[i] : after.length();
+
+			if (match == -1) {
+				diff.add(new LcsDiffEntry<>(LcsDiffType.REMOVE, before.charAt(i)));
+				continue;
+			}
+
+			for (; j < match; j++) {
+				diff.add(new LcsDiffEntry<>(LcsDiffType.ADD, after.charAt(j)));
+			}
+
+			if (i < before.length()) {
+				diff.add(new LcsDiffEntry<>(LcsDiffType.NONE, before.charAt(i)));
+				j++;
+			}
+		}
+
+		return diff;
+	}
+
+	/**
+	 * Returns the differences between the two <code>int</code> arrays.
+	 *
+	 * @param before the "before" value in the diff process
+	 * @param after  the "after" value in the diff process
+	 * @return a list of the differences
+	 */
+	public static List<LcsDiffEntry<Integer>> diff(final int[] before, final int[] after) {
+		int[] matches = match(new Sequences() {
+			@Override
+			public int lengthOfBefore() {
+				return before.length;
+			}
+
+			@Override
+			public int lengthOfAfter() {
+				return after.length;
+			}
+
+			@Override
+			public boolean equals(final int i, final int j) {
+				return before[i] == after[j];
+			}
+		});
+
+		List<LcsDiffEntry<Integer>> diff = new ArrayList<>(Math.max(before.length, after.length));
+
+		int j = 0;
+
+		for (int i = 0; i <= before.length; i++) {
+			int match = i < before.length ? matches[i] : after.length;
+
+			if (match == -1) {
+				diff.add(new LcsDiffEntry<>(LcsDiffType.REMOVE, before[i]));
+				continue;
+			}
+
+			for (; j < match; j++) {
+				diff.add(new LcsDiffEntry<>(LcsDiffType.ADD, after[j]));
+			}
+
+			if (i < before.length) {
+				diff.add(new LcsDiffEntry<>(LcsDiffType.NONE, before[i]));
+				j++;
+			}
+		}
+
+		return diff;
+	}
+
+	/**
+	 * Returns the length of the longest common subsequence of the two
+	 * character sequences.
+	 *
+	 * @param before the "before" value
+	 * @param after  the "after" value
+	 * @return the length of the longest common subsequence
+	 */
+	public static int lcsLength(final CharSequence before, final CharSequence after) {
+		int length = 0;
+
+		for (int match : match(sequences(before, after))) {
+			if (match != -1) {
+				length++;
+			}
+		}
+
+		return length;
+	}
+
+	private static Sequences sequences(final CharSequence before, final CharSequence after) {
+		return new Sequences() {
+			@Override
+			public int lengthOfBefore() {
+				return before.length();
+			}
+
+			@Override
+			public int lengthOfAfter() {
+				return after.length();
+			}
+
+			@Override
+			public boolean equals(final int i, final int j) {
+				return before.charAt(i) == after.charAt(j);
+			}
+		};
+	}
+
+	/**
+	 * Finds a longest common subsequence.
+	 *
+	 * @param sequences the sequences to compare
+	 * @return for each element in the "before" sequence, the index of the
+	 *         element in the "after" sequence it is matched with (or -1 if it's
+	 *         removed)
+	 */
+	private static int[] match(final Sequences sequences) {
+		int n = sequences.lengthOfBefore();
+		int m = sequences.lengthOfAfter();
+
+		int[] matches = new int[n];
+		Arrays.fill(matches, -1);
+
+		// Shared by each step (sized for the largest)
+		int maxD = (n + m + 1) / 2;
+		int[] forward = new int[2 * maxD + 2];
+		int[] backward = new int[2 * maxD + 2];
+
+		// Each range is {beforeStart, beforeEnd, afterStart, afterEnd}
+		Deque<int[]> ranges = new ArrayDeque<>();
+		ranges.push(new int[] { 0, n, 0, m });
+
+		while (!ranges.isEmpty()) {
+			int[] range = ranges.pop();
+			int beforeStart = range[0];
+			int beforeEnd = range[1];
+			int afterStart = range[2];
+			int afterEnd = range[3];
+
+			// Common prefix
+			while (beforeStart < beforeEnd && afterStart < afterEnd && sequences.equals(beforeStart, afterStart)) {
+				matches[beforeStart++] = afterStart++;
+			}
+
+			// Common suffix
+			while (beforeStart < beforeEnd && afterStart < afterEnd
+					&& sequences.equals(beforeEnd - 1, afterEnd - 1)) {
+				matches[--beforeEnd] = --afterEnd;
+			}
+
+			if (beforeStart == beforeEnd || afterStart == afterEnd) {
+				// Only additions or only removals remain
+				continue;
+			}
+
+			long split = middleSnake(sequences, beforeStart, beforeEnd, afterStart, afterEnd, forward, backward);
+
+			if (split == -1) {
+				// No common elements
+				continue;
+			}
+
+			int x = beforeStart + (int) (split >>> 32);
+			int y = afterStart + (int) split;
+
+			if (x == beforeStart && y == afterStart || x == beforeEnd && y == afterEnd) {
+				// Not expected (since the first and last elements differ), but prevents looping forever
+				continue;
+			}
+
+			ranges.push(new int[] { x, beforeEnd, y, afterEnd });
+			ranges.push(new int[] { beforeStart, x, afterStart, y });
+		}
+
+		return matches;
+	}
+
+	/**
+	 * Finds the point where the forward and backward searches for a shortest
+	 * edit script meet.
+	 *
+	 * <p>
+	 * The first and last elements of the two ranges must differ.
+	 * </p>
+	 *
+	 * @return the split point (relative to the start of each range), with
+	 *         the "before" offset in the upper 32 bits and the "after" offset in
+	 *         the lower 32 bits; or -1 if there is no common element
+	 */
+	private static long middleSnake(final Sequences sequences, final int beforeStart, final int beforeEnd,
+			final int afterStart, final int afterEnd, final int[] forward, final int[] backward) {
+		int n = beforeEnd - beforeStart;
+		int m = afterEnd - afterStart;
+		int maxD = (n + m + 1) / 2;
+		int offset = maxD;
+		int length = 2 * maxD;
+
+		Arrays.fill(forward, 0, length + 2, -1);
+		Arrays.fill(backward, 0, length + 2, -1);
+		forward[offset + 1] = 0;
+		backward[offset + 1] = 0;
+
+		int delta = n - m;
+		// If the total number of characters is odd, the forward path collides with the reverse path
+		boolean front = (delta & 1) != 0;
+
+		// Offsets for the start and end of the k loops (prevents mapping off the edges)
+		int k1Start = 0;
+		int k1End = 0;
+		int k2Start = 0;
+		int k2End = 0;
+
+		for (int d = 0; d < maxD; d++) {
+			// Walk the forward path one step
+			for (int k1 = -d + k1Start; k1 <= d - k1End; k1 += 2) {
+				int k1Offset = offset + k1;
+				int x1;
+
+				if (k1 == -d || k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1]) {
+					x1 = forward[k1Offset + 1];
+				} else {
+					x1 = forward[k1Offset - 1] + 1;
+				}
+
+				int y1 = x1 - k1;
+
+				while (x1 < n && y1 < m && sequences.equals(beforeStart + x1, afterStart + y1)) {
+					x1++;
+					y1++;
+				}
+
+				forward[k1Offset] = x1;
+
+				if (x1 > n) {
+					// Ran off the right of the graph
+					k1End += 2;
+				} else if (y1 > m) {
+					// Ran off the bottom of the graph
+					k1Start += 2;
+				} else if (front) {
+					int k2Offset = offset + delta - k1;
+
+					if (k2Offset >= 0 && k2Offset < length && backward[k2Offset] != -1) {
+						// Mirror x2 onto top-left coordinate system
+						int x2 = n - backward[k2Offset];
+
+						if (x1 >= x2) {
+							// Overlap detected
+							return (long) x1 << 32 | y1;
+						}
+					}
+				}
+			}
+
+			// Walk the reverse path one step
+			for (int k2 = -d + k2Start; k2 <= d - k2End; k2 += 2) {
+				int k2Offset = offset + k2;
+				int x2;
+
+				if (k2 == -d || k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1]) {
+					x2 = backward[k2Offset + 1];
+				} else {
+					x2 = backward[k2Offset - 1] + 1;
+				}
+
+				int y2 = x2 - k2;
+
+				while (x2 < n && y2 < m && sequences.equals(beforeEnd - x2 - 1, afterEnd - y2 - 1)) {
+					x2++;
+					y2++;
+				}
+
+				backward[k2Offset] = x2;
+
+				if (x2 > n) {
+					// Ran off the left of the graph
+					k2End += 2;
+				} else if (y2 > m) {
+					// Ran off the top of the graph
+					k2Start += 2;
+				} else if (!front) {
+					int k1Offset = offset + delta - k2;
+
+					if (k1Offset >= 0 && k1Offset < length && forward[k1Offset] != -1) {
+						int x1 = forward[k1Offset];
+						int y1 = offset + x1 - k1Offset;
+
+						// Mirror x2 onto top-left coordinate system
+						x2 = n - x2;
+
+						if (x1 >= x2) {
+							// Overlap detected
+							return (long) x1 << 32 | y1;
+						}
+					}
+				}
+			}
+		}
+
+		// No commonality at all
+		return -1;
+	}
+}
@@ -0,0 +1,63 @@
+package info.codesaway.util.regex;
+
+/**
+ * A <a href="Pattern.html#group">group</a> of a specific {@link Pattern}, resolved once, so that getting the group
+ * from a match doesn't need to parse the group name
+ *
+ * <p>Group references are created using {@link Pattern#groupRef(String)} (or
+ * {@link Pattern#groupRef(String, int)}) and are interned, so the same group reference is returned each time the
+ * same group is requested. They can be used with the {@link Matcher} and {@link MatchResult} methods which take a
+ * <code>GroupRef</code>, such as {@link MatchResult#group(GroupRef)}.</p>
+ *
+ * <pre><code>GroupRef year = pattern.groupRef("year");
+ *
+ * while (matcher.find()) {
+ *     String value = matcher.group(year);
+ * }</code></pre>
+ *
+ * <p>If a group reference is used with a match of a different pattern, the group is resolved using the group's name
+ * (the same as passing {@link #toString()}).</p>
+ *
+ * @since 2.1
+ */
+public final class GroupRef {
+	private final Pattern pattern;
+	private final String group;
+
+	/**
+	 * The group index (in the internal pattern) for each occurrence of the group
+	 */
+	private final int[] groupIndexes;
+
+	GroupRef(final Pattern pattern, final String group, final int[] groupIndexes) {
+		this.pattern = pattern;
+		this.group = group;
+		this.groupIndexes = groupIndexes;
+	}
+
+	/**
+	 * Returns the pattern used to resolve this group
+	 *
+	 * @return the pattern used to resolve this group
+	 */
+	public Pattern pattern() {
+		return this.pattern;
+	}
+
+	/**
+	 * Returns the group indexes (in the internal pattern) for each occurrence of the group (must not be modified)
+	 */
+	int[] getGroupIndexes() {
+		return this.groupIndexes;
+	}
+
+	/**
+	 * Returns the group, as passed to {@link Pattern#groupRef(String)}
+	 *
+	 * @return the group
+	 */
+	@Override
+	public String toString() {
+		return this.group;
+	}
+}
@@ -0,0 +1,149 @@
+package info.codesaway.util.regex;
+
+import java.util.Arrays;
+
+/**
+ * Searches for a literal, using the Boyer-Moore-Horspool algorithm (a skip table, from the characters in the
+ * literal)
+ *
+ * <p>Used for patterns which only match a literal: patterns compiled with the {@link Pattern#LITERAL} flag, or whose
+ * regular expression has no {@link Pattern#REGEX_METACHARACTERS}. If case-insensitive, only US-ASCII characters are
+ * compared case-insensitively (the same as {@link Pattern#CASE_INSENSITIVE} without {@link Pattern#UNICODE_CASE}).</p>
+ */
+final class LiteralSearcher {
+	/**
+	 * The number of entries in the skip table (characters are grouped by their low bits)
+	 */
+	private static final int SKIP_TABLE_SIZE = 256;
+
+	private final String literal;
+	private final boolean caseInsensitive;
+
+	/**
+	 * The literal, with US-ASCII letters in lowercase if case-insensitive
+	 */
+	private final char[] folded;
+
+	/**
+	 * How far to move, based on the character aligned with the last character of the literal
+	 */
+	private final int[] skip;
+
+	LiteralSearcher(final String literal, final boolean caseInsensitive) {
+		int length = literal.length();
+
+		this.literal = literal;
+		this.caseInsensitive = caseInsensitive;
+		this.folded = new char[length];
+		this.skip = new int[SKIP_TABLE_SIZE];
+
+		for (int i = 0; i < length; i++) {
+			this.folded[i] = this.fold(literal.charAt(i));
+		}
+
+		Arrays.fill(this.skip, length);
+
+		// If characters share an entry, the smallest skip is kept (which is always safe)
+		for (int i = 0; i < length - 1; i++) {
+			this.skip[this.folded[i] & (SKIP_TABLE_SIZE - 1)] = length - 1 - i;
+		}
+	}
+
+	/**
+	 * Returns the searcher for the pattern, if the pattern only matches a literal
+	 *
+	 * @param regex
+	 *            the regular expression
+	 * @param flags
+	 *            the flags
+	 * @return the searcher, or <code>null</code> if the pattern doesn't only match a literal
+	 */
+	static LiteralSearcher forPattern(final String regex, final int flags) {
+		if (regex.isEmpty() || (flags & (Pattern.CANON_EQ | Pattern.COMMENTS)) != 0) {
+			return null;
+		}
+
+		boolean caseInsensitive = (flags & Pattern.CASE_INSENSITIVE) != 0;
+
+		if (caseInsensitive && (flags & (Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS)) != 0) {
+			return null;
+		}
+
+		boolean literal = (flags & Pattern.LITERAL) != 0;
+
+		for (int i = 0; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+
+			if (Character.isSurrogate(c)) {
+				// Java matches supplementary characters as code points
+				return null;
+			}
+
+			if (!literal && Pattern.REGEX_METACHARACTERS.indexOf(c) != -1) {
+				return null;
+			}
+		}
+
+		return new LiteralSearcher(regex, caseInsensitive);
+	}
+
+	String getLiteral() {
+		return this.literal;
+	}
+
+	int length() {
+		return this.literal.length();
+	}
+
+	private char fold(final char c) {
+		return this.caseInsensitive && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	/**
+	 * Returns the index of the first occurrence of the literal in the text, at or after <code>from</code>, or -1 if
+	 * the literal doesn't occur
+	 */
+	int indexOf(final CharSequence text, final int from) {
+		if (!this.caseInsensitive && text instanceof String) {
+			// Intrinsic in the JVM
+			return ((String) text).indexOf(this.literal, from);
+		}
+
+		int last = this.folded.length - 1;
+		int max = text.length() - this.folded.length;
+		int i = Math.max(from, 0);
+
+		while (i <= max) {
+			int j = last;
+
+			while (this.fold(text.charAt(i + j)) == this.folded[j]) {
+				if (j == 0) {
+					return i;
+				}
+
+				j--;
+			}
+
+			i += this.skip[this.fold(text.charAt(i + last)) & (SKIP_TABLE_SIZE - 1)];
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Indicates whether the text is the literal
+	 */
+	boolean matches(final CharSequence text) {
+		if (text.length() != this.folded.length) {
+			return false;
+		}
+
+		for (int i = 0; i < this.folded.length; i++) {
+			if (this.fold(text.charAt(i)) != this.folded[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
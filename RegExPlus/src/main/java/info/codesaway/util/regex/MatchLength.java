@@ -0,0 +1,63 @@
+package info.codesaway.util.regex;
+
+/**
+ * The minimum and maximum length of a match, found by analyzing the refactored regular expression
+ *
+ * <p>Created by {@link PatternAnalyzer#analyzeMatchLength(java.util.regex.Pattern)}. Since RegExPlus syntax (such as
+ * numeric ranges and subroutines) is expanded when the pattern is refactored, the lengths include them. Lengths are
+ * in chars (a supplementary character has a length of 2).</p>
+ */
+final class MatchLength {
+	/**
+	 * Used as the maximum length, if a match can be any length
+	 */
+	static final int UNBOUNDED = Integer.MAX_VALUE;
+
+	/**
+	 * Used if the lengths can't be determined
+	 */
+	static final MatchLength UNKNOWN = new MatchLength(0, UNBOUNDED, true);
+
+	private final int minLength;
+	private final int maxLength;
+
+	/**
+	 * Whether the pattern may look at the text after a match (such as a lookahead, <code>$</code>, or
+	 * <code>\b</code>)
+	 */
+	private final boolean readsAfterMatch;
+
+	MatchLength(final int minLength, final int maxLength, final boolean readsAfterMatch) {
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+		this.readsAfterMatch = readsAfterMatch;
+	}
+
+	int getMinLength() {
+		return this.minLength;
+	}
+
+	/**
+	 * Returns the maximum length of a match, or {@link #UNBOUNDED} if a match can be any length
+	 */
+	int getMaxLength() {
+		return this.maxLength;
+	}
+
+	/**
+	 * Indicates whether a match can have the given length
+	 */
+	boolean canMatch(final int length) {
+		return length >= this.minLength && length <= this.maxLength;
+	}
+
+	/**
+	 * Indicates whether matching the entire text (of the given length) can hit the end of the text
+	 *
+	 * <p>If the text is longer than the maximum length, the search engine only looks at the text after the maximum
+	 * length if the pattern may look at the text after a match.</p>
+	 */
+	boolean canHitEnd(final int length) {
+		return length <= this.maxLength || this.readsAfterMatch;
+	}
+}
@@ -166,6 +166,32 @@ public interface MatchResult
 	 */
 	public int start(String groupName, int occurrence);
 
+	/**
+	 * Returns the start index of the subsequence captured by the given group
+	 * during the previous match operation.
+	 *
+	 * @param group
+	 *            A group reference for a capturing group in this matcher's
+	 *            pattern
+	 *
+	 * @return The index of the first character captured by the group,
+	 *         or <tt>-1</tt> if the match was successful but the group
+	 *         itself did not match anything
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted,
+	 *             or if the previous match operation failed
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 * @see Pattern#groupRef(String)
+	 * @since 2.1
+	 */
+	public default int start(final GroupRef group) {
+		return this.start(group.toString());
+	}
+
 	/**
 	 * Returns the offset after the last character matched.
 	 *
@@ -259,6 +285,32 @@ public interface MatchResult
 	 */
 	public int end(String groupName, int occurrence);
 
+	/**
+	 * Returns the offset after the last character of the subsequence
+	 * captured by the given group during the previous match operation.
+	 *
+	 * @param group
+	 *            A group reference for a capturing group in this matcher's
+	 *            pattern
+	 *
+	 * @return The offset after the last character captured by the group,
+	 *         or <tt>-1</tt> if the match was successful
+	 *         but the group itself did not match anything
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted,
+	 *             or if the previous match operation failed
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 * @see Pattern#groupRef(String)
+	 * @since 2.1
+	 */
+	public default int end(final GroupRef group) {
+		return this.end(group.toString());
+	}
+
 	/**
 	 * Returns the occurrence of the first <i>matched</i> group with the given
 	 * index.
@@ -576,6 +628,63 @@ public interface MatchResult
 	public String group(String groupName, int occurrence,
 			String defaultValue);
 
+	/**
+	 * Returns the input subsequence captured by the given group during the
+	 * previous match operation.
+	 *
+	 * @param group
+	 *            A group reference for a capturing group in this matcher's
+	 *            pattern
+	 *
+	 * @return The (possibly empty) subsequence captured by the group
+	 *         during the previous match, or <tt>null</tt> if the group
+	 *         failed to match part of the input
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted,
+	 *             or if the previous match operation failed
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 * @see Pattern#groupRef(String)
+	 * @since 2.1
+	 */
+	public default String group(final GroupRef group) {
+		return this.group(group.toString());
+	}
+
+	/**
+	 * Returns the input subsequence captured by the given group during the
+	 * previous match operation, or <tt>defaultValue</tt> if the group failed
+	 * to match part of the input.
+	 *
+	 * @param group
+	 *            A group reference for a capturing group in this matcher's
+	 *            pattern
+	 *
+	 * @param defaultValue
+	 *            The string to return if {@link #group(GroupRef)} would
+	 *            return <code>null</code>
+	 *
+	 * @return The (possibly empty) subsequence captured by the group
+	 *         during the previous match, or <tt>defaultValue</tt> if the group
+	 *         failed to match part of the input
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted,
+	 *             or if the previous match operation failed
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 * @see Pattern#groupRef(String)
+	 * @since 2.1
+	 */
+	public default String group(final GroupRef group, final String defaultValue) {
+		return this.group(group.toString(), defaultValue);
+	}
+
 	/**
 	 * Returns the number of capturing groups in this match result's pattern.
 	 *
@@ -1085,6 +1194,25 @@ public interface MatchResult
 	 */
 	public String text();
 
+	/**
+	 * Returns the state of this match result as a <code>MatchResult</code>
+	 * which is unaffected by subsequent operations.
+	 *
+	 * <p>For example, the match result passed to
+	 * {@link Matcher#forEachMatch(java.util.function.Consumer)} is only valid during the
+	 * callback; this method can be used to keep the match.</p>
+	 *
+	 * <p>The default implementation returns this match result, which is
+	 * correct for immutable match results; mutable implementations (such as
+	 * {@link Matcher}) must override this method.</p>
+	 *
+	 * @return a <code>MatchResult</code> with the state of this match result
+	 * @since 2.1
+	 */
+	public default MatchResult toMatchResult() {
+		return this;
+	}
+
 	/**
 	 * Returns the group name (if any) for the specified group.
 	 *
@@ -1162,6 +1290,8 @@ public interface MatchResult
 	 * @since 0.2
 	 */
 	public default Set<Entry<Integer, String>> entrySet() {
+		int size = this.groupCount() + 1;
+
 		return new AbstractSet<Entry<Integer, String>>() {
 			@Override
 			public Iterator<Entry<Integer, String>> iterator() {
@@ -1170,12 +1300,12 @@ public interface MatchResult
 
 					@Override
 					public boolean hasNext() {
-						return this.next < size();
+						return this.next < size;
 					}
 
 					@Override
 					public Entry<Integer, String> next() {
-						if (this.next >= size()) {
+						if (this.next >= size) {
 							throw new NoSuchElementException(String.valueOf(this.next));
 						}
 
@@ -1189,9 +1319,22 @@ public interface MatchResult
 				};
 			}
 
+			@Override
+			public boolean contains(final Object o) {
+				if (!(o instanceof Entry)) {
+					return false;
+				}
+
+				Entry<?, ?> entry = (Entry<?, ?>) o;
+				Object key = entry.getKey();
+
+				return key instanceof Integer && (Integer) key >= 0 && (Integer) key < size
+						&& Objects.equals(entry.getValue(), MatchResult.this.group((Integer) key));
+			}
+
 			@Override
 			public int size() {
-				return MatchResult.this.groupCount() + 1;
+				return size;
 			}
 		};
 	}
@@ -1215,6 +1358,8 @@ public interface MatchResult
 	 * @since 0.2
 	 */
 	public default Set<Integer> keySet() {
+		int size = this.groupCount() + 1;
+
 		return new AbstractSet<Integer>() {
 			@Override
 			public Iterator<Integer> iterator() {
@@ -1223,12 +1368,12 @@ public interface MatchResult
 
 					@Override
 					public boolean hasNext() {
-						return this.next < size();
+						return this.next < size;
 					}
 
 					@Override
 					public Integer next() {
-						if (this.next >= size()) {
+						if (this.next >= size) {
 							throw new NoSuchElementException(String.valueOf(this.next));
 						}
 
@@ -1242,9 +1387,14 @@ public interface MatchResult
 				};
 			}
 
+			@Override
+			public boolean contains(final Object o) {
+				return o instanceof Integer && (Integer) o >= 0 && (Integer) o < size;
+			}
+
 			@Override
 			public int size() {
-				return MatchResult.this.groupCount() + 1;
+				return size;
 			}
 		};
 	}
@@ -9,17 +9,23 @@ package info.codesaway.util.regex;
 
 // TODO: overload matched method to allow checking for matched group without throwing error if it doesn't exist
 import static info.codesaway.util.regex.Pattern.getMappingName;
-import static info.codesaway.util.regex.RefactorUtility.fullGroupName;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -133,11 +139,54 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 */
 	private CharSequence text;
 
+	/**
+	 * A copy of the text, shared by the match results (created the first time it's needed after this matcher is
+	 * reset)
+	 */
+	private String textSnapshot;
+
+	/**
+	 * The index where the next call to {@link #find()} starts searching, or -1 if not known
+	 */
+	private int searchFrom;
+
+	/**
+	 * Whether the internal matcher has been used to match since it was reset (if not, it has the same state as after
+	 * a failed match, except for {@link #hitEnd()} and {@link #requireEnd()})
+	 */
+	private boolean matchAttempted;
+
+	/**
+	 * Whether {@link #matches()} returned <code>false</code> without using the internal matcher, since the length of
+	 * the region can't match (the match is run if {@link #hitEnd()} or {@link #requireEnd()} is needed)
+	 */
+	private boolean matchSkipped;
+
+	/**
+	 * The index {@link #find()} would have searched from, if it returned <code>false</code> without searching from
+	 * that index, since no match fits in the rest of the text (the search is run if {@link #hitEnd()} or
+	 * {@link #requireEnd()} is needed), or -1
+	 */
+	private int findSkippedFrom = -1;
+
 	/**
 	 * @since 0.2
 	 */
 	private boolean treatNullAsEmptyString = false;
 
+	/**
+	 * Whether match results refer to the original text, instead of a copy
+	 *
+	 * @since 2.1
+	 */
+	private boolean shareText = false;
+
+	/**
+	 * The number of times this matcher's match state was changed (used to detect a replacement function which
+	 * modifies the matcher)
+	 */
+	private int modCount;
+
 	/**
 	 * @param matcher the Java Matcher
 	 * @since 0.2
@@ -235,18 +284,30 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 *
 	 * @return a <code>MatchResult</code> with the state of this matcher
 	 */
+	@Override
 	public MatchResult toMatchResult() {
-		return this.toMatchResult(this.text.toString());
-	}
+		CharSequence text = this.shareText ? this.text : this.getTextSnapshot();
 
-	private MatchResult toMatchResult(final String text) {
 		return new ImmutableMatchResult(
 				this.pattern(),
-				this.usedMatcher.toMatchResult(),
+				new MatchOffsets(this.usedMatcher, text),
 				text,
 				this.treatNullAsEmptyString());
 	}
 
+	/**
+	 * Returns a copy of the text, which is shared by the match results until this matcher is reset
+	 *
+	 * @return a copy of the text
+	 */
+	private String getTextSnapshot() {
+		if (this.textSnapshot == null) {
+			this.textSnapshot = this.text.toString();
+		}
+
+		return this.textSnapshot;
+	}
+
 	/**
 	 * Changes the <tt>Pattern</tt> that this <tt>Matcher</tt> uses to find
 	 * matches with.
@@ -266,6 +327,9 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 			throw new IllegalArgumentException("Pattern cannot be null");
 		}
 
+		this.runSkippedMatch();
+		this.modCount++;
+
 		java.util.regex.Pattern pattern = newPattern.getInternalPattern();
 
 		this.internalMatcher.usePattern(pattern);
@@ -320,11 +384,94 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 * @return this matcher
 	 */
 	private Matcher resetPrivate() {
+		this.modCount++;
 		this.lastAppendPosition = 0;
+		// The text may have changed (for example, if it's a StringBuilder)
+		this.textSnapshot = null;
 		this.usedMatcher = this.internalMatcher;
+		this.searchFrom = this.internalMatcher.regionStart();
+		this.matchAttempted = false;
+		this.matchSkipped = false;
+		this.findSkippedFrom = -1;
 		return this;
 	}
 
+	/**
+	 * Indicates that the internal matcher is used to match
+	 */
+	private void attemptMatch() {
+		this.modCount++;
+		this.matchAttempted = true;
+		this.matchSkipped = false;
+		this.findSkippedFrom = -1;
+	}
+
+	/**
+	 * Runs the match skipped by {@link #matches()} or {@link #find()}, so the internal matcher has the same state as
+	 * if the match wasn't skipped
+	 */
+	private void runSkippedMatch() {
+		if (this.matchSkipped) {
+			this.matchSkipped = false;
+			this.matchAttempted = true;
+			this.internalMatcher.matches();
+		} else if (this.findSkippedFrom != -1) {
+			// Fails the same as the skipped search (searching from an index resets the internal matcher, the same as
+			// the search which was run instead)
+			int from = this.findSkippedFrom;
+			this.findSkippedFrom = -1;
+			this.internalMatcher.find(from);
+		}
+	}
+
+	/**
+	 * Returns where the next call to {@link #find()} starts searching, after a successful match
+	 */
+	private int getNextSearchFrom() {
+		int end = this.internalMatcher.end();
+
+		// After an empty match, the next search starts at the next character
+		return end == this.internalMatcher.start() ? end + 1 : end;
+	}
+
+	/**
+	 * Returns the index where the internal matcher should start searching for the next match, skipping the text
+	 * which can't contain a match (see {@link Prefilter})
+	 *
+	 * @return the index where the internal matcher should start searching, or -1 to continue searching normally
+	 */
+	private int getSearchStart() {
+		int from = this.searchFrom;
+		int textLength = this.getTextLength();
+
+		// Searching from an index resets the region, so only done if the region is the entire text
+		if (from == -1 || from > textLength || this.internalMatcher.regionStart() != 0
+				|| this.internalMatcher.regionEnd() != textLength) {
+			return -1;
+		}
+
+		if (this.noMatchFits(from, textLength)) {
+			return from == textLength ? -1 : textLength;
+		}
+
+		Prefilter prefilter = this.parentPattern.getPrefilter();
+
+		if (prefilter == null) {
+			return -1;
+		}
+
+		int start = prefilter.getSearchStart(this.text, from);
+
+		return start == from ? -1 : start;
+	}
+
+	/**
+	 * Indicates whether no match fits in the text after the index
+	 */
+	private boolean noMatchFits(final int from, final int textLength) {
+		return from > textLength - this.parentPattern.getMatchLength().getMinLength();
+	}
+
 	/**
 	 * Returns the start index of the previous match.
 	 *
@@ -878,6 +1025,17 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 *         this matcher's pattern
 	 */
 	public boolean matches() {
+		this.searchFrom = -1;
+
+		if (!this.matchAttempted
+				&& !this.parentPattern.getMatchLength().canMatch(this.regionEnd() - this.regionStart())) {
+			// The internal matcher already has the state of a failed match
+			this.modCount++;
+			this.matchSkipped = true;
+			return false;
+		}
+
+		this.attemptMatch();
 		// TODO: use internalMatcher or useMatcher ??
 		return this.internalMatcher.matches();
 	}
@@ -975,13 +1133,32 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 		// }
 
 		boolean found;
+		int from = this.searchFrom;
+		boolean skipped = false;
+
+		this.attemptMatch();
 
 		if (this.usedMatcher != this.internalMatcher) {
 			// System.out.println("Test: " + useMatcher.end());
 			found = this.internalMatcher.find(this.usedMatcher.end());
 			this.usedMatcher = this.internalMatcher;
 		} else {
-			found = this.internalMatcher.find();
+			int start = this.getSearchStart();
+			skipped = start != -1;
+			found = skipped ? this.internalMatcher.find(start) : this.internalMatcher.find();
+		}
+
+		if (found) {
+			this.searchFrom = this.getNextSearchFrom();
+		} else {
+			// Searching from an index resets the internal matcher, so the next search starts from the same index
+			// (the same as after a failed search, which doesn't change where the next search starts)
+			this.searchFrom = skipped ? from : -1;
+
+			if (skipped && this.noMatchFits(from, this.getTextLength())) {
+				// The attempts from the skipped indexes may have hit the end
+				this.findSkippedFrom = from;
+			}
 		}
 
 		// boolean found = useMatcher.find();
@@ -1098,6 +1275,8 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 		// boolean find = this.internalMatcher.find(start);
 		boolean find = this.usedMatcher.find(start);
 		this.resetPrivate();
+		this.matchAttempted = true;
+		this.searchFrom = find ? this.getNextSearchFrom() : -1;
 
 		// TODO: before or after resetPrivate() ??
 		// lastMatch = (Matcher) toMatchResult();
@@ -1122,6 +1301,8 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 *         matches this matcher's pattern
 	 */
 	public boolean lookingAt() {
+		this.attemptMatch();
+		this.searchFrom = -1;
 		return this.internalMatcher.lookingAt();
 	}
 
@@ -1144,9 +1325,6 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 		return java.util.regex.Matcher.quoteReplacement(s);
 	}
 
-	private final java.util.regex.Pattern replacementPart = java.util.regex.Pattern
-			.compile("\\G(?:(-?\\d++)|" + fullGroupName + ")\\}");
-
 	/**
 	 * <p>Gets the replacement string, replacing any group references with their actual value</p>
 	 *
@@ -1190,179 +1368,114 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 *             that does not exist in the pattern
 	 */
 	public String getReplacement(final String replacement) {
-		int cursor = 0;
+		return this.getReplacement(this.pattern().compileReplacement(replacement));
+	}
+
+	/**
+	 * Gets the replacement string, replacing any group references with their actual value
+	 *
+	 * @param replacement
+	 *            The compiled replacement
+	 *
+	 * @return the replacement string replacing any group references with their group value from this Matcher
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the replacement was compiled for a different pattern and
+	 *             refers to a named-capturing group that does not exist in
+	 *             this matcher's pattern
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the replacement was compiled for a different pattern and
+	 *             refers to a capturing group that does not exist in this
+	 *             matcher's pattern
+	 *
+	 * @see #getReplacement(String)
+	 * @since 2.1
+	 */
+	public String getReplacement(final Replacement replacement) {
+		Replacement compiledReplacement = this.compileReplacement(replacement);
+
+		if (compiledReplacement.isLiteral()) {
+			return compiledReplacement.getLiterals()[0];
+		}
+
 		StringBuilder result = new StringBuilder();
 
-		while (cursor < replacement.length()) {
-			char nextChar = replacement.charAt(cursor);
-
-			if (nextChar == '\\') {
-				cursor++;
-				nextChar = replacement.charAt(cursor);
-				result.append(nextChar);
-				cursor++;
-			} else if (nextChar == '$') {
-				// Skip past $
-				cursor++;
-
-				// A StringIndexOutOfBoundsException is thrown if
-				// this "$" is the last character in replacement
-				// string in current implementation, a IAE might be
-				// more appropriate.
-				nextChar = replacement.charAt(cursor);
-
-				int mappedIndex;
-
-				if (nextChar == '<') {
-					// e.g. $<name>
-					// (Java's named group reference)
-
-					cursor++;
-					StringBuilder gsb = new StringBuilder();
-					while (cursor < replacement.length()) {
-						nextChar = replacement.charAt(cursor);
-
-						if (nextChar >= 'a' && nextChar <= 'z' ||
-								nextChar >= 'A' && nextChar <= 'Z' ||
-								nextChar >= '0' && nextChar <= '9') {
-							gsb.append(nextChar);
-							cursor++;
-						} else {
-							break;
-						}
-					}
-					if (gsb.length() == 0) {
-						throw new IllegalArgumentException(
-								"named capturing group has 0 length name");
-					}
-					if (nextChar != '>') {
-						throw new IllegalArgumentException(
-								"named capturing group is missing trailing '>'");
-					}
-					String gname = gsb.toString();
-					String mappingName = getMappingName(gname, 1);
-					if (!this.pattern()
-							.getGroupMapping()
-							.containsKey(mappingName)) {
-						throw new IllegalArgumentException(
-								"No group with name <" + gname + ">");
-					}
-					mappedIndex = this.pattern()
-							.getGroupMapping()
-							.get(mappingName);
-					cursor++;
-				} else if (nextChar == '{') {
-					// TODO: don't create a matcher - performance hit
-					java.util.regex.Matcher matcher = this.replacementPart
-							.matcher(replacement);
-
-					if (!matcher.find(++cursor)) {
-						throw new IllegalArgumentException(
-								"Illegal group reference");
-					}
-
-					String numberGroup = matcher.group(1);
-					String match = matcher.group();
-
-					if (!match.endsWith("}")) {
-						throw new IllegalArgumentException(
-								"named capturing group is missing trailing '}'");
-					}
-
-					cursor += match.length();
-
-					// Get mapped index
-					// String refGroupName = refGroup.toString();
-
-					// if (false) {
-					// if (isNum && refGroupName.length() != 0) {
-					// int refNum;
-					// try {
-					// refNum = Integer.parseInt(refGroupName);
-					// } catch (NumberFormatException e) {
-					// throw new IllegalArgumentException(
-					// "Illegal group reference");
-					// }
-					//
-					// mappedIndex = getGroupIndex(refNum);
-					// } else {
-					// mappedIndex = getGroupIndex(refGroupName);
-
-					if (numberGroup != null) {
-						int groupIndex = Integer.parseInt(numberGroup);
-						mappedIndex = this.getGroupIndex(groupIndex);
-					} else {
-						String groupName = matcher.group(2);
-
-						if (groupName.length() == 0) {
-							throw new IllegalArgumentException(
-									"named capturing group has 0 length name");
-						}
-
-						String groupOccurrence = matcher.group(3);
-
-						if (groupOccurrence == null) {
-							mappedIndex = this.getGroupIndex(groupName);
-						} else {
-							int occurrence = Integer.parseInt(groupOccurrence);
-							mappedIndex = this.getGroupIndex(groupName, occurrence);
-						}
-					}
-					// }
-				}
-				// else if (nextChar == '$'){
-				// result.append('$');
-				// cursor++;
-				// continue;
-				// }
-				else {
-					// e.g $123
-					// (original functionality)
-
-					// The first number is always a group
-					int refNum = nextChar - '0';
-					if ((refNum < 0) || (refNum > 9)) {
-						throw new IllegalArgumentException(
-								"Illegal group reference");
-					}
-
-					cursor++;
-					// Capture the largest legal group string
-					boolean done = false;
-					while (!done) {
-						if (cursor >= replacement.length()) {
-							break;
-						}
-						int nextDigit = replacement.charAt(cursor) - '0';
-						if ((nextDigit < 0) || (nextDigit > 9)) { // not a
-							// number
-							break;
-						}
-						int newRefNum = (refNum * 10) + nextDigit;
-						if (this.groupCount() < newRefNum) {
-							done = true;
-						} else {
-							refNum = newRefNum;
-							cursor++;
-						}
-					}
-
-					mappedIndex = this.getGroupIndex(refNum);
-				}
+		try {
+			this.appendReplacementValue(result, compiledReplacement);
+		} catch (IOException e) {
+			// StringBuilder doesn't throw IOException
+			throw new AssertionError(e);
+		}
 
-				// Append group
-				String group = this.groupPrivate(mappedIndex);
+		return result.toString();
+	}
 
-				if (group != null) {
-					result.append(group);
-				}
-			} else {
-				result.append(nextChar);
-				cursor++;
+	/**
+	 * Returns the replacement compiled for this matcher's pattern.
+	 */
+	private Replacement compileReplacement(final Replacement replacement) {
+		return replacement.pattern() == this.pattern()
+				? replacement
+				: this.pattern().compileReplacement(replacement.toString());
+	}
+
+	/**
+	 * Appends the replacement, replacing any group references with their actual value
+	 *
+	 * <p>The groups are appended directly from the input sequence (without creating a string for each group).</p>
+	 *
+	 * @param out
+	 *            The target to append to
+	 * @param replacement
+	 *            The replacement, compiled for this matcher's pattern
+	 * @throws IOException
+	 *             If an I/O error occurs
+	 */
+	private void appendReplacementValue(final Appendable out, final Replacement replacement) throws IOException {
+		String[] literals = replacement.getLiterals();
+		int[][] groupIndexes = replacement.getGroupIndexes();
+
+		out.append(literals[0]);
+
+		for (int i = 0; i < groupIndexes.length; i++) {
+			// Append group
+			int mappedIndex = MatcherHelper.getFirstMatchedGroupIndex(this.usedMatcher, groupIndexes[i]);
+			int start = this.usedMatcher.start(mappedIndex);
+
+			if (start != -1) {
+				out.append(this.text, start, this.usedMatcher.end(mappedIndex));
 			}
+
+			out.append(literals[i + 1]);
 		}
+	}
 
-		return result.toString();
+	/**
+	 * Implements a non-terminal append-and-replace step, for any of the <code>appendReplacement</code> methods.
+	 *
+	 * @param out
+	 *            The target to append to
+	 * @param replacement
+	 *            The replacement, compiled for this matcher's pattern
+	 * @throws IOException
+	 *             If an I/O error occurs
+	 */
+	private void appendReplacementPrivate(final Appendable out, final Replacement replacement)
+			throws IOException {
+		int first = this.start();
+		int last = this.end();
+
+		// Append the intervening text
+		out.append(this.text, this.lastAppendPosition, first);
+		// Append the match substitution
+		this.appendReplacementValue(out, replacement);
+
+		this.lastAppendPosition = last;
 	}
 
 	/**
@@ -1453,132 +1566,682 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 *             that does not exist in the pattern
 	 */
 	public Matcher appendReplacement(final StringBuffer sb, final String replacement) {
-		int first = this.start();
-		int last = this.end();
-
-		// Append the intervening text
-		sb.append(this.getSubSequence(this.lastAppendPosition, first));
-		// Append the match substitution
-		sb.append(this.getReplacement(replacement));
+		// Checks that there is a match, before parsing the replacement
+		this.start();
 
-		this.lastAppendPosition = last;
-		return this;
+		return this.appendReplacement(sb, this.pattern().compileReplacement(replacement));
 	}
 
 	/**
-	 * Implements a terminal append-and-replace step.
+	 * Implements a non-terminal append-and-replace step, using a compiled replacement.
 	 *
-	 * <p>This method reads characters from the input sequence, starting at the
-	 * append position, and appends them to the given string buffer. It is
-	 * intended to be invoked after one or more invocations of the {@link #appendReplacement appendReplacement} method
-	 * in order to copy the
-	 * remainder of the input sequence.</p>
+	 * <p>Behaves the same as {@link #appendReplacement(StringBuffer, String)}, except that the replacement string
+	 * was already parsed by {@link Pattern#compileReplacement(String)}.</p>
 	 *
 	 * @param sb
 	 *            The target string buffer
 	 *
-	 * @return The target string buffer
+	 * @param replacement
+	 *            The compiled replacement
+	 *
+	 * @return This matcher
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed
+	 *
+	 * @see #appendReplacement(StringBuffer, String)
+	 * @since 2.1
 	 */
-	public StringBuffer appendTail(final StringBuffer sb) {
-		sb.append(this.text, this.lastAppendPosition, this.getTextLength());
-		return sb;
+	public Matcher appendReplacement(final StringBuffer sb, final Replacement replacement) {
+		try {
+			this.appendReplacementPrivate(sb, this.compileReplacement(replacement));
+		} catch (IOException e) {
+			// StringBuffer doesn't throw IOException
+			throw new AssertionError(e);
+		}
+
+		return this;
 	}
 
 	/**
-	 * Replaces every subsequence of the input sequence that matches the pattern
-	 * with the given replacement string.
-	 *
-	 * <p>This method first resets this matcher. It then scans the input
-	 * sequence
-	 * looking for matches of the pattern. Characters that are not part of any
-	 * match are appended directly to the result string; each match is replaced
-	 * in the result by the replacement string. The replacement string may
-	 * contain references to captured subsequences as in the {@link #appendReplacement appendReplacement} method.</p>
-	 *
-	 * <p>Note that backslashes (<tt>\</tt>) and dollar signs (<tt>$</tt>) in
-	 * the replacement string may cause the results to be different than if it
-	 * were being treated as a literal replacement string. Dollar signs may be
-	 * treated as references to captured subsequences as described above, and
-	 * backslashes are used to escape literal characters in the replacement
-	 * string.</p>
+	 * Implements a non-terminal append-and-replace step.
 	 *
-	 * <p>Given the regular expression <tt>a*b</tt>, the input
-	 * <tt>"aabfooaabfooabfoob"</tt>, and the replacement string <tt>"-"</tt>,
-	 * an invocation of this method on a matcher for that expression would yield
-	 * the string <tt>"-foo-foo-foo-"</tt>.</p>
+	 * <p>Behaves the same as {@link #appendReplacement(StringBuffer, String)}, except that the replacement is
+	 * appended to a (non-synchronized) <code>StringBuilder</code>.</p>
 	 *
-	 * <p>Invoking this method changes this matcher's state. If the matcher
-	 * is to be used in further matching operations then it should first be
-	 * reset.</p>
+	 * @param sb
+	 *            The target string builder
 	 *
 	 * @param replacement
 	 *            The replacement string
 	 *
-	 * @return The string constructed by replacing each matching subsequence by
-	 *         the replacement string, substituting captured subsequences as
-	 *         needed
+	 * @return This matcher
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the replacement string refers to a named-capturing
+	 *             group that does not exist in the pattern
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the replacement string refers to a capturing group
+	 *             that does not exist in the pattern
+	 *
+	 * @see #appendReplacement(StringBuffer, String)
+	 * @since 2.1
 	 */
-	public String replaceAll(final String replacement) {
-		this.reset();
-		boolean result = this.find();
-		if (result) {
-			StringBuffer sb = new StringBuffer();
-			do {
-				this.appendReplacement(sb, replacement);
-				result = this.find();
-			} while (result);
-			this.appendTail(sb);
-			return sb.toString();
-		}
-		return this.text.toString();
+	public Matcher appendReplacement(final StringBuilder sb, final String replacement) {
+		// Checks that there is a match, before parsing the replacement
+		this.start();
+
+		return this.appendReplacement(sb, this.pattern().compileReplacement(replacement));
 	}
 
 	/**
-	 * Replaces the first subsequence of the input sequence that matches the
-	 * pattern with the given replacement string.
+	 * Implements a non-terminal append-and-replace step, using a compiled replacement.
 	 *
-	 * <p>This method first resets this matcher. It then scans the input
-	 * sequence looking for a match of the pattern. Characters that are not part
-	 * of the match are appended directly to the result string; the match is
-	 * replaced in the result by the replacement string. The replacement string
-	 * may contain references to captured subsequences as in the {@link #appendReplacement appendReplacement} method.
+	 * <p>Behaves the same as {@link #appendReplacement(StringBuffer, Replacement)}, except that the replacement is
+	 * appended to a (non-synchronized) <code>StringBuilder</code>.</p>
 	 *
-	 * <p>Note that backslashes (<tt>\</tt>) and dollar signs (<tt>$</tt>) in
-	 * the replacement string may cause the results to be different than if it
-	 * were being treated as a literal replacement string. Dollar signs may be
-	 * treated as references to captured subsequences as described above, and
-	 * backslashes are used to escape literal characters in the replacement
-	 * string.</p>
+	 * @param sb
+	 *            The target string builder
 	 *
-	 * <p>Given the regular expression <tt>dog</tt>, the input
-	 * <tt>"zzzdogzzzdogzzz"</tt>, and the replacement string <tt>"cat"</tt>, an
-	 * invocation of this method on a matcher for that expression would yield
-	 * the string <tt>"zzzcatzzzdogzzz"</tt>.</p>
+	 * @param replacement
+	 *            The compiled replacement
 	 *
-	 * <p>Invoking this method changes this matcher's state. If the matcher
-	 * is to be used in further matching operations then it should first be
-	 * reset.</p>
+	 * @return This matcher
 	 *
-	 * @param replacement
-	 *            The replacement string
-	 * @return The string constructed by replacing the first matching
-	 *         subsequence by the replacement string, substituting captured
-	 *         subsequences as needed
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed
+	 *
+	 * @see #appendReplacement(StringBuffer, Replacement)
+	 * @since 2.1
 	 */
-	public String replaceFirst(final String replacement) {
-		if (replacement == null) {
-			throw new NullPointerException("replacement");
-		}
-		this.reset();
-		if (!this.find()) {
-			return this.text.toString();
+	public Matcher appendReplacement(final StringBuilder sb, final Replacement replacement) {
+		try {
+			this.appendReplacementPrivate(sb, this.compileReplacement(replacement));
+		} catch (IOException e) {
+			// StringBuilder doesn't throw IOException
+			throw new AssertionError(e);
 		}
-		StringBuffer sb = new StringBuffer();
-		this.appendReplacement(sb, replacement);
+
+		return this;
+	}
+
+	/**
+	 * Implements a non-terminal append-and-replace step.
+	 *
+	 * <p>Behaves the same as {@link #appendReplacement(StringBuffer, String)}, except that the replacement is
+	 * appended to any <code>Appendable</code>, such as a <code>Writer</code>. The intervening text and the captured
+	 * groups are appended directly from the input sequence, so the output can be streamed without building it in
+	 * memory.</p>
+	 *
+	 * @param out
+	 *            The target to append to
+	 *
+	 * @param replacement
+	 *            The replacement string
+	 *
+	 * @return This matcher
+	 *
+	 * @throws IOException
+	 *             If an I/O error occurs
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the replacement string refers to a named-capturing
+	 *             group that does not exist in the pattern
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the replacement string refers to a capturing group
+	 *             that does not exist in the pattern
+	 *
+	 * @see #appendReplacement(StringBuffer, String)
+	 * @since 2.1
+	 */
+	public Matcher appendReplacement(final Appendable out, final String replacement) throws IOException {
+		// Checks that there is a match, before parsing the replacement
+		this.start();
+
+		return this.appendReplacement(out, this.pattern().compileReplacement(replacement));
+	}
+
+	/**
+	 * Implements a non-terminal append-and-replace step, using a compiled replacement.
+	 *
+	 * <p>Behaves the same as {@link #appendReplacement(Appendable, String)}, except that the replacement string was
+	 * already parsed by {@link Pattern#compileReplacement(String)}.</p>
+	 *
+	 * @param out
+	 *            The target to append to
+	 *
+	 * @param replacement
+	 *            The compiled replacement
+	 *
+	 * @return This matcher
+	 *
+	 * @throws IOException
+	 *             If an I/O error occurs
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed
+	 *
+	 * @see #appendReplacement(Appendable, String)
+	 * @since 2.1
+	 */
+	public Matcher appendReplacement(final Appendable out, final Replacement replacement) throws IOException {
+		this.appendReplacementPrivate(out, this.compileReplacement(replacement));
+		return this;
+	}
+
+	/**
+	 * Implements a terminal append-and-replace step.
+	 *
+	 * <p>This method reads characters from the input sequence, starting at the
+	 * append position, and appends them to the given string buffer. It is
+	 * intended to be invoked after one or more invocations of the {@link #appendReplacement appendReplacement} method
+	 * in order to copy the
+	 * remainder of the input sequence.</p>
+	 *
+	 * @param sb
+	 *            The target string buffer
+	 *
+	 * @return The target string buffer
+	 */
+	public StringBuffer appendTail(final StringBuffer sb) {
+		sb.append(this.text, this.lastAppendPosition, this.getTextLength());
+		return sb;
+	}
+
+	/**
+	 * Implements a terminal append-and-replace step.
+	 *
+	 * <p>Behaves the same as {@link #appendTail(StringBuffer)}, except that the remainder of the input sequence is
+	 * appended to a (non-synchronized) <code>StringBuilder</code>.</p>
+	 *
+	 * @param sb
+	 *            The target string builder
+	 *
+	 * @return The target string builder
+	 *
+	 * @since 2.1
+	 */
+	public StringBuilder appendTail(final StringBuilder sb) {
+		sb.append(this.text, this.lastAppendPosition, this.getTextLength());
+		return sb;
+	}
+
+	/**
+	 * Implements a terminal append-and-replace step.
+	 *
+	 * <p>Behaves the same as {@link #appendTail(StringBuffer)}, except that the remainder of the input sequence is
+	 * appended to any <code>Appendable</code>, such as a <code>Writer</code>.</p>
+	 *
+	 * @param <T>
+	 *            the type of the target
+	 *
+	 * @param out
+	 *            The target to append to
+	 *
+	 * @return The target
+	 *
+	 * @throws IOException
+	 *             If an I/O error occurs
+	 *
+	 * @since 2.1
+	 */
+	public <T extends Appendable> T appendTail(final T out) throws IOException {
+		out.append(this.text, this.lastAppendPosition, this.getTextLength());
+		return out;
+	}
+
+	/**
+	 * Replaces every subsequence of the input sequence that matches the pattern
+	 * with the given replacement string.
+	 *
+	 * <p>This method first resets this matcher. It then scans the input
+	 * sequence
+	 * looking for matches of the pattern. Characters that are not part of any
+	 * match are appended directly to the result string; each match is replaced
+	 * in the result by the replacement string. The replacement string may
+	 * contain references to captured subsequences as in the {@link #appendReplacement appendReplacement} method.</p>
+	 *
+	 * <p>Note that backslashes (<tt>\</tt>) and dollar signs (<tt>$</tt>) in
+	 * the replacement string may cause the results to be different than if it
+	 * were being treated as a literal replacement string. Dollar signs may be
+	 * treated as references to captured subsequences as described above, and
+	 * backslashes are used to escape literal characters in the replacement
+	 * string.</p>
+	 *
+	 * <p>Given the regular expression <tt>a*b</tt>, the input
+	 * <tt>"aabfooaabfooabfoob"</tt>, and the replacement string <tt>"-"</tt>,
+	 * an invocation of this method on a matcher for that expression would yield
+	 * the string <tt>"-foo-foo-foo-"</tt>.</p>
+	 *
+	 * <p>Invoking this method changes this matcher's state. If the matcher
+	 * is to be used in further matching operations then it should first be
+	 * reset.</p>
+	 *
+	 * @param replacement
+	 *            The replacement string
+	 *
+	 * @return The string constructed by replacing each matching subsequence by
+	 *         the replacement string, substituting captured subsequences as
+	 *         needed
+	 */
+	public String replaceAll(final String replacement) {
+		this.reset();
+		boolean result = this.find();
+		if (result) {
+			// Parse the replacement once (rather than for each match)
+			return this.replaceAll0(this.pattern().compileReplacement(replacement));
+		}
+		return this.text.toString();
+	}
+
+	/**
+	 * Replaces every subsequence of the input sequence that matches the pattern
+	 * with the given compiled replacement.
+	 *
+	 * <p>Behaves the same as {@link #replaceAll(String)}, except that the replacement string was already parsed by
+	 * {@link Pattern#compileReplacement(String)}.</p>
+	 *
+	 * @param replacement
+	 *            The compiled replacement
+	 *
+	 * @return The string constructed by replacing each matching subsequence by
+	 *         the replacement, substituting captured subsequences as
+	 *         needed
+	 *
+	 * @see #replaceAll(String)
+	 * @since 2.1
+	 */
+	public String replaceAll(final Replacement replacement) {
+		this.reset();
+		boolean result = this.find();
+		if (result) {
+			return this.replaceAll0(this.compileReplacement(replacement));
+		}
+		return this.text.toString();
+	}
+
+	/**
+	 * Replaces the current match and every following match, after the first match was found.
+	 *
+	 * @param replacement
+	 *            The replacement, compiled for this matcher's pattern
+	 */
+	private String replaceAll0(final Replacement replacement) {
+		StringBuilder sb = new StringBuilder(this.getTextLength() + 16);
+
+		try {
+			this.replaceAll0(sb, replacement);
+		} catch (IOException e) {
+			// StringBuilder doesn't throw IOException
+			throw new AssertionError(e);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Replaces the current match and every following match, after the first match was found, and appends the
+	 * remainder of the input sequence.
+	 *
+	 * @param out
+	 *            The target to append to
+	 * @param replacement
+	 *            The replacement, compiled for this matcher's pattern
+	 */
+	private void replaceAll0(final Appendable out, final Replacement replacement) throws IOException {
+		do {
+			this.appendReplacementPrivate(out, replacement);
+		} while (this.find());
+
+		this.appendTail(out);
+	}
+
+	/**
+	 * Replaces every subsequence of the input sequence that matches the pattern
+	 * with the given replacement string, appending the result to the given
+	 * <code>Appendable</code>.
+	 *
+	 * <p>Behaves the same as {@link #replaceAll(String)}, except that the result is appended to any
+	 * <code>Appendable</code>, such as a <code>Writer</code>, instead of being returned as a string. The text between
+	 * the matches and the captured groups are appended directly from the input sequence, so the result can be
+	 * streamed without building it in memory.</p>
+	 *
+	 * @param <T>
+	 *            the type of the target
+	 *
+	 * @param out
+	 *            The target to append to
+	 *
+	 * @param replacement
+	 *            The replacement string
+	 *
+	 * @return The target
+	 *
+	 * @throws IOException
+	 *             If an I/O error occurs
+	 *
+	 * @see #replaceAll(String)
+	 * @since 2.1
+	 */
+	public <T extends Appendable> T replaceAll(final T out, final String replacement) throws IOException {
+		this.reset();
+		if (this.find()) {
+			this.replaceAll0(out, this.pattern().compileReplacement(replacement));
+		} else {
+			this.appendTail(out);
+		}
+		return out;
+	}
+
+	/**
+	 * Replaces every subsequence of the input sequence that matches the pattern
+	 * with the given compiled replacement, appending the result to the given
+	 * <code>Appendable</code>.
+	 *
+	 * <p>Behaves the same as {@link #replaceAll(Appendable, String)}, except that the replacement string was already
+	 * parsed by {@link Pattern#compileReplacement(String)}.</p>
+	 *
+	 * @param <T>
+	 *            the type of the target
+	 *
+	 * @param out
+	 *            The target to append to
+	 *
+	 * @param replacement
+	 *            The compiled replacement
+	 *
+	 * @return The target
+	 *
+	 * @throws IOException
+	 *             If an I/O error occurs
+	 *
+	 * @see #replaceAll(Replacement)
+	 * @since 2.1
+	 */
+	public <T extends Appendable> T replaceAll(final T out, final Replacement replacement) throws IOException {
+		this.reset();
+		if (this.find()) {
+			this.replaceAll0(out, this.compileReplacement(replacement));
+		} else {
+			this.appendTail(out);
+		}
+		return out;
+	}
+
+	/**
+	 * Replaces the first subsequence of the input sequence that matches the
+	 * pattern with the given replacement string.
+	 *
+	 * <p>This method first resets this matcher. It then scans the input
+	 * sequence looking for a match of the pattern. Characters that are not part
+	 * of the match are appended directly to the result string; the match is
+	 * replaced in the result by the replacement string. The replacement string
+	 * may contain references to captured subsequences as in the {@link #appendReplacement appendReplacement} method.
+	 *
+	 * <p>Note that backslashes (<tt>\</tt>) and dollar signs (<tt>$</tt>) in
+	 * the replacement string may cause the results to be different than if it
+	 * were being treated as a literal replacement string. Dollar signs may be
+	 * treated as references to captured subsequences as described above, and
+	 * backslashes are used to escape literal characters in the replacement
+	 * string.</p>
+	 *
+	 * <p>Given the regular expression <tt>dog</tt>, the input
+	 * <tt>"zzzdogzzzdogzzz"</tt>, and the replacement string <tt>"cat"</tt>, an
+	 * invocation of this method on a matcher for that expression would yield
+	 * the string <tt>"zzzcatzzzdogzzz"</tt>.</p>
+	 *
+	 * <p>Invoking this method changes this matcher's state. If the matcher
+	 * is to be used in further matching operations then it should first be
+	 * reset.</p>
+	 *
+	 * @param replacement
+	 *            The replacement string
+	 * @return The string constructed by replacing the first matching
+	 *         subsequence by the replacement string, substituting captured
+	 *         subsequences as needed
+	 */
+	public String replaceFirst(final String replacement) {
+		if (replacement == null) {
+			throw new NullPointerException("replacement");
+		}
+		this.reset();
+		if (!this.find()) {
+			return this.text.toString();
+		}
+		StringBuilder sb = new StringBuilder(this.getTextLength() + 16);
+		this.appendReplacement(sb, replacement);
+		this.appendTail(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Replaces the first subsequence of the input sequence that matches the
+	 * pattern with the given compiled replacement.
+	 *
+	 * <p>Behaves the same as {@link #replaceFirst(String)}, except that the replacement string was already parsed by
+	 * {@link Pattern#compileReplacement(String)}.</p>
+	 *
+	 * @param replacement
+	 *            The compiled replacement
+	 * @return The string constructed by replacing the first matching
+	 *         subsequence by the replacement, substituting captured
+	 *         subsequences as needed
+	 *
+	 * @see #replaceFirst(String)
+	 * @since 2.1
+	 */
+	public String replaceFirst(final Replacement replacement) {
+		if (replacement == null) {
+			throw new NullPointerException("replacement");
+		}
+		this.reset();
+		if (!this.find()) {
+			return this.text.toString();
+		}
+		StringBuilder sb = new StringBuilder(this.getTextLength() + 16);
+		this.appendReplacement(sb, replacement);
+		this.appendTail(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Replaces every subsequence of the input sequence that matches the pattern
+	 * with the result of applying the given replacer function to the match
+	 * result of this matcher corresponding to that subsequence.
+	 *
+	 * <p>This method first resets this matcher. It then scans the input
+	 * sequence looking for matches of the pattern. Characters that are not part
+	 * of any match are appended directly to the result string; each match is
+	 * replaced in the result by applying the replacer function that
+	 * returns the replacement.</p>
+	 *
+	 * <p>The match result passed to the replacer function is this matcher, as a
+	 * live view of the current match (so no match result is created for each
+	 * match); it can be used to get any group, including named groups and
+	 * groups with duplicate names. The match result must only be used during
+	 * the call to the replacer function. The replacer function should not
+	 * modify this matcher's state during replacement.</p>
+	 *
+	 * <p>The replacement returned by the replacer function is appended
+	 * literally; backslashes (<tt>\</tt>) and dollar signs (<tt>$</tt>) have
+	 * no special meaning.</p>
+	 *
+	 * <p>Given the regular expression <tt>dog</tt>, the input
+	 * <tt>"zzzdogzzzdogzzz"</tt>, and the function
+	 * <tt>mr -&gt; mr.group().toUpperCase()</tt>, an invocation of this method on
+	 * a matcher for that expression would yield the string
+	 * <tt>"zzzDOGzzzDOGzzz"</tt>.</p>
+	 *
+	 * <p>Invoking this method changes this matcher's state. If the matcher
+	 * is to be used in further matching operations then it should first be
+	 * reset.</p>
+	 *
+	 * @param replacer
+	 *            The function to be applied to the match result of this
+	 *            matcher that returns a replacement
+	 *
+	 * @return The string constructed by replacing each matching subsequence
+	 *         with the result of applying the replacer function to that
+	 *         matched subsequence
+	 *
+	 * @throws NullPointerException
+	 *             If the replacer function is null, or returns null
+	 *
+	 * @throws ConcurrentModificationException
+	 *             If it is detected, on a best-effort basis, that the replacer
+	 *             function modified this matcher's state
+	 *
+	 * @since 2.1
+	 */
+	public String replaceAll(final Function<? super MatchResult, ? extends CharSequence> replacer) {
+		if (replacer == null) {
+			throw new NullPointerException("replacer");
+		}
+		this.reset();
+		boolean result = this.find();
+		if (result) {
+			StringBuilder sb = new StringBuilder(this.getTextLength() + 16);
+			do {
+				this.appendReplacement(sb, replacer);
+				result = this.find();
+			} while (result);
+			this.appendTail(sb);
+			return sb.toString();
+		}
+		return this.text.toString();
+	}
+
+	/**
+	 * Replaces the first subsequence of the input sequence that matches the
+	 * pattern with the result of applying the given replacer function to the
+	 * match result of this matcher corresponding to that subsequence.
+	 *
+	 * <p>Behaves the same as {@link #replaceAll(Function)}, except that only the
+	 * first match is replaced.</p>
+	 *
+	 * @param replacer
+	 *            The function to be applied to the match result of this
+	 *            matcher that returns a replacement
+	 *
+	 * @return The string constructed by replacing the first matching
+	 *         subsequence with the result of applying the replacer function to
+	 *         the matched subsequence
+	 *
+	 * @throws NullPointerException
+	 *             If the replacer function is null, or returns null
+	 *
+	 * @throws ConcurrentModificationException
+	 *             If it is detected, on a best-effort basis, that the replacer
+	 *             function modified this matcher's state
+	 *
+	 * @see #replaceAll(Function)
+	 * @since 2.1
+	 */
+	public String replaceFirst(final Function<? super MatchResult, ? extends CharSequence> replacer) {
+		if (replacer == null) {
+			throw new NullPointerException("replacer");
+		}
+		this.reset();
+		if (!this.find()) {
+			return this.text.toString();
+		}
+		StringBuilder sb = new StringBuilder(this.getTextLength() + 16);
+		this.appendReplacement(sb, replacer);
 		this.appendTail(sb);
 		return sb.toString();
 	}
 
+	/**
+	 * Performs the given action for each subsequence of the input sequence
+	 * that matches the pattern.
+	 *
+	 * <p>This method first resets this matcher. It then scans the input
+	 * sequence looking for matches of the pattern, and performs the action for
+	 * each match.</p>
+	 *
+	 * <p>Unlike {@link #iterator()} and {@link #getResults()}, no match result
+	 * is created for each match. The match result passed to the action is
+	 * this matcher, as a live view of the current match; it's only valid
+	 * during the call to the action. To keep the match, call
+	 * {@link MatchResult#toMatchResult()}. The action should not modify this
+	 * matcher's state.</p>
+	 *
+	 * <pre><code>pattern.matcher(text).forEachMatch(mr -&gt; counts.merge(mr.group("word"), 1, Integer::sum));</code></pre>
+	 *
+	 * <p>Invoking this method changes this matcher's state. If the matcher
+	 * is to be used in further matching operations then it should first be
+	 * reset.</p>
+	 *
+	 * @param action
+	 *            The action to be performed for each match
+	 *
+	 * @throws NullPointerException
+	 *             If the action is null
+	 *
+	 * @throws ConcurrentModificationException
+	 *             If it is detected, on a best-effort basis, that the action
+	 *             modified this matcher's state
+	 *
+	 * @see Pattern#forEachMatch(CharSequence, Consumer)
+	 * @since 2.1
+	 */
+	public void forEachMatch(final Consumer<? super MatchResult> action) {
+		if (action == null) {
+			throw new NullPointerException("action");
+		}
+		this.reset();
+		while (this.find()) {
+			int expectedModCount = this.modCount;
+
+			action.accept(this);
+
+			if (expectedModCount != this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	/**
+	 * Implements a non-terminal append-and-replace step, appending the result
+	 * of the replacer function (literally) for the current match.
+	 */
+	private void appendReplacement(final StringBuilder sb,
+			final Function<? super MatchResult, ? extends CharSequence> replacer) {
+		int first = this.start();
+		int last = this.end();
+		int expectedModCount = this.modCount;
+
+		CharSequence replacement = replacer.apply(this);
+
+		if (expectedModCount != this.modCount) {
+			throw new ConcurrentModificationException();
+		}
+
+		if (replacement == null) {
+			throw new NullPointerException("replacement");
+		}
+
+		// Append the intervening text
+		sb.append(this.text, this.lastAppendPosition, first);
+		// Append the match substitution
+		sb.append(replacement);
+
+		this.lastAppendPosition = last;
+	}
+
 	/**
 	 * Sets the limits of this matcher's region. The region is the part of the
 	 * input sequence that will be searched to find a match. Invoking this
@@ -1677,6 +2340,7 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 * @see Matcher#hasTransparentBounds
 	 */
 	public Matcher useTransparentBounds(final boolean b) {
+		this.runSkippedMatch();
 		this.internalMatcher.useTransparentBounds(b);
 		return this;
 	}
@@ -1721,6 +2385,7 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 * @see Matcher#hasAnchoringBounds
 	 */
 	public Matcher useAnchoringBounds(final boolean b) {
+		this.runSkippedMatch();
 		this.internalMatcher.useAnchoringBounds(b);
 		return this;
 	}
@@ -1768,6 +2433,7 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	public boolean hitEnd() {
 		// TOOD: which should I use ??
 		// return this.internalMatcher.hitEnd();
+		this.runSkippedMatch();
 		return this.usedMatcher.hitEnd();
 	}
 
@@ -1787,6 +2453,7 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	public boolean requireEnd() {
 		// TODO: which should I use ??
 		// return this.internalMatcher.requireEnd();
+		this.runSkippedMatch();
 		return this.usedMatcher.requireEnd();
 	}
 
@@ -1858,7 +2525,7 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 */
 	@Override
 	public String getGroupName(final int group) {
-		Integer groupIndex = this.getGroupIndex(group);
+		int groupIndex = this.getGroupIndex(group);
 		return MatcherHelper.getGroupName(this, groupIndex);
 	}
 
@@ -1954,6 +2621,33 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 		return index;
 	}
 
+	/**
+	 * Returned by the non-throwing group lookups if there is no such group
+	 */
+	static final int NO_GROUP = -1;
+
+	/**
+	 * Returns the absolute group for the given group, or {@link #NO_GROUP} if the group isn't valid (without throwing
+	 * an exception).
+	 *
+	 * @param index
+	 *            the index
+	 * @param groupCount
+	 *            the group count
+	 * @return the absolute group index, or {@link #NO_GROUP} if <code>index</code> doesn't refer to a valid group
+	 * @see #getAbsoluteGroupIndex(int, int)
+	 */
+	static int findAbsoluteGroupIndex(final int index, final int groupCount) {
+		if (index < 0) {
+			// group is relative
+			int absoluteIndex = index + groupCount + 1;
+
+			return absoluteIndex > 0 ? absoluteIndex : NO_GROUP;
+		}
+
+		return index <= groupCount ? index : NO_GROUP;
+	}
+
 
 	/**
 	 * Returns the mapped index for the specified group.
@@ -1966,7 +2660,7 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 *             operation failed; only thrown if {@link #groupCount(String)
 	 *             groupCount("[" + group + "]")} >= 2.
 	 */
-	Integer getGroupIndex(final int group) {
+	int getGroupIndex(final int group) {
 		return MatcherHelper.getGroupIndex(this, this.usedMatcher, group);
 	}
 
@@ -1977,7 +2671,7 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 *             If there is no capturing group in the pattern
 	 *             of the given group
 	 */
-	Integer getGroupIndex(final String group) {
+	int getGroupIndex(final String group) {
 		return MatcherHelper.getGroupIndex(this, this.usedMatcher, group);
 	}
 
@@ -1988,10 +2682,81 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 *             If there is no capturing group in the pattern
 	 *             of the given group
 	 */
-	Integer getGroupIndex(final String groupName, final int occurrence) {
+	int getGroupIndex(final String groupName, final int occurrence) {
 		return MatcherHelper.getGroupIndex(this, this.usedMatcher, groupName, occurrence);
 	}
 
+	/**
+	 * Returns the mapped index for the specified group.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 */
+	int getGroupIndex(final GroupRef group) {
+		return MatcherHelper.getGroupIndex(this, this.usedMatcher, group);
+	}
+
+	/**
+	 * @since 2.1
+	 */
+	@Override
+	public int start(final GroupRef group) {
+		return this.usedMatcher.start(this.getGroupIndex(group));
+	}
+
+	/**
+	 * @since 2.1
+	 */
+	@Override
+	public int end(final GroupRef group) {
+		return this.usedMatcher.end(this.getGroupIndex(group));
+	}
+
+	/**
+	 * @since 2.1
+	 */
+	@Override
+	public String group(final GroupRef group) {
+		return this.groupPrivate(this.getGroupIndex(group));
+	}
+
+	/**
+	 * @since 2.1
+	 */
+	@Override
+	public String group(final GroupRef group, final String defaultValue) {
+		return this.groupPrivate(this.getGroupIndex(group), defaultValue);
+	}
+
+	@Override
+	public boolean matched(final int group, final boolean validateGroup) {
+		if (validateGroup) {
+			return this.start(group) != -1;
+		}
+
+		return MatcherHelper.matched(this.usedMatcher, MatcherHelper.findGroupIndex(this, this.usedMatcher, group));
+	}
+
+	@Override
+	public boolean matched(final String group, final boolean validateGroup) {
+		if (validateGroup) {
+			return this.start(group) != -1;
+		}
+
+		return MatcherHelper.matched(this.usedMatcher, MatcherHelper.findGroupIndex(this, this.usedMatcher, group));
+	}
+
+	@Override
+	public boolean matched(final String groupName, final int occurrence, final boolean validateGroup) {
+		if (validateGroup) {
+			return this.start(groupName, occurrence) != -1;
+		}
+
+		return MatcherHelper.matched(this.usedMatcher,
+				MatcherHelper.findGroupIndex(this, this.usedMatcher, groupName, occurrence));
+	}
+
 	/**
 	 * @since 0.2
 	 */
@@ -2010,6 +2775,36 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 		return this;
 	}
 
+	/**
+	 * Indicates whether match results refer to the original text, instead of a copy.
+	 *
+	 * @return <code>true</code> if match results refer to the original text
+	 * @see #shareText(boolean)
+	 * @since 2.1
+	 */
+	public boolean shareText() {
+		return this.shareText;
+	}
+
+	/**
+	 * Sets whether match results (from {@link #toMatchResult()}, {@link #iterator()}, and {@link #getResults()})
+	 * refer to the original text, instead of a copy.
+	 *
+	 * <p>By default, the text is copied (at most once after each reset, and shared by the match results), so that the
+	 * match results are unaffected by changes to the text. If the text is shared, each match result keeps only the
+	 * match offsets and a reference to the original <code>CharSequence</code>; the text must not be modified while
+	 * the match results are used. When the text is a <code>String</code>, it's never copied.</p>
+	 *
+	 * @param shareText
+	 *            whether match results should refer to the original text
+	 * @return this matcher
+	 * @since 2.1
+	 */
+	public Matcher shareText(final boolean shareText) {
+		this.shareText = shareText;
+		return this;
+	}
+
 	// public boolean containsKey(Object key)
 	// {
 	// if (key instanceof CharSequence) {
@@ -2080,9 +2875,11 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	}
 
 	private Matcher cloneReset() {
-		Matcher matcher = this.pattern().matcher(this.text());
+		// Copy the text once, rather than for each match result
+		Matcher matcher = this.pattern().matcher(this.shareText ? this.text : this.getTextSnapshot());
 		matcher.useAnchoringBounds(this.hasAnchoringBounds());
 		matcher.useTransparentBounds(this.hasTransparentBounds());
+		matcher.shareText(this.shareText);
 
 		return matcher;
 	}
@@ -2175,6 +2972,153 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 		}
 	}
 
+	/**
+	 * Returns a stream of match results for each subsequence of the input
+	 * sequence that matches the pattern. The match results occur in the same
+	 * order as the matching subsequences in the input sequence.
+	 *
+	 * <p>Like {@link #iterator()}, the stream doesn't modify this matcher; it
+	 * finds each match in the input sequence, starting from the beginning.
+	 * The matches are found lazily, as the stream is traversed (unlike
+	 * {@link #getResults()}, which finds all the matches).</p>
+	 *
+	 * <p>If no match can contain a line feed (and the pattern doesn't use
+	 * <code>\G</code>), the stream can be split at line feeds, so a parallel
+	 * stream finds the matches in a large input using several threads. The
+	 * matches are the same as for a sequential stream.</p>
+	 *
+	 * @return a sequential stream of match results
+	 * @see Pattern#results(CharSequence)
+	 * @since 2.1
+	 */
+	public Stream<MatchResult> results() {
+		Matcher matcher = this.cloneReset();
+
+		return StreamSupport.stream(new MatchResultSpliterator(matcher, 0, matcher.getTextLength() + 1,
+				this.pattern().isSplittableAtLineFeeds()), false);
+	}
+
+	/**
+	 * Finds the matches in part of the input (the matches which start at or after the position, and before the
+	 * limit)
+	 *
+	 * <p>If the pattern is splittable at line feeds (see {@link PatternAnalyzer#isSplittableAtLineFeeds}), the input
+	 * is split right after a line feed. The matcher for the suffix starts at the split, using transparent bounds and
+	 * without anchoring bounds, so it finds the same matches as a single matcher for the whole input.</p>
+	 */
+	private static final class MatchResultSpliterator implements Spliterator<MatchResult> {
+		/**
+		 * The minimum number of characters in each part, when splitting the input
+		 */
+		private static final int MIN_SPLIT_LENGTH = 1 << 14;
+
+		private Matcher matcher;
+		private final boolean splittable;
+
+		/**
+		 * The index where the next match is searched for
+		 */
+		private int position;
+
+		/**
+		 * Matches which start at or after the limit are in the next part (the limit is after the end of the input
+		 * for the last part)
+		 */
+		private int limit;
+
+		private boolean done /* = false */;
+
+		MatchResultSpliterator(final Matcher matcher, final int position, final int limit,
+				final boolean splittable) {
+			this.matcher = matcher;
+			this.position = position;
+			this.limit = limit;
+			this.splittable = splittable;
+		}
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super MatchResult> action) {
+			if (action == null) {
+				throw new NullPointerException("action");
+			}
+
+			if (this.done) {
+				return false;
+			}
+
+			if (!this.matcher.find() || this.matcher.start() >= this.limit) {
+				this.done = true;
+				return false;
+			}
+
+			this.position = this.matcher.end();
+			action.accept(this.matcher.toMatchResult());
+			return true;
+		}
+
+		@Override
+		public Spliterator<MatchResult> trySplit() {
+			if (!this.splittable || this.done || this.limit - this.position < 2 * MIN_SPLIT_LENGTH) {
+				return null;
+			}
+
+			int split = this.findSplit(this.position + (this.limit - this.position) / 2);
+
+			if (split == -1) {
+				return null;
+			}
+
+			// The prefix continues with this matcher (which may have already found matches)
+			MatchResultSpliterator prefix = new MatchResultSpliterator(this.matcher, this.position, split, true);
+
+			Matcher suffixMatcher = this.matcher.pattern().matcher(this.matcher.text);
+			suffixMatcher.useTransparentBounds(true);
+			suffixMatcher.useAnchoringBounds(false);
+			suffixMatcher.shareText(this.matcher.shareText());
+			suffixMatcher.region(split, suffixMatcher.getTextLength());
+
+			this.matcher = suffixMatcher;
+			this.position = split;
+
+			return prefix;
+		}
+
+		/**
+		 * Finds the index right after a line feed, near the middle of this part
+		 *
+		 * @return the index right after the line feed, or -1 if there is no line feed where the input can be split
+		 */
+		private int findSplit(final int middle) {
+			CharSequence text = this.matcher.text;
+			int end = Math.min(this.limit - 1, text.length());
+
+			for (int i = middle; i < end; i++) {
+				if (text.charAt(i) == '\n') {
+					return i + 1;
+				}
+			}
+
+			for (int i = middle - 1; i >= this.position; i--) {
+				if (text.charAt(i) == '\n') {
+					return i + 1;
+				}
+			}
+
+			return -1;
+		}
+
+		@Override
+		public long estimateSize() {
+			// The number of characters remaining (there is no more than one match per character, except at the end)
+			return this.done ? 0 : this.limit - this.position;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL;
+		}
+	}
+
 	/**
 	 * Gets each match as a MatchResult
 	 * @return the results
@@ -2202,7 +3146,7 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 	 */
 	@Override
 	public boolean asBoolean() {
-		RegExPlusSupport.setLastMatcher(this);
+		RegExPlusSupport.trackLastMatcher(this);
 		return this.find();
 	}
 
@@ -2372,16 +3316,102 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 		return this;
 	}
 
+	/**
+	 * The offsets of each group in a match (in the internal pattern), and a reference to the text
+	 *
+	 * <p>Unlike {@link java.util.regex.Matcher#toMatchResult()}, the text isn't copied.</p>
+	 */
+	private static final class MatchOffsets implements java.util.regex.MatchResult {
+		/**
+		 * The start and end offsets for each group, or <code>null</code> if there is no match
+		 */
+		private final int[] offsets;
+		private final CharSequence text;
+
+		MatchOffsets(final java.util.regex.Matcher matcher, final CharSequence text) {
+			this.offsets = getOffsets(matcher);
+			this.text = text;
+		}
+
+		private static int[] getOffsets(final java.util.regex.Matcher matcher) {
+			try {
+				// Throws an IllegalStateException if there is no match
+				matcher.start();
+			} catch (IllegalStateException e) {
+				return null;
+			}
+
+			int groupCount = matcher.groupCount();
+			int[] offsets = new int[(groupCount + 1) * 2];
+
+			for (int group = 0; group <= groupCount; group++) {
+				offsets[group * 2] = matcher.start(group);
+				offsets[group * 2 + 1] = matcher.end(group);
+			}
+
+			return offsets;
+		}
+
+		private int offset(final int group, final int startOrEnd) {
+			if (this.offsets == null) {
+				throw new IllegalStateException("No match found");
+			}
+
+			if (group < 0 || group > this.groupCount()) {
+				throw new IndexOutOfBoundsException("No group " + group);
+			}
+
+			return this.offsets[group * 2 + startOrEnd];
+		}
+
+		@Override
+		public int start() {
+			return this.start(0);
+		}
+
+		@Override
+		public int start(final int group) {
+			return this.offset(group, 0);
+		}
+
+		@Override
+		public int end() {
+			return this.end(0);
+		}
+
+		@Override
+		public int end(final int group) {
+			return this.offset(group, 1);
+		}
+
+		@Override
+		public String group() {
+			return this.group(0);
+		}
+
+		@Override
+		public String group(final int group) {
+			int start = this.start(group);
+
+			return start == -1 ? null : this.text.subSequence(start, this.end(group)).toString();
+		}
+
+		@Override
+		public int groupCount() {
+			return this.offsets == null ? 0 : this.offsets.length / 2 - 1;
+		}
+	}
+
 	private static class ImmutableMatchResult implements MatchResult {
 		private final Pattern pattern;
 		private final java.util.regex.MatchResult usedMatcher;
-		private final String text;
+		private final CharSequence text;
 
 		private final boolean treatNullAsEmptyString;
 
 		ImmutableMatchResult(final Pattern pattern,
 				final java.util.regex.MatchResult internalMatchResult,
-				final String text, final boolean treatNullAsEmptyString) {
+				final CharSequence text, final boolean treatNullAsEmptyString) {
 			this.pattern = pattern;
 			this.usedMatcher = internalMatchResult;
 			this.text = text;
@@ -2398,18 +3428,72 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 			return this.usedMatcher.end();
 		}
 
-		Integer getGroupIndex(final int group) {
+		int getGroupIndex(final int group) {
 			return MatcherHelper.getGroupIndex(this, this.usedMatcher, group);
 		}
 
-		Integer getGroupIndex(final String group) {
+		int getGroupIndex(final String group) {
 			return MatcherHelper.getGroupIndex(this, this.usedMatcher, group);
 		}
 
-		Integer getGroupIndex(final String group, final int occurrence) {
+		int getGroupIndex(final String group, final int occurrence) {
 			return MatcherHelper.getGroupIndex(this, this.usedMatcher, group, occurrence);
 		}
 
+		int getGroupIndex(final GroupRef group) {
+			return MatcherHelper.getGroupIndex(this, this.usedMatcher, group);
+		}
+
+		@Override
+		public int start(final GroupRef group) {
+			return this.usedMatcher.start(this.getGroupIndex(group));
+		}
+
+		@Override
+		public int end(final GroupRef group) {
+			return this.usedMatcher.end(this.getGroupIndex(group));
+		}
+
+		@Override
+		public String group(final GroupRef group) {
+			return this.groupPrivate(this.getGroupIndex(group));
+		}
+
+		@Override
+		public String group(final GroupRef group, final String defaultValue) {
+			return this.groupPrivate(this.getGroupIndex(group), defaultValue);
+		}
+
+		@Override
+		public boolean matched(final int group, final boolean validateGroup) {
+			if (validateGroup) {
+				return this.start(group) != -1;
+			}
+
+			return MatcherHelper.matched(this.usedMatcher,
+					MatcherHelper.findGroupIndex(this, this.usedMatcher, group));
+		}
+
+		@Override
+		public boolean matched(final String group, final boolean validateGroup) {
+			if (validateGroup) {
+				return this.start(group) != -1;
+			}
+
+			return MatcherHelper.matched(this.usedMatcher,
+					MatcherHelper.findGroupIndex(this, this.usedMatcher, group));
+		}
+
+		@Override
+		public boolean matched(final String groupName, final int occurrence, final boolean validateGroup) {
+			if (validateGroup) {
+				return this.start(groupName, occurrence) != -1;
+			}
+
+			return MatcherHelper.matched(this.usedMatcher,
+					MatcherHelper.findGroupIndex(this, this.usedMatcher, groupName, occurrence));
+		}
+
 		@Override
 		public int start(final int group) {
 			return this.usedMatcher.start(this.getGroupIndex(group));
@@ -2536,12 +3620,12 @@ public final class Matcher implements MatchResult, Iterable<MatchResult> {
 
 		@Override
 		public String text() {
-			return this.text;
+			return this.text.toString();
 		}
 
 		@Override
 		public String getGroupName(final int group) {
-			Integer groupIndex = this.getGroupIndex(group);
+			int groupIndex = this.getGroupIndex(group);
 			return MatcherHelper.getGroupName(this, groupIndex);
 		}
 
@@ -1,15 +1,14 @@
 package info.codesaway.util.regex;
 
-import static info.codesaway.util.regex.Matcher.getAbsoluteGroupIndex;
+import static info.codesaway.util.regex.Matcher.NO_GROUP;
+import static info.codesaway.util.regex.Matcher.findAbsoluteGroupIndex;
 import static info.codesaway.util.regex.Matcher.noGroup;
 import static info.codesaway.util.regex.Matcher.noNamedGroup;
 import static info.codesaway.util.regex.Pattern.wrapIndex;
-import static info.codesaway.util.regex.RefactorUtility.parseInt;
+import static info.codesaway.util.regex.RefactorUtility.isParsableInt;
 
-import java.util.Map;
-import java.util.Map.Entry;
-
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.Arrays;
+import java.util.List;
 
 final class MatcherHelper {
 	private MatcherHelper() {
@@ -27,135 +26,310 @@ final class MatcherHelper {
 	 *             operation failed; only thrown if {@link #groupCount(String)
 	 *             groupCount("[" + group + "]")} >= 2.
 	 */
-	static Integer getGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher, final int group) {
-		try {
-			String groupName = wrapIndex(getAbsoluteGroupIndex(group,
-					m.groupCount()));
-
-			return getGroupIndex0(m, usedMatcher, groupName, "[0]");
-		} catch (IndexOutOfBoundsException e) {
-			throw noGroup(group);
-		} catch (IllegalArgumentException e) {
-			throw noGroup(group);
-		}
+	static int getGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher, final int group) {
+		return getFirstMatchedGroupIndex(usedMatcher, resolveGroupIndexes(m.pattern(), group));
+	}
+
+	/**
+	 * Returns the mapped index for the specified group.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 */
+	static int getGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher,
+			final String group) {
+		return getFirstMatchedGroupIndex(usedMatcher, m.pattern().groupRef(group).getGroupIndexes());
+	}
+
+	/**
+	 * Returns the mapped index for the specified group.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 */
+	static int getGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher,
+			final String groupName, final int occurrence) {
+		return getFirstMatchedGroupIndex(usedMatcher, m.pattern().groupRef(groupName, occurrence).getGroupIndexes());
 	}
 
 	/**
 	 * Returns the mapped index for the specified group.
 	 *
+	 * <p>If the group was resolved using a different pattern, the group is resolved again using the match's
+	 * pattern.</p>
+	 *
 	 * @throws IllegalArgumentException
 	 *             If there is no capturing group in the pattern
 	 *             of the given group
 	 */
-	static Integer getGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher,
+	static int getGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher,
+			final GroupRef group) {
+		Pattern pattern = m.pattern();
+		GroupRef groupRef = group.pattern() == pattern ? group : pattern.groupRef(group.toString());
+
+		return getFirstMatchedGroupIndex(usedMatcher, groupRef.getGroupIndexes());
+	}
+
+	/**
+	 * Returns the mapped index for the specified group, or {@link Matcher#NO_GROUP} if there is no such group
+	 * (without throwing an exception).
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed; only thrown if the group occurs more than once
+	 */
+	static int findGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher,
 			final String group) {
-		// java.util.regex.Matcher matcher = fullGroupName.matcher(group);
-		//
-		// if (!matcher.matches())
-		// throw noNamedGroup(group);
-		//
-		// String part1 = matcher.group(1);
-		// String part2 = matcher.group(2);
+		GroupRef groupRef = m.pattern().findGroupRef(group);
+
+		return groupRef != null ? getFirstMatchedGroupIndex(usedMatcher, groupRef.getGroupIndexes()) : NO_GROUP;
+	}
+
+	/**
+	 * Returns the mapped index for the specified group, or {@link Matcher#NO_GROUP} if there is no such group
+	 * (without throwing an exception).
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed; only thrown if the group occurs more than once
+	 */
+	static int findGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher,
+			final String groupName, final int occurrence) {
+		GroupRef groupRef = m.pattern().findGroupRef(groupName, occurrence);
+
+		return groupRef != null ? getFirstMatchedGroupIndex(usedMatcher, groupRef.getGroupIndexes()) : NO_GROUP;
+	}
+
+	/**
+	 * Returns the mapped index for the specified group, or {@link Matcher#NO_GROUP} if there is no such group
+	 * (without throwing an exception).
+	 *
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed; only thrown if the group occurs more than once
+	 */
+	static int findGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher, final int group) {
+		int[] groupIndexes = resolveGroupIndexes(m.pattern(), group, false);
+
+		return groupIndexes != null ? getFirstMatchedGroupIndex(usedMatcher, groupIndexes) : NO_GROUP;
+	}
+
+	/**
+	 * Indicates whether the group with the given mapped index matched part of the input.
+	 *
+	 * @param groupIndex
+	 *            the mapped index, or {@link Matcher#NO_GROUP} if there is no such group
+	 * @return <code>true</code> if the group exists and matched part of the input
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed
+	 */
+	static boolean matched(final java.util.regex.MatchResult usedMatcher, final int groupIndex) {
+		return groupIndex != NO_GROUP && usedMatcher.start(groupIndex) != -1;
+	}
+
+	/**
+	 * Returns the first group index which matched, or the first group index if none of the groups matched.
+	 *
+	 * @param groupIndexes
+	 *            the group indexes (in the internal pattern) for each occurrence of a group; must not be empty
+	 * @throws IllegalStateException
+	 *             If no match has yet been attempted, or if the previous match
+	 *             operation failed; only thrown if there are at least two group indexes
+	 */
+	static int getFirstMatchedGroupIndex(final java.util.regex.MatchResult usedMatcher, final int[] groupIndexes) {
+		if (groupIndexes.length == 1) {
+			return groupIndexes[0];
+		}
+
+		for (int groupIndex : groupIndexes) {
+			if (usedMatcher.start(groupIndex) != -1) {
+				return groupIndex;
+			}
+		}
+
+		// if no group matched anything (i.e. all null)
+		return groupIndexes[0];
+	}
+
+	/**
+	 * Returns the mapped indexes (in the internal pattern) for each occurrence of the specified group.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 */
+	static int[] resolveGroupIndexes(final Pattern pattern, final int group) {
+		return resolveGroupIndexes(pattern, group, true);
+	}
+
+	/**
+	 * Returns the mapped indexes (in the internal pattern) for each occurrence of the specified group.
+	 *
+	 * @param validateGroup
+	 *            whether to throw an exception if the group is invalid
+	 * @return the mapped indexes, or <code>null</code> if the group is invalid and <code>validateGroup</code> is
+	 *         <code>false</code>
+	 * @throws IndexOutOfBoundsException
+	 *             If <code>validateGroup</code> is <code>true</code> and there is no capturing group in the pattern
+	 *             of the given group
+	 */
+	static int[] resolveGroupIndexes(final Pattern pattern, final int group, final boolean validateGroup) {
+		int index = findAbsoluteGroupIndex(group, pattern.groupCount());
+		int[] groupIndexes = index != NO_GROUP ? pattern.getGroupIndexes(index) : null;
+
+		if (groupIndexes == null || groupIndexes.length == 0) {
+			if (validateGroup) {
+				throw noGroup(group);
+			}
+
+			return null;
+		}
 
+		return groupIndexes;
+	}
+
+	/**
+	 * Returns the mapped indexes (in the internal pattern) for the specified group.
+	 *
+	 * <p>If the group specifies an occurrence, only the mapped index for that occurrence is returned; otherwise,
+	 * the mapped index for each occurrence is returned (the first matched occurrence is used).</p>
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 */
+	static int[] resolveGroupIndexes(final Pattern pattern, final String group) {
+		return resolveGroupIndexes(pattern, group, true);
+	}
+
+	/**
+	 * Returns the mapped indexes (in the internal pattern) for the specified group.
+	 *
+	 * @param validateGroup
+	 *            whether to throw an exception if the group is invalid
+	 * @return the mapped indexes, or <code>null</code> if the group is invalid and <code>validateGroup</code> is
+	 *         <code>false</code>
+	 * @throws IllegalArgumentException
+	 *             If <code>validateGroup</code> is <code>true</code> and there is no capturing group in the pattern
+	 *             of the given group
+	 */
+	static int[] resolveGroupIndexes(final Pattern pattern, final String group, final boolean validateGroup) {
 		String[] parts = parseGroup(group);
-		String part1 = parts[0];
-		String part2 = parts[1];
+		String groupName = parts != null ? pattern.findNormalizedGroupName(parts[0]) : null;
 
-		String groupName;
-		try {
-			groupName = m.pattern().normalizeGroupName(part1);
-		} catch (IllegalArgumentException e) {
-			throw noNamedGroup(group);
+		if (groupName == null) {
+			if (validateGroup) {
+				throw noNamedGroup(group);
+			}
+
+			return null;
 		}
-		// String groupName = handleCase(matcher.group(1));
-		String groupOccurrence = part2;
+
+		String groupOccurrence = parts[1];
 
 		if (groupOccurrence != null) {
-			int occurrence;
-			try {
-				occurrence = getAbsoluteGroupIndex(
-						parseInt(groupOccurrence),
-						m.groupCount(groupName));
-			} catch (IndexOutOfBoundsException e) {
-				throw noGroup(group);
-			} catch (IllegalArgumentException e) {
+			if (!isParsableInt(groupOccurrence)) {
 				// Changed so that when not using matcher, if the occurrence isn't a number, the correct error is thrown
-				throw noNamedGroup(group);
+				if (validateGroup) {
+					throw noNamedGroup(group);
+				}
+
+				return null;
+			}
+
+			int occurrence = findAbsoluteGroupIndex(Integer.parseInt(groupOccurrence), pattern.groupCount(groupName));
+
+			if (occurrence == NO_GROUP) {
+				if (validateGroup) {
+					throw noGroup(group);
+				}
+
+				return null;
 			}
 
 			if (groupName.length() == 0) {
-				return getGroupIndex(m, usedMatcher, occurrence);
+				return resolveGroupIndexes(pattern, occurrence, validateGroup);
 			} else if (occurrence != 0) {
-				return getGroupIndex(m, usedMatcher, groupName, occurrence);
+				return resolveGroupIndexes(pattern, groupName, occurrence, validateGroup);
 			}
 		}
 
-		return getGroupIndex0(m, usedMatcher, groupName, groupOccurrence == null
+		return resolveGroupIndexes0(pattern, groupName, groupOccurrence == null
 				? ""
-						: "[" + groupOccurrence + "]");
+						: "[" + groupOccurrence + "]", validateGroup);
 	}
 
 	/**
-	 * Returns the mapped index for the specified group.
+	 * Returns the mapped indexes (in the internal pattern) for the specified group.
 	 *
 	 * @throws IllegalArgumentException
 	 *             If there is no capturing group in the pattern
 	 *             of the given group
 	 */
-	static Integer getGroupIndex(final MatchResult m, final java.util.regex.MatchResult usedMatcher,
-			String groupName, int occurrence) {
+	static int[] resolveGroupIndexes(final Pattern pattern, final String groupName, final int occurrence) {
+		return resolveGroupIndexes(pattern, groupName, occurrence, true);
+	}
+
+	/**
+	 * Returns the mapped indexes (in the internal pattern) for the specified group.
+	 *
+	 * @param validateGroup
+	 *            whether to throw an exception if the group is invalid
+	 * @return the mapped indexes, or <code>null</code> if the group is invalid and <code>validateGroup</code> is
+	 *         <code>false</code>
+	 * @throws IllegalArgumentException
+	 *             If <code>validateGroup</code> is <code>true</code> and there is no capturing group in the pattern
+	 *             of the given group
+	 */
+	static int[] resolveGroupIndexes(final Pattern pattern, final String groupName, final int occurrence,
+			final boolean validateGroup) {
 		// groupName = handleCase(groupName);
-		try {
-			groupName = m.pattern().normalizeGroupName(groupName);
-		} catch (IllegalArgumentException e) {
-			throw noGroup(groupName, occurrence);
+		String normalizedGroupName = pattern.findNormalizedGroupName(groupName);
+
+		if (normalizedGroupName == null) {
+			if (validateGroup) {
+				throw noGroup(groupName, occurrence);
+			}
+
+			return null;
 		}
 
-		if (groupName.length() == 0) {
-			return getGroupIndex(m, usedMatcher, occurrence);
+		if (normalizedGroupName.length() == 0) {
+			return resolveGroupIndexes(pattern, occurrence, validateGroup);
 		} else if (occurrence == 0) {
-			return getGroupIndex0(m, usedMatcher, groupName, "[0]");
+			return resolveGroupIndexes0(pattern, normalizedGroupName, "[0]", validateGroup);
 		}
 
-		int passedOccurrence = occurrence;
-
-		try {
-			occurrence = getAbsoluteGroupIndex(occurrence,
-					m.groupCount(groupName));
-		} catch (IndexOutOfBoundsException e) {
-			throw noGroup(groupName, passedOccurrence);
+		int absoluteOccurrence = findAbsoluteGroupIndex(occurrence, pattern.groupCount(normalizedGroupName));
+		Integer groupIndexI = absoluteOccurrence != NO_GROUP
+				? pattern.getMappedIndex(normalizedGroupName, absoluteOccurrence)
+				: null;
+
+		if (groupIndexI == null && absoluteOccurrence == 1 && normalizedGroupName.charAt(0) == '[') {
+			// ex. [3][1] - treat like [3]
+
+			/*
+			 * if found, return group
+			 *
+			 * can't be a "branch reset" pattern (-2), because if it were
+			 * then the first occurrence MUST exist, and groupIndexI would
+			 * not be null
+			 */
+			groupIndexI = pattern.getGroupMapping().get(normalizedGroupName);
 		}
 
-		Integer groupIndexI = m
-				.pattern()
-				.getMappedIndex(groupName, occurrence);
-
 		if (groupIndexI == null) {
-			if (groupName.charAt(0) == '[' && occurrence == 1) {
-				// ex. [3][1] - treat like [3]
-
-				Integer tmp = m.pattern().getGroupMapping().get(groupName);
-
-				// System.out.println(groupName + "\t" + passedOccurrence);
-
-				if (tmp == null) {
-					throw noGroup(groupName, passedOccurrence);
-				}
-
-				/*
-				 * if found, return group
-				 *
-				 * can't be a "branch reset" pattern (-2), because if it were
-				 * then the first occurrence MUST exist, and groupIndexI would
-				 * not be null
-				 */
-				return tmp;
+			if (validateGroup) {
+				throw noGroup(normalizedGroupName, occurrence);
 			}
 
-			throw noGroup(groupName, passedOccurrence);
+			return null;
 		}
 
-		return groupIndexI;
+		return new int[] { groupIndexI };
 	}
 
 	/**
@@ -180,14 +354,13 @@ final class MatcherHelper {
 			throw noNamedGroup(groupName);
 		}
 
-		int occurrence = 0;
-		Integer groupIndexI;
+		int[] groupIndexes = m.pattern().groupRef(groupName).getGroupIndexes();
 
-		while ((groupIndexI = m.pattern().getMappedIndex(groupName, ++occurrence)) != null) {
+		for (int occurrence = 0; occurrence < groupIndexes.length; occurrence++) {
 			// if matched group
 
-			if (usedMatcher.start(groupIndexI) != -1) {
-				return occurrence;
+			if (usedMatcher.start(groupIndexes[occurrence]) != -1) {
+				return occurrence + 1;
 			}
 		}
 
@@ -196,88 +369,68 @@ final class MatcherHelper {
 	}
 
 	/**
-	 * Returns the mapped index for the first matching occurrence of the
-	 * specified group name, or the first occurrence if there are no
-	 * matches.
+	 * Returns the mapped indexes for each occurrence of the specified group name
+	 * (the first matching occurrence is used, or the first occurrence if there
+	 * are no matches).
 	 *
 	 * @param occurrence0
 	 *            string appended after group name in exception, if thrown
+	 * @param validateGroup
+	 *            whether to throw an exception if the group is invalid
+	 * @return the mapped indexes, or <code>null</code> if the specified group never occurs and
+	 *         <code>validateGroup</code> is <code>false</code>
 	 * @throws IllegalArgumentException
-	 *             if the specified group never occurs
-	 * @throws IllegalStateException
-	 *             If no match has yet been attempted, or if the previous match
-	 *             operation failed; only thrown if {@link #groupCount(String)
-	 *             groupCount(groupName)} >= 2.
+	 *             if <code>validateGroup</code> is <code>true</code> and the specified group never occurs
 	 */
-	static Integer getGroupIndex0(final MatchResult m,
-			final java.util.regex.MatchResult usedMatcher,
-			String groupName, final String occurrence0) {
-		int groupCount = m.groupCount(groupName);
+	private static int[] resolveGroupIndexes0(final Pattern pattern, String groupName, final String occurrence0,
+			final boolean validateGroup) {
+		int groupCount = pattern.groupCount(groupName);
 
 		if (groupCount == 0) {
-			try {
-				// Check if numbered group
-				int groupNumber = Integer.parseInt(groupName);
+			// Check if numbered group
+			boolean isNumber = isParsableInt(groupName);
+			int groupNumber = isNumber ? Integer.parseInt(groupName) : 0;
 
-				groupCount = m.groupCount(groupNumber);
-
-				if (groupCount == 0) {
-					throw noGroup(groupName + occurrence0);
-				}
+			if (isNumber) {
+				groupCount = pattern.groupCount(groupNumber);
+			}
 
-				groupName = wrapIndex(groupNumber);
-			} catch (RuntimeException e) {
-				if (occurrence0.length() == 0) {
+			if (groupCount == 0) {
+				if (!validateGroup) {
+					return null;
+				} else if (occurrence0.length() == 0) {
 					throw noNamedGroup(groupName);
 				} else {
 					throw noGroup(groupName + occurrence0);
 				}
 			}
-		}
 
-		Integer firstGroupIndex = m.pattern().getMappedIndex(groupName, 1);
-
-		if (groupCount == 1) {
-			return firstGroupIndex;
+			groupName = wrapIndex(groupNumber);
 		}
 
+		int[] groupIndexes = new int[groupCount];
 		int occurrence = 0;
 		Integer groupIndexI;
 
-		while ((groupIndexI = m
-				.pattern()
-				.getMappedIndex(groupName, ++occurrence)) != null) {
-			// if matched group
+		while (occurrence < groupCount && (groupIndexI = pattern.getMappedIndex(groupName, occurrence + 1)) != null) {
+			groupIndexes[occurrence++] = groupIndexI;
+		}
 
-			if (usedMatcher.start(groupIndexI) != -1) {
-				return groupIndexI;
+		if (occurrence == 0) {
+			if (validateGroup) {
+				throw noGroup(groupName + occurrence0);
 			}
-		}
 
-		// if no group matched anything (i.e. all null)
+			return null;
+		}
 
-		// return the index for the first group
-		return firstGroupIndex;
+		return occurrence == groupCount ? groupIndexes : Arrays.copyOf(groupIndexes, occurrence);
 	}
 
 	static String getGroupName(final MatchResult m, final int groupIndex) {
-		Map<String, Integer> groupMapping = m.pattern().getGroupMapping();
+		List<String> groupNames = m.pattern().getGroupNamesByIndex();
 
-		for (Entry<String, Integer> entry : groupMapping.entrySet()) {
-			if (entry.getValue().equals(groupIndex)) {
-				if (entry.getKey().charAt(0) != '[') {
-					String mappingName = entry.getKey();
-					String groupName = mappingName.substring(0, mappingName
-							.indexOf("["));
-
-					int groupCount = m.groupCount(groupName);
-
-					return groupCount == 1 ? groupName : mappingName;
-				}
-			}
-		}
-
-		return null;
+		return groupIndex >= 0 && groupIndex < groupNames.size() ? groupNames.get(groupIndex) : null;
 	}
 
 	/**
@@ -286,29 +439,23 @@ final class MatcherHelper {
 	 *             <code>Number</code>
 	 * @since 0.2
 	 */
-	@SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_NO_SIDE_EFFECT")
 	static boolean containsKey(final MatchResult m, final java.util.regex.MatchResult usedMatcher, final Object key) {
 		if (key instanceof CharSequence) {
-			try {
-				getGroupIndex(m, usedMatcher, key.toString());
-				return true;
-			} catch (IllegalArgumentException e) {
-				return false;
-			}
+			return m.pattern().findGroupRef(key.toString()) != null;
 		} else if (key instanceof Number) {
 			Number index = (Number) key;
 
-			try {
-				getAbsoluteGroupIndex(index.intValue(), m.groupCount());
-				return true;
-			} catch (IndexOutOfBoundsException e) {
-				return false;
-			}
+			return findAbsoluteGroupIndex(index.intValue(), m.groupCount()) != NO_GROUP;
 		}
 
 		throw new IllegalArgumentException("Requires a group name/index: " + key);
 	}
 
+	/**
+	 * Splits the group into the group name and occurrence (<code>null</code> if no occurrence is specified)
+	 *
+	 * @return the group name and occurrence, or <code>null</code> if the group isn't a valid group
+	 */
 	private static String[] parseGroup(final String group) {
 		String groupName;
 		String occurrence;
@@ -330,7 +477,7 @@ final class MatcherHelper {
 					// [1], [-1]
 
 					if (!group.endsWith("]")) {
-						throw noNamedGroup(group);
+						return null;
 					}
 
 					groupName = group;
@@ -340,7 +487,7 @@ final class MatcherHelper {
 					// groupName[occurrence]
 
 					if (!group.endsWith("]")) {
-						throw noNamedGroup(group);
+						return null;
 					}
 
 					groupName = group.substring(0, bracketIndex);
@@ -353,17 +500,17 @@ final class MatcherHelper {
 				// [1][1], [1][-1]
 
 				if (bracketIndex != 0) {
-					throw noNamedGroup(group);
+					return null;
 				}
 
 				int closeBracket = group.indexOf(']');
 
 				if (closeBracket != lastBracketIndex - 1) {
-					throw noNamedGroup(group);
+					return null;
 				}
 
 				if (!group.endsWith("]")) {
-					throw noNamedGroup(group);
+					return null;
 				}
 
 				groupName = group.substring(0, lastBracketIndex);
@@ -371,7 +518,7 @@ final class MatcherHelper {
 				if (groupName.indexOf('[', 1) != -1) {
 					// Has multiple opening brackets
 					// [[1]
-					throw noNamedGroup(group);
+					return null;
 				}
 
 				occurrence = group.substring(lastBracketIndex + 1, group.length() - 1);
@@ -385,7 +532,7 @@ final class MatcherHelper {
 		// TODO: is there a better way to handle this case?
 		if (groupName.startsWith("-")) {
 			// Not allowed; for example, -1 isn't a valid group name ('-' isn't allowed in group names)
-			throw noNamedGroup(group);
+			return null;
 		}
 
 		return new String[] { groupName, occurrence };
@@ -0,0 +1,92 @@
+package info.codesaway.util.regex;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of matchers for a pattern, so that the convenience methods (such as
+ * {@link Pattern#matches(String, CharSequence)} and {@link Pattern#asPredicate()}) reuse matchers, instead of
+ * creating a matcher (and an internal {@link java.util.regex.Matcher}) for each call
+ *
+ * <p>The pool is striped: each thread starts at the slot for its thread id, so threads rarely contend for the same
+ * slot. Acquiring and releasing a matcher don't lock. If no pooled matcher is available, a new matcher is created;
+ * if the pool is full, the released matcher is discarded.</p>
+ *
+ * <p>A matcher must only be released if it's no longer used (for example, it must not be released if it was passed
+ * to {@link RegExPlusSupport#setLastMatcher(Matcher)}).</p>
+ */
+final class MatcherPool {
+	/**
+	 * The maximum number of slots (the number of slots is a power of two, about twice the number of processors)
+	 */
+	private static final int MAX_SLOTS = 64;
+
+	/**
+	 * The number of slots tried, when acquiring or releasing a matcher
+	 */
+	private static final int PROBES = 4;
+
+	private final Pattern pattern;
+	private final AtomicReferenceArray<Matcher> slots;
+	private final int mask;
+
+	MatcherPool(final Pattern pattern) {
+		int processors = Runtime.getRuntime().availableProcessors();
+		int size = Math.min(MAX_SLOTS, Integer.highestOneBit(Math.max(1, processors * 2 - 1)) << 1);
+
+		this.pattern = pattern;
+		this.slots = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Returns a matcher for the input, reusing a pooled matcher if one is available
+	 *
+	 * @param input
+	 *            The character sequence to be matched
+	 * @return a matcher for the input, which should be released once it's no longer used
+	 */
+	Matcher acquire(final CharSequence input) {
+		int stripe = stripe();
+
+		for (int i = 0; i < PROBES; i++) {
+			int slot = (stripe + i) & this.mask;
+			Matcher matcher = this.slots.get(slot);
+
+			if (matcher != null && this.slots.compareAndSet(slot, matcher, null)) {
+				return matcher.reset(input);
+			}
+		}
+
+		return this.pattern.matcher(input);
+	}
+
+	/**
+	 * Returns the matcher to the pool (unless the pool is full)
+	 *
+	 * <p>The matcher is reset to the empty string, so the pool doesn't keep the input.</p>
+	 *
+	 * @param matcher
+	 *            a matcher returned by {@link #acquire(CharSequence)}, which is no longer used
+	 */
+	void release(final Matcher matcher) {
+		matcher.reset("");
+
+		int stripe = stripe();
+
+		for (int i = 0; i < PROBES; i++) {
+			int slot = (stripe + i) & this.mask;
+
+			if (this.slots.get(slot) == null && this.slots.compareAndSet(slot, null, matcher)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the first slot tried by the current thread
+	 */
+	private static int stripe() {
+		// Spread the thread ids, which are usually consecutive
+		return (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32);
+	}
+}
@@ -7,28 +7,32 @@
 
 package info.codesaway.util.regex;
 
-import static info.codesaway.util.regex.Matcher.getAbsoluteGroupIndex;
-import static info.codesaway.util.regex.Matcher.noNamedGroup;
+import static info.codesaway.util.regex.Matcher.NO_GROUP;
+import static info.codesaway.util.regex.Matcher.findAbsoluteGroupIndex;
 import static info.codesaway.util.regex.RefactorUtility.fullGroupName;
-import static info.codesaway.util.regex.RefactorUtility.parseInt;
-import static info.codesaway.util.regex.RegExPlusSupport.setLastMatcher;
+import static info.codesaway.util.regex.RefactorUtility.isParsableInt;
+import static info.codesaway.util.regex.RefactorUtility.requiresRefactor;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import info.codesaway.util.regex.PatternCache.PatternCacheKey;
 
 // TODO: finish documenting
 // mention that all compiled patterns are now cached
@@ -1685,11 +1689,85 @@ public final class Pattern implements Serializable {
 	private transient Map<String, Integer> groupCounts;
 
 	/**
-	 * @since 0.2
+	 * For each group number (in the inputted pattern), the actual group numbers in the internal pattern, in order of
+	 * occurrence (built from the group mapping when the pattern is compiled, so looking up a numbered group doesn't
+	 * create any mapping names).
+	 */
+	private transient int[][] groupIndexes;
+
+	/**
+	 * For each actual group number (in the internal pattern), the group name, as returned by
+	 * {@link Matcher#getGroupName(int)} (built from the group mapping when the pattern is compiled), or
+	 * <code>null</code> if the group isn't named.
+	 */
+	private transient List<String> groupNames;
+
+	/**
+	 * Interned group references (created when the pattern is compiled)
+	 */
+	private transient ConcurrentHashMap<String, GroupRef> groupRefs;
+
+	/**
+	 * The maximum number of interned group references (further group references are resolved each time)
+	 */
+	private static final int MAX_GROUP_REFS = 256;
+
+	/**
+	 * Compiled replacements, by replacement string (created when the pattern is compiled)
+	 */
+	private transient ConcurrentHashMap<String, Replacement> replacements;
+
+	/**
+	 * The maximum number of cached replacements (further replacements are compiled each time)
+	 */
+	private static final int MAX_REPLACEMENTS = 64;
+
+	/**
+	 * Indicates whether the input can be split right after a line feed, when finding matches in parallel
+	 * (<code>null</code> until it's needed)
+	 */
+	private transient volatile Boolean splittableAtLineFeeds;
+
+	/**
+	 * Matchers reused by the convenience methods, such as {@link #matches(String, CharSequence)} and
+	 * {@link #asPredicate()} (<code>null</code> until it's needed)
 	 */
-	// TODO: update cache to detect common pattern which are equivalent ??
-	// e.g. "(?i)abc" = "abc" with Case-insensitive flag
-	private static final Map<PatternCacheKey, Pattern> patternCache = new Hashtable<>();
+	private transient volatile MatcherPool matcherPool;
+
+	/**
+	 * Skips the text which can't contain a match, when finding matches (<code>null</code> until it's needed)
+	 */
+	private transient volatile Prefilter prefilter;
+
+	/**
+	 * Used as the prefilter, if the pattern has no prefilter
+	 */
+	private static final Prefilter NO_PREFILTER = new Prefilter(null, null, null);
+
+	/**
+	 * Searches for the literal, if the pattern only matches a literal (<code>null</code> until it's needed)
+	 */
+	private transient volatile LiteralSearcher literalSearcher;
+
+	/**
+	 * Used as the literal searcher, if the pattern doesn't only match a literal
+	 */
+	private static final LiteralSearcher NO_LITERAL_SEARCHER = new LiteralSearcher("", false);
+
+	/**
+	 * The minimum and maximum length of a match (<code>null</code> until it's needed)
+	 */
+	private transient volatile MatchLength matchLength;
+
+	/**
+	 * Time spent refactoring the pattern, in nanoseconds
+	 */
+	private transient long refactorTime;
+
+	/**
+	 * Time spent compiling the refactored pattern using Java's {@link java.util.regex.Pattern} class, in nanoseconds
+	 */
+	private transient long compileTime;
 
 	/**
 	 * A pattern with the RegEx being the empty string
@@ -1733,61 +1811,6 @@ public final class Pattern implements Serializable {
 		return naturalComparator;
 	}
 
-	private static class PatternCacheKey {
-		private final String regex;
-		private final int flags;
-
-		public PatternCacheKey(final String regex, final int flags) {
-			this.regex = regex;
-			this.flags = flags;
-		}
-
-		/**
-		 * {@inheritDoc}
-		 */
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + this.flags;
-			result = prime * result + ((this.regex == null) ? 0 : this.regex.hashCode());
-			return result;
-		}
-
-		/**
-		 * {@inheritDoc}
-		 */
-		@Override
-		public boolean equals(final Object obj) {
-			if (this == obj) {
-				return true;
-			}
-			if (obj == null) {
-				return false;
-			}
-			if (this.getClass() != obj.getClass()) {
-				return false;
-			}
-			PatternCacheKey other = (PatternCacheKey) obj;
-			if (this.flags != other.flags) {
-				return false;
-			}
-			if (this.regex == null) {
-				if (other.regex != null) {
-					return false;
-				}
-			} else if (!this.regex.equals(other.regex)) {
-				return false;
-			}
-			return true;
-		}
-
-		@Override
-		public String toString() {
-			return this.flags + ": " + this.regex;
-		}
-	}
-
 	/**
 	 * Compiles the given regular expression into a pattern.
 	 *
@@ -1859,6 +1882,29 @@ public final class Pattern implements Serializable {
 		return compile(regex, flags, lazyCompiling);
 	}
 
+	/**
+	 * Compiles the already refactored regular expression into a pattern.
+	 *
+	 * <p>Only the internal {@link java.util.regex.Pattern} is compiled (if the refactored regular expression isn't
+	 * valid, the regular expression is compiled normally).</p>
+	 *
+	 * <p>If the regular expression is already in the {@link PatternCache}, the cached pattern is returned. Otherwise,
+	 * the compiled pattern isn't added to the cache, since the refactored regular expression isn't verified (so it
+	 * can't affect patterns compiled using {@link #compile(String, int)}). Patterns from a
+	 * {@link PrecompiledPatternProvider} are cached, since they're used when compiling the regular expression.</p>
+	 *
+	 * @param precompiled
+	 *            the refactored regular expression and group mappings
+	 * @return The compiled <code>Pattern</code>
+	 * @since 2.1
+	 */
+	public static Pattern compile(final PrecompiledPattern precompiled) {
+		Pattern cached = PatternCache.getInstance()
+				.get(new PatternCacheKey(precompiled.getPattern(), precompiled.getFlags()));
+
+		return cached != null ? cached : new Pattern(precompiled);
+	}
+
 	static Pattern lazyCompile(final String regex) {
 		return lazyCompile(regex, 0);
 	}
@@ -1868,30 +1914,10 @@ public final class Pattern implements Serializable {
 	}
 
 	public static Pattern compile(final String regex, final int flags, final boolean lazyCompiling) {
-		PatternCacheKey key = new PatternCacheKey(regex, flags);
-
-		Pattern cachedPattern = patternCache.get(key);
-
-		if (cachedPattern != null) {
-			return cachedPattern;
-		}
-
-		synchronized (patternCache) {
-			// System.out.println("Caching (" + flags + "): " + regex);
-			cachedPattern = patternCache.get(key);
-
-			if (cachedPattern != null) {
-				return cachedPattern;
-			}
-		}
-
-		Pattern newPattern = new Pattern(regex, flags, lazyCompiling);
-
-		synchronized (patternCache) {
-			patternCache.put(key, newPattern);
-		}
-
-		return newPattern;
+		// TODO: update cache to detect common pattern which are equivalent ??
+		// e.g. "(?i)abc" = "abc" with Case-insensitive flag
+		return PatternCache.getInstance().getOrCompile(new PatternCacheKey(regex, flags),
+				() -> new Pattern(regex, flags, lazyCompiling));
 	}
 
 	/**
@@ -1901,25 +1927,16 @@ public final class Pattern implements Serializable {
 	 * @since 0.2
 	 */
 	public static Pattern valueOf(final java.util.regex.Pattern pattern) {
+		PatternCache patternCache = PatternCache.getInstance();
 		PatternCacheKey key = new PatternCacheKey(pattern.pattern(), pattern.flags());
+
 		Pattern cachedPattern = patternCache.get(key);
 
 		if (cachedPattern != null) {
 			return cachedPattern;
 		}
 
-		synchronized (patternCache) {
-			cachedPattern = patternCache.get(key);
-
-			if (cachedPattern != null) {
-				return cachedPattern;
-			}
-
-			Pattern newPattern = new Pattern(pattern);
-			patternCache.put(key, newPattern);
-
-			return newPattern;
-		}
+		return patternCache.putIfAbsent(key, new Pattern(pattern));
 	}
 
 	/**
@@ -2064,18 +2081,13 @@ public final class Pattern implements Serializable {
 	 * @since 0.2
 	 */
 	public int groupCount(final int group) {
-		String groupName;
+		int index = findAbsoluteGroupIndex(group, this.groupCount());
 
-		try {
-			int index = getAbsoluteGroupIndex(group, this.groupCount());
-			groupName = wrapIndex(index);
-		} catch (IndexOutOfBoundsException e) {
-			return 0;
-		} catch (IllegalArgumentException e) {
+		if (index == NO_GROUP) {
 			return 0;
 		}
 
-		Integer groupCount = this.groupCounts.get(groupName);
+		Integer groupCount = this.groupCounts.get(wrapIndex(index));
 		return groupCount != null ? groupCount : 0;
 
 		// return groupCount(wrapIndex(group));
@@ -2111,9 +2123,9 @@ public final class Pattern implements Serializable {
 	public int groupCount(String groupName) {
 		this.forceCompile();
 
-		try {
-			groupName = this.normalizeGroupName(groupName);
-		} catch (IllegalArgumentException e) {
+		groupName = this.findNormalizedGroupName(groupName);
+
+		if (groupName == null) {
 			/*
 			 * groupName is a relative unnamed group (e.g.
 			 * "[-4]"), which doesn't exist, or an unnamed group whose index is
@@ -2129,6 +2141,168 @@ public final class Pattern implements Serializable {
 		return groupCount != null ? groupCount : 0;
 	}
 
+	/**
+	 * Returns a reference to the given <a href="#group">group</a>, which can be used to get the group from a match of
+	 * this pattern without parsing the group name each time.
+	 *
+	 * <p>Group references are interned, so the same group reference is returned each time the same group is
+	 * requested.</p>
+	 *
+	 * @param group
+	 *            A capturing group in this pattern (for example, "name", "name[2]", or "[1]")
+	 * @return the group reference
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 * @see MatchResult#group(GroupRef)
+	 * @since 2.1
+	 */
+	public GroupRef groupRef(final String group) {
+		this.forceCompile();
+
+		GroupRef groupRef = this.groupRefs.get(group);
+
+		if (groupRef == null) {
+			groupRef = this.internGroupRef(
+					new GroupRef(this, group, MatcherHelper.resolveGroupIndexes(this, group)));
+		}
+
+		return groupRef;
+	}
+
+	/**
+	 * Returns a reference to the given occurrence of the group name.
+	 *
+	 * <p>An invocation of this convenience method of the form</p>
+	 *
+	 * <blockquote><pre>
+	 * p.groupRef(groupName, occurrence)</pre></blockquote>
+	 *
+	 * <p>behaves in exactly the same way as</p>
+	 *
+	 * <blockquote><pre>
+	 * p.groupRef(groupName + "[" + occurrence + "]")</pre></blockquote>
+	 *
+	 * @param groupName
+	 *            The group name for a capturing group in this pattern
+	 * @param occurrence
+	 *            The occurrence of the specified group name
+	 * @return the group reference
+	 * @throws IllegalArgumentException
+	 *             If there is no capturing group in the pattern
+	 *             of the given group
+	 * @since 2.1
+	 */
+	public GroupRef groupRef(final String groupName, final int occurrence) {
+		this.forceCompile();
+
+		String group = getMappingName(groupName, occurrence);
+		GroupRef groupRef = this.groupRefs.get(group);
+
+		if (groupRef == null) {
+			groupRef = this.internGroupRef(
+					new GroupRef(this, group, MatcherHelper.resolveGroupIndexes(this, groupName, occurrence)));
+		}
+
+		return groupRef;
+	}
+
+	/**
+	 * Returns a reference to the given group, or <code>null</code> if there is no such group (without throwing an
+	 * exception).
+	 *
+	 * @see #groupRef(String)
+	 */
+	GroupRef findGroupRef(final String group) {
+		this.forceCompile();
+
+		GroupRef groupRef = this.groupRefs.get(group);
+
+		if (groupRef == null) {
+			int[] groupIndexes = MatcherHelper.resolveGroupIndexes(this, group, false);
+
+			if (groupIndexes != null) {
+				groupRef = this.internGroupRef(new GroupRef(this, group, groupIndexes));
+			}
+		}
+
+		return groupRef;
+	}
+
+	/**
+	 * Returns a reference to the given occurrence of the group name, or <code>null</code> if there is no such group
+	 * (without throwing an exception).
+	 *
+	 * @see #groupRef(String, int)
+	 */
+	GroupRef findGroupRef(final String groupName, final int occurrence) {
+		this.forceCompile();
+
+		String group = getMappingName(groupName, occurrence);
+		GroupRef groupRef = this.groupRefs.get(group);
+
+		if (groupRef == null) {
+			int[] groupIndexes = MatcherHelper.resolveGroupIndexes(this, groupName, occurrence, false);
+
+			if (groupIndexes != null) {
+				groupRef = this.internGroupRef(new GroupRef(this, group, groupIndexes));
+			}
+		}
+
+		return groupRef;
+	}
+
+	/**
+	 * Compiles the given replacement string for this pattern.
+	 *
+	 * <p>The replacement string has the same syntax as the replacement string passed to
+	 * {@link Matcher#appendReplacement(StringBuffer, String)}. It is parsed once, and its group references are
+	 * resolved to the groups in this pattern, so that it doesn't need to be parsed again for each match.</p>
+	 *
+	 * <p>Compiled replacements are cached by the pattern, so the same replacement is returned each time the same
+	 * replacement string is compiled. The methods which take a replacement string, such as
+	 * {@link Matcher#replaceAll(String)}, use this cache.</p>
+	 *
+	 * @param replacement
+	 *            The replacement string
+	 * @return the compiled replacement
+	 * @throws IllegalArgumentException
+	 *             If the replacement string refers to a named-capturing
+	 *             group that does not exist in the pattern
+	 * @throws IndexOutOfBoundsException
+	 *             If the replacement string refers to a capturing group
+	 *             that does not exist in the pattern
+	 * @since 2.1
+	 */
+	public Replacement compileReplacement(final String replacement) {
+		this.forceCompile();
+
+		Replacement compiled = this.replacements.get(replacement);
+
+		if (compiled == null) {
+			compiled = Replacement.compile(this, replacement);
+
+			if (this.replacements.size() < MAX_REPLACEMENTS) {
+				Replacement existing = this.replacements.putIfAbsent(replacement, compiled);
+
+				if (existing != null) {
+					compiled = existing;
+				}
+			}
+		}
+
+		return compiled;
+	}
+
+	private GroupRef internGroupRef(final GroupRef groupRef) {
+		if (this.groupRefs.size() >= MAX_GROUP_REFS) {
+			return groupRef;
+		}
+
+		GroupRef existingGroupRef = this.groupRefs.putIfAbsent(groupRef.toString(), groupRef);
+		return existingGroupRef != null ? existingGroupRef : groupRef;
+	}
+
 	/**
 	 * Indicates whether this pattern has any capturing groups.
 	 *
@@ -2172,7 +2346,12 @@ public final class Pattern implements Serializable {
 
 		String groupName = matcher.group(1);
 		String groupOccurrence = matcher.group(2);
-		int occurrence = groupOccurrence != null ? parseInt(groupOccurrence) : 0;
+
+		if (groupOccurrence != null && !isParsableInt(groupOccurrence)) {
+			return false;
+		}
+
+		int occurrence = groupOccurrence != null ? Integer.parseInt(groupOccurrence) : 0;
 
 		return this.hasGroup(groupName, occurrence);
 		// return containsKey(group);
@@ -2190,20 +2369,10 @@ public final class Pattern implements Serializable {
 	 *
 	 * @since 0.2
 	 */
-	@SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_NO_SIDE_EFFECT")
 	public boolean hasGroup(final String groupName, final int occurrence) {
 		int groupCount = this.groupCount(groupName);
 
-		if (groupCount == 0) {
-			return false;
-		}
-
-		try {
-			getAbsoluteGroupIndex(occurrence, groupCount);
-			return true;
-		} catch (IndexOutOfBoundsException e) {
-			return false;
-		}
+		return groupCount != 0 && findAbsoluteGroupIndex(occurrence, groupCount) != NO_GROUP;
 	}
 
 	/**
@@ -2253,6 +2422,190 @@ public final class Pattern implements Serializable {
 		return new Matcher(this.internalPattern.matcher(input), this, input);
 	}
 
+	/**
+	 * Performs the given action for each subsequence of the input that
+	 * matches this pattern.
+	 *
+	 * <p>An invocation of this convenience method of the form</p>
+	 *
+	 * <blockquote><pre>
+	 * p.forEachMatch(input, action);</pre></blockquote>
+	 *
+	 * <p>behaves in exactly the same way as the expression</p>
+	 *
+	 * <blockquote><pre>
+	 * p.matcher(input).forEachMatch(action);</pre></blockquote>
+	 *
+	 * <p>The match result passed to the action is only valid during the call
+	 * to the action (see {@link Matcher#forEachMatch(Consumer)}).</p>
+	 *
+	 * @param input
+	 *            The character sequence to be matched
+	 * @param action
+	 *            The action to be performed for each match
+	 * @since 2.1
+	 */
+	public void forEachMatch(final CharSequence input, final Consumer<? super MatchResult> action) {
+		this.matcher(input).forEachMatch(action);
+	}
+
+	/**
+	 * Returns a stream of match results for each subsequence of the input
+	 * that matches this pattern.
+	 *
+	 * <p>An invocation of this convenience method of the form</p>
+	 *
+	 * <blockquote><pre>
+	 * p.results(input);</pre></blockquote>
+	 *
+	 * <p>behaves in exactly the same way as the expression</p>
+	 *
+	 * <blockquote><pre>
+	 * p.matcher(input).results();</pre></blockquote>
+	 *
+	 * @param input
+	 *            The character sequence to be matched
+	 * @return a sequential stream of match results
+	 * @see Matcher#results()
+	 * @since 2.1
+	 */
+	public Stream<MatchResult> results(final CharSequence input) {
+		return this.matcher(input).results();
+	}
+
+	/**
+	 * Returns the minimum length of a match.
+	 *
+	 * <p>The length is found by analyzing the regular expression, after
+	 * RegExPlus syntax (such as numeric ranges and subroutines) is expanded.
+	 * Lengths are in chars, so a supplementary character has a length of
+	 * 2.</p>
+	 *
+	 * <p>{@link Matcher#matches()} and {@link #isPartialMatch(CharSequence)}
+	 * use the lengths to reject input which is too short or too long, without
+	 * running the regular expression.</p>
+	 *
+	 * @return the minimum length of a match (0 if it can't be determined)
+	 * @since 2.1
+	 */
+	public int getMinLength() {
+		return this.getMatchLength().getMinLength();
+	}
+
+	/**
+	 * Returns the maximum length of a match.
+	 *
+	 * <p>See {@link #getMinLength()}.</p>
+	 *
+	 * @return the maximum length of a match, or -1 if a match can be any
+	 *         length (or if it can't be determined)
+	 * @since 2.1
+	 */
+	public int getMaxLength() {
+		int maxLength = this.getMatchLength().getMaxLength();
+
+		return maxLength == MatchLength.UNBOUNDED ? -1 : maxLength;
+	}
+
+	/**
+	 * Returns the pool of matchers, used by the convenience methods (created the first time it's needed)
+	 */
+	MatcherPool getMatcherPool() {
+		MatcherPool pool = this.matcherPool;
+
+		if (pool == null) {
+			// If two threads create a pool at the same time, only one is kept (the other's matchers are discarded)
+			pool = new MatcherPool(this);
+			this.matcherPool = pool;
+		}
+
+		return pool;
+	}
+
+	/**
+	 * Returns the prefilter, which skips the text which can't contain a match (created the first time it's needed)
+	 *
+	 * @return the prefilter, or <code>null</code> if the text can't be skipped
+	 * @see PatternAnalyzer#createPrefilter(java.util.regex.Pattern)
+	 */
+	Prefilter getPrefilter() {
+		Prefilter prefilter = this.prefilter;
+
+		if (prefilter == null) {
+			LiteralSearcher searcher = this.getLiteralSearcher();
+
+			// Every match starts with the literal (and is the literal)
+			prefilter = searcher != null ? new Prefilter(searcher, null, null)
+					: PatternAnalyzer.createPrefilter(this.getInternalPattern());
+
+			if (prefilter == null) {
+				prefilter = NO_PREFILTER;
+			}
+
+			this.prefilter = prefilter;
+		}
+
+		return prefilter == NO_PREFILTER ? null : prefilter;
+	}
+
+	/**
+	 * Returns the literal searcher, if the pattern only matches a literal (created the first time it's needed)
+	 *
+	 * <p>The convenience methods (such as {@link #split(CharSequence, int)} and
+	 * {@link #replaceAll(CharSequence, String, String)}) use the literal searcher instead of a matcher.</p>
+	 *
+	 * @return the literal searcher, or <code>null</code> if the pattern doesn't only match a literal
+	 * @see LiteralSearcher#forPattern(String, int)
+	 */
+	LiteralSearcher getLiteralSearcher() {
+		LiteralSearcher searcher = this.literalSearcher;
+
+		if (searcher == null) {
+			searcher = LiteralSearcher.forPattern(this.pattern, this.flags);
+
+			if (searcher == null) {
+				searcher = NO_LITERAL_SEARCHER;
+			}
+
+			this.literalSearcher = searcher;
+		}
+
+		return searcher == NO_LITERAL_SEARCHER ? null : searcher;
+	}
+
+	/**
+	 * Indicates whether the input can be split right after a line feed, when finding matches in parallel (computed
+	 * the first time it's needed)
+	 *
+	 * @see PatternAnalyzer#isSplittableAtLineFeeds(java.util.regex.Pattern)
+	 */
+	boolean isSplittableAtLineFeeds() {
+		Boolean splittable = this.splittableAtLineFeeds;
+
+		if (splittable == null) {
+			splittable = PatternAnalyzer.isSplittableAtLineFeeds(this.getInternalPattern());
+			this.splittableAtLineFeeds = splittable;
+		}
+
+		return splittable;
+	}
+
+	/**
+	 * Returns the minimum and maximum length of a match (computed the first time it's needed)
+	 *
+	 * @see PatternAnalyzer#analyzeMatchLength(java.util.regex.Pattern)
+	 */
+	MatchLength getMatchLength() {
+		MatchLength length = this.matchLength;
+
+		if (length == null) {
+			length = PatternAnalyzer.analyzeMatchLength(this.getInternalPattern());
+			this.matchLength = length;
+		}
+
+		return length;
+	}
+
 	/**
 	 * Indicates whether the given input <i>partially</i> matches this
 	 * <code>Pattern</code>.
@@ -2308,13 +2661,17 @@ public final class Pattern implements Serializable {
 	 * http://forums.sun.com/thread.jspa?messageID=4425768#4425768
 	 */
 	public boolean isPartialMatch(final CharSequence input) {
-		Matcher m = setLastMatcher(this.matcher(input));
+		MatcherPool pool = this.getMatcherPool();
+		Matcher m = pool.acquire(input);
 
-		if (m.matches()) {
-			return true;
+		// Longer input can't hit the end, unless the pattern looks past the end of a match
+		boolean partialMatch = m.matches() || this.getMatchLength().canHitEnd(input.length()) && m.hitEnd();
+
+		if (!RegExPlusSupport.trackLastMatcher(m)) {
+			pool.release(m);
 		}
 
-		return m.hitEnd();
+		return partialMatch;
 	}
 
 	/**
@@ -2497,9 +2854,24 @@ public final class Pattern implements Serializable {
 	 *             If the expression's patternSyntax is invalid
 	 */
 	public static boolean matches(final String regex, final CharSequence input) {
-		Pattern p = Pattern.compile(regex);
-		Matcher m = p.matcher(input);
-		return m.matches();
+		Pattern pattern = Pattern.compile(regex);
+		LiteralSearcher searcher = pattern.getLiteralSearcher();
+
+		if (searcher != null) {
+			return searcher.matches(input);
+		}
+
+		if (!pattern.getMatchLength().canMatch(input.length())) {
+			return false;
+		}
+
+		MatcherPool pool = pattern.getMatcherPool();
+		Matcher m = pool.acquire(input);
+		try {
+			return m.matches();
+		} finally {
+			pool.release(m);
+		}
 	}
 
 	/**
@@ -2540,7 +2912,24 @@ public final class Pattern implements Serializable {
 	 *             If the regular expression's patternSyntax is invalid
 	 */
 	public static String replaceFirst(final CharSequence input, final String regex, final String replacement) {
-		return Pattern.compile(regex).matcher(input).replaceFirst(replacement);
+		Pattern pattern = Pattern.compile(regex);
+		LiteralSearcher searcher = pattern.getLiteralSearcher();
+
+		if (searcher != null) {
+			String result = pattern.replaceLiteral(searcher, input, replacement, false);
+
+			if (result != null) {
+				return result;
+			}
+		}
+
+		MatcherPool pool = pattern.getMatcherPool();
+		Matcher m = pool.acquire(input);
+		try {
+			return m.replaceFirst(replacement);
+		} finally {
+			pool.release(m);
+		}
 	}
 
 	/**
@@ -2582,7 +2971,62 @@ public final class Pattern implements Serializable {
 	 *             If the regular expression's patternSyntax is invalid
 	 */
 	public static String replaceAll(final CharSequence input, final String regex, final String replacement) {
-		return Pattern.compile(regex).matcher(input).replaceAll(replacement);
+		Pattern pattern = Pattern.compile(regex);
+		LiteralSearcher searcher = pattern.getLiteralSearcher();
+
+		if (searcher != null) {
+			String result = pattern.replaceLiteral(searcher, input, replacement, true);
+
+			if (result != null) {
+				return result;
+			}
+		}
+
+		MatcherPool pool = pattern.getMatcherPool();
+		Matcher m = pool.acquire(input);
+		try {
+			return m.replaceAll(replacement);
+		} finally {
+			pool.release(m);
+		}
+	}
+
+	/**
+	 * Replaces the occurrences of the literal, without using a matcher
+	 *
+	 * @param searcher
+	 *            the literal searcher for this pattern
+	 * @param all
+	 *            whether to replace every occurrence (or only the first)
+	 * @return The resulting <tt>String</tt>, or <code>null</code> if the replacement string refers to a group (in
+	 *         which case, a matcher should be used)
+	 */
+	private String replaceLiteral(final LiteralSearcher searcher, final CharSequence input, final String replacement,
+			final boolean all) {
+		int start = searcher.indexOf(input, 0);
+
+		if (start == -1) {
+			return input.toString();
+		}
+
+		// Only compiled if there is a match (same as Matcher)
+		Replacement compiled = this.compileReplacement(replacement);
+
+		if (!compiled.isLiteral()) {
+			return null;
+		}
+
+		String text = compiled.getLiterals()[0];
+		StringBuilder sb = new StringBuilder(input.length() + 16);
+		int index = 0;
+
+		do {
+			sb.append(input, index, start).append(text);
+			index = start + searcher.length();
+			start = all ? searcher.indexOf(input, index) : -1;
+		} while (start != -1);
+
+		return sb.append(input, index, input.length()).toString();
 	}
 
 	/**
@@ -2828,7 +3272,109 @@ public final class Pattern implements Serializable {
 	 *         matches of this pattern
 	 */
 	public String[] split(final CharSequence input, final int limit) {
-		return this.getInternalPattern().split(input, limit);
+		LiteralSearcher searcher = this.getLiteralSearcher();
+
+		if (searcher != null) {
+			return split(searcher, input, limit);
+		}
+
+		MatcherPool pool = this.getMatcherPool();
+		Matcher m = pool.acquire(input);
+		try {
+			return split(m, input, limit);
+		} finally {
+			pool.release(m);
+		}
+	}
+
+	/**
+	 * Splits the input around the matches found by the matcher
+	 *
+	 * <p>Same as {@link java.util.regex.Pattern#split(CharSequence, int)} (including Java 8's handling of a
+	 * zero-width match at the beginning of the input), but uses the given matcher, so the matcher can be reused.</p>
+	 */
+	private static String[] split(final Matcher m, final CharSequence input, final int limit) {
+		int index = 0;
+		boolean matchLimited = limit > 0;
+		List<String> matchList = new ArrayList<>();
+
+		// Add segments before each match found
+		while (m.find()) {
+			if (!matchLimited || matchList.size() < limit - 1) {
+				if (index == 0 && m.start() == 0 && m.end() == 0) {
+					// No empty leading substring included for zero-width match at the beginning of the input
+					continue;
+				}
+				matchList.add(input.subSequence(index, m.start()).toString());
+				index = m.end();
+			} else if (matchList.size() == limit - 1) {
+				// Last one
+				matchList.add(input.subSequence(index, input.length()).toString());
+				index = m.end();
+			}
+		}
+
+		// If no match was found, return the input
+		if (index == 0) {
+			return new String[] { input.toString() };
+		}
+
+		// Add remaining segment
+		if (!matchLimited || matchList.size() < limit) {
+			matchList.add(input.subSequence(index, input.length()).toString());
+		}
+
+		// Construct result
+		int resultSize = matchList.size();
+		if (limit == 0) {
+			while (resultSize > 0 && matchList.get(resultSize - 1).isEmpty()) {
+				resultSize--;
+			}
+		}
+
+		return matchList.subList(0, resultSize).toArray(new String[resultSize]);
+	}
+
+	/**
+	 * Splits the input around the occurrences of the literal
+	 *
+	 * <p>Same as {@link #split(Matcher, CharSequence, int)}, but doesn't use a matcher (the literal isn't empty, so
+	 * there are no zero-width matches).</p>
+	 */
+	private static String[] split(final LiteralSearcher searcher, final CharSequence input, final int limit) {
+		int index = 0;
+		boolean matchLimited = limit > 0;
+		List<String> matchList = new ArrayList<>();
+
+		// Add segments before each occurrence (the last segment is added below)
+		while (!matchLimited || matchList.size() < limit - 1) {
+			int start = searcher.indexOf(input, index);
+
+			if (start == -1) {
+				break;
+			}
+
+			matchList.add(input.subSequence(index, start).toString());
+			index = start + searcher.length();
+		}
+
+		// If no match was found, return the input
+		if (index == 0) {
+			return new String[] { input.toString() };
+		}
+
+		// Add remaining segment
+		matchList.add(input.subSequence(index, input.length()).toString());
+
+		// Construct result
+		int resultSize = matchList.size();
+		if (limit == 0) {
+			while (resultSize > 0 && matchList.get(resultSize - 1).isEmpty()) {
+				resultSize--;
+			}
+		}
+
+		return matchList.subList(0, resultSize).toArray(new String[resultSize]);
 	}
 
 	/**
@@ -2875,7 +3421,7 @@ public final class Pattern implements Serializable {
 	 *         matches of this pattern
 	 */
 	public String[] split(final CharSequence input) {
-		return this.getInternalPattern().split(input, 0);
+		return this.split(input, 0);
 	}
 
 	/**
@@ -3077,6 +3623,101 @@ public final class Pattern implements Serializable {
 		// TODO: cache pattern here??
 	}
 
+	/**
+	 * Serializes this pattern as a {@link SerializedForm}, which includes the refactored regular expression, so the
+	 * pattern isn't refactored again when deserialized.
+	 */
+	private Object writeReplace() {
+		PrecompiledPattern precompiled;
+
+		try {
+			this.forceCompile();
+			precompiled = new PrecompiledPattern(this);
+		} catch (PatternSyntaxException e) {
+			// Lazily compiled pattern with invalid syntax (reports the error when used, same as before serializing)
+			precompiled = null;
+		}
+
+		return new SerializedForm(this.pattern, this.flags, precompiled);
+	}
+
+	/**
+	 * The serialized form of a {@link Pattern}
+	 *
+	 * <p>Includes the refactored regular expression and group mappings, so deserializing a pattern only requires
+	 * compiling the internal {@link java.util.regex.Pattern}. If the pattern was serialized by a different version of
+	 * RegExPlus, the pattern is refactored again, since it may be refactored differently.</p>
+	 *
+	 * <p>If the pattern is already in the {@link PatternCache}, the cached pattern is returned. Otherwise, the
+	 * deserialized pattern isn't added to the cache, since the stream may not have been written by
+	 * {@link Pattern#compile(String, int)} (so a stale or crafted stream can't affect patterns compiled later).</p>
+	 *
+	 * @since 2.1
+	 */
+	private static final class SerializedForm implements Serializable {
+		private static final long serialVersionUID = 2802409254547227376L;
+
+		private final String pattern;
+		private final int flags;
+
+		/**
+		 * The version of RegExPlus which refactored the pattern
+		 *
+		 * @see PrecompiledPattern#libraryVersion()
+		 */
+		private final String version;
+
+		/**
+		 * The refactored regular expression (or <code>null</code> if the pattern has invalid syntax)
+		 */
+		private final String internalPattern;
+		private final int capturingGroupCount;
+		private final boolean addedGroups;
+		private final HashMap<String, Integer> groupMapping;
+		private final HashMap<String, Integer> groupCounts;
+
+		SerializedForm(final String pattern, final int flags, final PrecompiledPattern precompiled) {
+			this.pattern = pattern;
+			this.flags = flags;
+			this.version = PrecompiledPattern.libraryVersion();
+
+			if (precompiled != null) {
+				this.internalPattern = precompiled.getInternalPattern();
+				this.capturingGroupCount = precompiled.getCapturingGroupCount();
+				this.addedGroups = precompiled.hasAddedGroups();
+				this.groupMapping = new HashMap<>(precompiled.getGroupMapping());
+				this.groupCounts = new HashMap<>(precompiled.getGroupCounts());
+			} else {
+				this.internalPattern = null;
+				this.capturingGroupCount = 0;
+				this.addedGroups = false;
+				this.groupMapping = null;
+				this.groupCounts = null;
+			}
+		}
+
+		private Object readResolve() {
+			if (this.internalPattern == null || this.groupMapping == null || this.groupCounts == null) {
+				// Lazily compile (reports the syntax error when used)
+				return new Pattern(this.pattern, this.flags, true);
+			}
+
+			if (!PrecompiledPattern.libraryVersion().equals(this.version)) {
+				// Refactored by a different version (refactor again)
+				return Pattern.compile(this.pattern, this.flags);
+			}
+
+			Pattern cached = PatternCache.getInstance().get(new PatternCacheKey(this.pattern, this.flags));
+
+			if (cached != null) {
+				return cached;
+			}
+
+			return new Pattern(new PrecompiledPattern(this.pattern, this.flags, this.internalPattern,
+					this.capturingGroupCount, this.addedGroups, this.groupMapping, this.groupCounts));
+		}
+	}
+
 	private void initializeForZeroGroups() {
 		/*
 		 * Expected results (with 0 groups):
@@ -3108,9 +3749,47 @@ public final class Pattern implements Serializable {
 		this.addedGroups = false;
 	}
 
+	/**
+	 * Initializes the group mappings and group counts for a pattern with the given number of unnamed groups
+	 *
+	 * @param groupCount
+	 *            the number of capture groups
+	 */
+	private void initializeForUnnamedGroups(final int groupCount) {
+		this.capturingGroupCount = groupCount;
+
+		// Initialize groupMapping and groupCounts
+		this.groupMapping = new HashMap<>(groupCount + 1);
+		this.groupCounts = new HashMap<>(groupCount + 2);
+
+		/*
+		 * Expected results (with three groups):
+		 *
+		 * groupMapping : {[0][1]=0, [1][1]=1, [2][1]=2, [3][1]=3}
+		 * -size: groupCount + 1
+		 *
+		 * groupCounts: {=3, [0]=1, [1]=1, [2]=1, [3]=1}
+		 * -size: groupCount + 2
+		 */
+
+		// Map empty string group name to group count
+		this.groupCounts.put("", groupCount);
+
+		for (int i = 0; i <= groupCount; i++) {
+			String groupName = wrapIndex(i);
+
+			// Map [i][1] -> i (e.g. [0][1]=0)
+			this.groupMapping.put(getMappingName(groupName, 1), i);
+
+			// Map [i] -> 1 (e.g. [0]=1)
+			this.groupCounts.put(groupName, 1);
+		}
+	}
+
 	private void initializeEmptyPattern() {
 		this.initializeForZeroGroups();
 		this.setInternalPattern("");
+		this.initializeGroupIndexes();
 		this.compiled = true;
 	}
 
@@ -3127,10 +3806,7 @@ public final class Pattern implements Serializable {
 	 *            whether to lazily compile pattern
 	 */
 	private Pattern(final String regex, final int flags, final boolean lazyCompiling) {
-		// TODO: derive method to perform a simple check on regex to see if refactoring is necessary
-		// many regexes don't need to be refactored, try to detect some
-
-		// Optimize refactoring
+		// Regexes which don't need to be refactored are detected when compiling (see compileWithoutRefactor)
 
 		this.pattern = regex;
 		this.flags = flags;
@@ -3146,6 +3822,26 @@ public final class Pattern implements Serializable {
 		}
 	}
 
+	/**
+	 * Constructor to create a Pattern object from an already refactored regular expression.
+	 *
+	 * <p>Only the internal <code>Pattern</code> is compiled. If the refactored regular expression isn't valid, the
+	 * pattern is compiled normally.</p>
+	 *
+	 * @param precompiled
+	 *            the refactored regular expression and group mappings
+	 */
+	Pattern(final PrecompiledPattern precompiled) {
+		this.pattern = precompiled.getPattern();
+		this.flags = precompiled.getFlags();
+
+		if (this.pattern.length() == 0) {
+			this.initializeEmptyPattern();
+		} else if (!this.compilePrecompiled(precompiled, System.nanoTime())) {
+			this.compile();
+		}
+	}
+
 	/**
 	 * Constructor to create a Pattern object from a Java Pattern.
 	 *
@@ -3161,35 +3857,7 @@ public final class Pattern implements Serializable {
 		this.pattern = pattern.pattern();
 		this.flags = pattern.flags();
 
-		int groupCount = pattern.matcher("").groupCount();
-		this.capturingGroupCount = groupCount;
-
-		// Initialize groupMapping and groupCounts
-		this.groupMapping = new HashMap<>(groupCount + 1);
-		this.groupCounts = new HashMap<>(groupCount + 2);
-
-		/*
-		 * Expected results (with three groups):
-		 *
-		 * groupMapping : {[0][1]=0, [1][1]=1, [2][1]=2, [3][1]=3}
-		 * -size: groupCount + 1
-		 *
-		 * groupCounts: {=3, [0]=1, [1]=1, [2]=1, [3]=1}
-		 * -size: groupCount + 2
-		 */
-
-		// Map empty string group name to group count
-		this.groupCounts.put("", groupCount);
-
-		for (int i = 0; i <= groupCount; i++) {
-			String groupName = wrapIndex(i);
-
-			// Map [i][1] -> i (e.g. [0][1]=0)
-			this.groupMapping.put(getMappingName(groupName, 1), i);
-
-			// Map [i] -> 1 (e.g. [0]=1)
-			this.groupCounts.put(groupName, 1);
-		}
+		this.initializeForUnnamedGroups(pattern.matcher("").groupCount());
 
 		// For Java 7, adds named groups (if any)
 		try {
@@ -3225,6 +3893,7 @@ public final class Pattern implements Serializable {
 		}
 
 		this.internalPattern = pattern;
+		this.initializeGroupIndexes();
 		this.compiled = true;
 	}
 
@@ -3270,10 +3939,15 @@ public final class Pattern implements Serializable {
 		String refactoredPattern;
 		Refactor refactor;
 
+		long startTime = System.nanoTime();
+
 		if (this.has(LITERAL)) {
 			this.initializeForZeroGroups();
 			refactor = null;
 			refactoredPattern = this.pattern;
+		} else if (this.compileWithoutRefactor(startTime) || this.compileFromPrecompiled(startTime)
+				|| this.compileWithParser(startTime)) {
+			return;
 		} else {
 			this.groupMapping = new HashMap<>(2);
 			// refactor <pattern> to be used as a RegEx pattern
@@ -3283,6 +3957,9 @@ public final class Pattern implements Serializable {
 			refactoredPattern = refactor.toString();
 		}
 
+		long refactorEndTime = System.nanoTime();
+		this.refactorTime = refactorEndTime - startTime;
+
 		try {
 			// System.out.println(refactoredPattern);
 
@@ -3334,7 +4011,189 @@ public final class Pattern implements Serializable {
 		// }
 		// }
 
+		this.compileTime = System.nanoTime() - refactorEndTime;
+		this.initializeGroupIndexes();
+		this.compiled = true;
+
+		if (refactor != null) {
+			this.storeInPersistentCache();
+		}
+
+		PatternCache.getInstance().recordCompilation(this);
+	}
+
+	/**
+	 * Compiles the internal <code>Pattern</code> directly (without refactoring), if the regular expression only uses
+	 * syntax supported by Java's {@link java.util.regex.Pattern} class.
+	 *
+	 * @param startTime
+	 *            the time compiling started (as returned by {@link System#nanoTime()})
+	 * @return <code>true</code> if the pattern was compiled; <code>false</code> if the regular expression must be
+	 *         refactored
+	 */
+	private boolean compileWithoutRefactor(final long startTime) {
+		if (requiresRefactor(this.pattern, this.flags)) {
+			return false;
+		}
+
+		long classifyEndTime = System.nanoTime();
+
+		try {
+			this.setInternalPattern(this.pattern);
+		} catch (java.util.regex.PatternSyntaxException e) {
+			// Refactor the regular expression, so the error is reported the same as other RegExPlus errors
+			return false;
+		}
+
+		int groupCount = this.internalPattern.matcher("").groupCount();
+		this.initializeForUnnamedGroups(groupCount);
+
+		// Same value as when refactored (no groups are added, but each unnamed group is counted)
+		this.addedGroups = groupCount != 0;
+
+		long endTime = System.nanoTime();
+		this.refactorTime = classifyEndTime - startTime;
+		this.compileTime = endTime - classifyEndTime;
+		this.initializeGroupIndexes();
+		this.compiled = true;
+
+		PatternCache.getInstance().recordCompilation(this);
+		return true;
+	}
+
+	/**
+	 * Compiles the internal <code>Pattern</code> using the regular expression generated by {@link RegExParser}, which
+	 * reads the regular expression once (instead of refactoring it in multiple passes).
+	 *
+	 * @param startTime
+	 *            the time compiling started (as returned by {@link System#nanoTime()})
+	 * @return <code>true</code> if the pattern was compiled; <code>false</code> if the regular expression must be
+	 *         refactored
+	 */
+	private boolean compileWithParser(final long startTime) {
+		RegExTree tree = RegExParser.parse(this.pattern, this.flags);
+
+		if (tree == null) {
+			return false;
+		}
+
+		String parsedPattern = tree.toString();
+		long parseEndTime = System.nanoTime();
+
+		try {
+			this.setInternalPattern(parsedPattern);
+		} catch (java.util.regex.PatternSyntaxException e) {
+			// Refactor the regular expression, so the error is reported the same as other RegExPlus errors
+			return false;
+		}
+
+		this.initializeForUnnamedGroups(tree.getGroupCount());
+
+		for (Entry<String, Integer> namedGroup : tree.getNamedGroups().entrySet()) {
+			String groupName = namedGroup.getKey();
+
+			this.groupMapping.put(getMappingName(groupName, 1), namedGroup.getValue());
+			this.groupCounts.put(groupName, 1);
+		}
+
+		// Same value as when refactored
+		this.addedGroups = tree.getGroupCount() != 0;
+
+		long endTime = System.nanoTime();
+		this.refactorTime = parseEndTime - startTime;
+		this.compileTime = endTime - parseEndTime;
+		this.initializeGroupIndexes();
+		this.compiled = true;
+
+		this.storeInPersistentCache();
+		PatternCache.getInstance().recordCompilation(this);
+		return true;
+	}
+
+	/**
+	 * Compiles the internal <code>Pattern</code> using the refactored regular expression generated at build time (see
+	 * {@link PrecompiledPatternProvider}) or stored in the {@link PatternCache#getPersistentCache() persistent cache},
+	 * if it's available.
+	 *
+	 * @param startTime
+	 *            the time compiling started (as returned by {@link System#nanoTime()})
+	 * @return <code>true</code> if the pattern was compiled; <code>false</code> if the pattern isn't precompiled (or
+	 *         the precompiled pattern is invalid)
+	 */
+	private boolean compileFromPrecompiled(final long startTime) {
+		PrecompiledPattern precompiled = PrecompiledPatternRegistry.get(this.pattern, this.flags);
+
+		if (precompiled != null && this.compilePrecompiled(precompiled, startTime)) {
+			return true;
+		}
+
+		PersistentPatternCache persistentCache = PatternCache.getInstance().getPersistentCache();
+
+		if (persistentCache == null) {
+			return false;
+		}
+
+		precompiled = persistentCache.get(this.pattern, this.flags);
+
+		return precompiled != null && this.compilePrecompiled(precompiled, startTime);
+	}
+
+	/**
+	 * Compiles the internal <code>Pattern</code> using the already refactored regular expression and group mappings.
+	 *
+	 * @param precompiled
+	 *            the refactored regular expression and group mappings
+	 * @param startTime
+	 *            the time compiling started (as returned by {@link System#nanoTime()})
+	 * @return <code>true</code> if the pattern was compiled; <code>false</code> if the refactored regular expression
+	 *         isn't valid
+	 */
+	private boolean compilePrecompiled(final PrecompiledPattern precompiled, final long startTime) {
+		long lookupEndTime = System.nanoTime();
+
+		try {
+			this.setInternalPattern(precompiled.getInternalPattern());
+		} catch (java.util.regex.PatternSyntaxException e) {
+			return false;
+		}
+
+		this.groupMapping = new HashMap<>(precompiled.getGroupMapping());
+		this.groupCounts = new HashMap<>(precompiled.getGroupCounts());
+		this.capturingGroupCount = precompiled.getCapturingGroupCount();
+		this.addedGroups = precompiled.hasAddedGroups();
+
+		long endTime = System.nanoTime();
+		this.refactorTime = lookupEndTime - startTime;
+		this.compileTime = endTime - lookupEndTime;
+		this.initializeGroupIndexes();
 		this.compiled = true;
+
+		PatternCache.getInstance().recordCompilation(this);
+		return true;
+	}
+
+	/**
+	 * Stores the refactored regular expression and group mappings in the
+	 * {@link PatternCache#getPersistentCache() persistent cache} (if one is set)
+	 */
+	private void storeInPersistentCache() {
+		PersistentPatternCache persistentCache = PatternCache.getInstance().getPersistentCache();
+
+		if (persistentCache != null) {
+			persistentCache.put(new PrecompiledPattern(this));
+		}
+	}
+
+	boolean isCompiled() {
+		return this.compiled;
+	}
+
+	long getRefactorTime() {
+		return this.refactorTime;
+	}
+
+	long getCompileTime() {
+		return this.compileTime;
 	}
 
 	/**
@@ -3509,26 +4368,20 @@ public final class Pattern implements Serializable {
 	 *
 	 * @param groupName
 	 *            the group name
-	 * @return the normalized group name
-	 * @throws IllegalArgumentException
-	 *             If <code>groupName</code> is a relative unnamed group (e.g.
-	 *             "[-4]"), which doesn't exist, or if <code>groupName</code> is
-	 *             an unnamed group whose index is not a parsable integer (e.g.
-	 *             "[a]")
+	 * @return the normalized group name, or <code>null</code> if <code>groupName</code> is a relative unnamed group
+	 *         (e.g. "[-4]"), which doesn't exist, or if <code>groupName</code> is an unnamed group whose index is not
+	 *         a parsable integer (e.g. "[a]")
 	 */
-	String normalizeGroupName(final String groupName) {
-		// System.out.println(groupName);
-
+	String findNormalizedGroupName(final String groupName) {
 		if (groupName.startsWith("[") && groupName.endsWith("]")) {
-			try {
-				int index = getAbsoluteGroupIndex(parseInt(groupName.substring(1, groupName.length() - 1)),
-						this.groupCount());
-				return wrapIndex(index);
-			} catch (IndexOutOfBoundsException e) {
-				throw noNamedGroup(groupName);
-			} catch (IllegalArgumentException e) {
-				throw noNamedGroup(groupName);
+			String index = groupName.substring(1, groupName.length() - 1);
+
+			if (!isParsableInt(index)) {
+				return null;
 			}
+
+			int absoluteIndex = findAbsoluteGroupIndex(Integer.parseInt(index), this.groupCount());
+			return absoluteIndex != NO_GROUP ? wrapIndex(absoluteIndex) : null;
 		}
 		// else if (groupCounts.get(groupName) == null) {
 		// try {
@@ -3569,11 +4422,16 @@ public final class Pattern implements Serializable {
 			return false;
 		}
 
-		final Matcher matcher = this.matcher(switchValue.toString());
+		MatcherPool pool = this.getMatcherPool();
+		final Matcher matcher = pool.acquire(switchValue.toString());
 		if (matcher.matches()) {
-			RegExPlusSupport.setLastMatcher(matcher);
+			// If kept as the last matcher, the matcher isn't returned to the pool
+			if (!RegExPlusSupport.trackLastMatcher(matcher)) {
+				pool.release(matcher);
+			}
 			return true;
 		} else {
+			pool.release(matcher);
 			return false;
 		}
 	}
@@ -3727,6 +4585,92 @@ public final class Pattern implements Serializable {
 		return lazyCompile(regex1 + regex2, flags1);
 	}
 
+	/**
+	 * Builds the {@link #groupIndexes} table from the group mapping and group counts (called when compiling, before
+	 * the pattern is marked as compiled).
+	 */
+	private void initializeGroupIndexes() {
+		int[][] groupIndexes = new int[this.capturingGroupCount + 1][];
+
+		for (int group = 0; group <= this.capturingGroupCount; group++) {
+			String groupName = wrapIndex(group);
+			int groupCount = this.getGroupCount(groupName);
+			int[] indexes = new int[groupCount];
+			int occurrence = 0;
+
+			while (occurrence < groupCount) {
+				Integer groupIndex = this.groupMapping.get(getMappingName(groupName, occurrence + 1));
+
+				if (groupIndex == null) {
+					break;
+				}
+
+				indexes[occurrence++] = groupIndex;
+			}
+
+			groupIndexes[group] = occurrence == groupCount ? indexes : Arrays.copyOf(indexes, occurrence);
+		}
+
+		this.groupIndexes = groupIndexes;
+		this.groupNames = this.createGroupNames();
+		this.groupRefs = new ConcurrentHashMap<>();
+		this.replacements = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Creates the reverse table, from the actual group number (in the internal pattern) to the group name (including
+	 * the occurrence, if the group name occurs more than once)
+	 */
+	private List<String> createGroupNames() {
+		int maxGroupIndex = 0;
+
+		for (Integer groupIndex : this.groupMapping.values()) {
+			maxGroupIndex = Math.max(maxGroupIndex, groupIndex);
+		}
+
+		String[] groupNames = new String[maxGroupIndex + 1];
+
+		for (Entry<String, Integer> entry : this.groupMapping.entrySet()) {
+			String mappingName = entry.getKey();
+
+			if (mappingName.charAt(0) == '[' || groupNames[entry.getValue()] != null) {
+				continue;
+			}
+
+			String groupName = mappingName.substring(0, mappingName.indexOf('['));
+			groupNames[entry.getValue()] = this.getGroupCount(groupName) == 1 ? groupName : mappingName;
+		}
+
+		return Collections.unmodifiableList(Arrays.asList(groupNames));
+	}
+
+	/**
+	 * Returns the actual group numbers (in the internal pattern) for each occurrence of the given group number.
+	 *
+	 * <p>The pattern must already be compiled. The returned array is shared, and must not be modified.</p>
+	 *
+	 * @param group
+	 *            the (absolute) group number
+	 * @return the actual group numbers, in order of occurrence (empty if the group doesn't exist)
+	 * @throws IndexOutOfBoundsException
+	 *             If <code>group</code> is greater than the group count
+	 */
+	int[] getGroupIndexes(final int group) {
+		return this.groupIndexes[group];
+	}
+
+	/**
+	 * Returns the group names, indexed by the actual group number (in the internal pattern).
+	 *
+	 * <p>The pattern must already be compiled. The returned list is an unmodifiable view of an array; groups which
+	 * aren't named have a <code>null</code> group name.</p>
+	 *
+	 * @return the group names, indexed by the actual group number
+	 */
+	List<String> getGroupNamesByIndex() {
+		return this.groupNames;
+	}
+
 	/**
 	 * Returns the actual group number (in the internal pattern) for the given
 	 * mapping name.
@@ -3948,6 +4892,10 @@ public final class Pattern implements Serializable {
 	 * Get ThreadLocal for matcher
 	 *
 	 * <p>This is to help handle the fact that the Matcher is not thread-safe</p>
+	 *
+	 * <p><b>Note</b>: each thread creates its own matcher, so the matcher isn't reused by short-lived threads (such as
+	 * virtual threads). {@link #asPredicate()} and the static convenience methods reuse matchers from a pool per
+	 * pattern, which works with any threads.</p>
 	 * @param regex The expression to be compiled
 	 * @return a ThreadLocal matcher for the specified regex
 	 * @since 1.0
@@ -3965,20 +4913,34 @@ public final class Pattern implements Serializable {
 	 */
 	// Added in Java 1.8 Pattern class
 	public Predicate<String> asPredicate() {
-		return s -> this.matcher(s).find();
+		LiteralSearcher searcher = this.getLiteralSearcher();
+
+		if (searcher != null) {
+			return s -> searcher.indexOf(s, 0) != -1;
+		}
+
+		MatcherPool pool = this.getMatcherPool();
+
+		return s -> {
+			Matcher m = pool.acquire(s);
+			try {
+				return m.find();
+			} finally {
+				pool.release(m);
+			}
+		};
 	}
 
 	/**
 	 * Creates a predicate which can be used to match a string.
 	 *
-	 * <p><b>Implementation note</b>: this method uses {@link #getThreadLocalMatcher(String)} to reuse the Matcher</p>
+	 * <p><b>Implementation note</b>: this method reuses matchers from a pool per pattern (instead of a matcher per
+	 * thread), so matchers are also reused by short-lived threads, such as virtual threads</p>
 	 * @param regex The regular expression
 	 * @return  The predicate which can be used for matching on a string
 	 * @since   1.1
 	 */
 	public static Predicate<String> asPredicate(final String regex) {
-		ThreadLocal<Matcher> matcher = getThreadLocalMatcher(regex);
-
-		return s -> matcher.get().reset(s).find();
+		return Pattern.compile(regex).asPredicate();
 	}
 }
\ No newline at end of file
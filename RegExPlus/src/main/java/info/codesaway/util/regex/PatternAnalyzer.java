@@ -0,0 +1,1188 @@
+package info.codesaway.util.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Static analysis of the internal (refactored) regular expression, used to match faster without changing the
+ * results
+ *
+ * <p>The analysis is conservative: if a construct isn't understood, the answer is the one which disables the
+ * optimization.</p>
+ */
+final class PatternAnalyzer {
+	/**
+	 * The maximum length of the literals, when expanding repeated literals
+	 */
+	private static final int MAX_LITERAL_LENGTH = 256;
+
+	private PatternAnalyzer() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Indicates whether the input can be split right after any line feed, with the matches found in each part (using
+	 * transparent bounds and without anchoring bounds) being the same as the matches found in the whole input
+	 *
+	 * <p>This is the case if no match can contain a line feed (so no match can span two parts) and the pattern
+	 * doesn't use <code>\G</code> (which depends on where the previous match ended).</p>
+	 *
+	 * @param pattern
+	 *            the internal pattern
+	 * @return <code>true</code> if the input can be split after a line feed
+	 */
+	static boolean isSplittableAtLineFeeds(final java.util.regex.Pattern pattern) {
+		String regex = pattern.pattern();
+		int flags = pattern.flags();
+
+		if ((flags & java.util.regex.Pattern.LITERAL) != 0) {
+			return regex.indexOf('\n') == -1;
+		}
+
+		if ((flags & (java.util.regex.Pattern.DOTALL | java.util.regex.Pattern.COMMENTS
+				| java.util.regex.Pattern.CANON_EQ)) != 0) {
+			return false;
+		}
+
+		int length = regex.length();
+		int classDepth = 0;
+		// The previous character in a character class (the start of a range), -1 if none, or -2 if a predefined
+		// class (such as \d)
+		int previous = -1;
+
+		for (int i = 0; i < length; i++) {
+			char c = regex.charAt(i);
+
+			if (c == '\n') {
+				return false;
+			}
+
+			if (c == '\\') {
+				if (++i == length) {
+					return false;
+				}
+
+				char escaped = regex.charAt(i);
+
+				if (escaped == 'Q' && classDepth == 0) {
+					int quoteEnd = regex.indexOf("\\E", i + 1);
+
+					if (quoteEnd == -1) {
+						quoteEnd = length;
+					}
+
+					if (regex.lastIndexOf('\n', quoteEnd) > i) {
+						return false;
+					}
+
+					i = quoteEnd + 1;
+					continue;
+				}
+
+				if (!isSafeEscape(escaped, classDepth != 0)) {
+					return false;
+				}
+
+				if (!Character.isLetterOrDigit(escaped)) {
+					previous = escaped;
+				} else {
+					int value = characterEscape(escaped);
+					previous = value != -1 ? value : -2;
+				}
+			} else if (classDepth != 0) {
+				if (c == '[') {
+					if (i + 1 < length && regex.charAt(i + 1) == '^') {
+						return false;
+					}
+
+					classDepth++;
+					previous = -1;
+				} else if (c == ']') {
+					classDepth--;
+					previous = -1;
+				} else if (c == '-' && previous != -1 && i + 1 < length && regex.charAt(i + 1) != ']') {
+					// A range, which contains a line feed if it starts at or before one
+					if (previous == -2 || previous <= '\n') {
+						return false;
+					}
+
+					previous = -1;
+				} else {
+					previous = c;
+				}
+			} else if (c == '[') {
+				if (i + 1 < length && regex.charAt(i + 1) == '^') {
+					return false;
+				}
+
+				classDepth = 1;
+				previous = -1;
+
+				if (i + 1 < length && regex.charAt(i + 1) == ']') {
+					// A leading ']' is literal
+					previous = ']';
+					i++;
+				}
+			} else if (c == '(' && i + 2 < length && regex.charAt(i + 1) == '?') {
+				// Inline flags, such as (?s) or (?i-s:...)
+				for (int j = i + 2; j < length; j++) {
+					char flag = regex.charAt(j);
+
+					if (flag == 's' || flag == 'x') {
+						return false;
+					}
+
+					if (!Character.isLetter(flag) && flag != '-') {
+						break;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the character for a safe escape sequence which is a single character (see
+	 * {@link #isSafeEscape(char, boolean)})
+	 *
+	 * @return the character, or -1 if not a single character (such as <code>\d</code>)
+	 */
+	private static int characterEscape(final char escaped) {
+		switch (escaped) {
+		case 't':
+			return '\t';
+		case 'r':
+			return '\r';
+		case 'f':
+			return '\f';
+		case 'e':
+			return '\u001B';
+		case 'a':
+			return '\u0007';
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Indicates whether the escape sequence (the character after the backslash) can't match a line feed and doesn't
+	 * depend on where the previous match ended
+	 */
+	private static boolean isSafeEscape(final char escaped, final boolean inCharacterClass) {
+		if (!Character.isLetterOrDigit(escaped)) {
+			// An escaped literal character
+			return escaped != '\n';
+		}
+
+		switch (escaped) {
+		case 'd':
+		case 'w':
+		case 't':
+		case 'r':
+		case 'f':
+		case 'e':
+		case 'a':
+			return true;
+		case 'b':
+		case 'B':
+		case 'A':
+		case 'z':
+		case 'Z':
+		case 'k':
+		case '1':
+		case '2':
+		case '3':
+		case '4':
+		case '5':
+		case '6':
+		case '7':
+		case '8':
+		case '9':
+			// Boundaries and back references
+			return !inCharacterClass;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Creates the prefilter for the internal pattern
+	 *
+	 * <p>The internal pattern is parsed to find the literal which every match starts with, a literal which every match
+	 * contains, and the possible first characters of a match. Case-insensitive matching, comments mode, and
+	 * <code>\G</code> (among others) aren't supported.</p>
+	 *
+	 * <p>There is no prefilter if the pattern has a lookahead, or a <code>$</code> or <code>\Z</code> which isn't
+	 * in multiline mode. These read past the index where a search attempt fails (to the end of the text, for
+	 * example), so skipping the attempt could change {@link java.util.regex.Matcher#hitEnd()}.</p>
+	 *
+	 * @param pattern
+	 *            the internal pattern
+	 * @return the prefilter, or <code>null</code> if the text can't be skipped
+	 */
+	static Prefilter createPrefilter(final java.util.regex.Pattern pattern) {
+		if ((pattern.flags() & (java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.COMMENTS
+				| java.util.regex.Pattern.LITERAL | java.util.regex.Pattern.CANON_EQ
+				| java.util.regex.Pattern.UNICODE_CHARACTER_CLASS)) != 0) {
+			return null;
+		}
+
+		LiteralParser parser = new LiteralParser(pattern.pattern());
+		Literals literals = parser.parse();
+
+		if (literals == null || parser.caseInsensitive || parser.lookahead) {
+			return null;
+		}
+
+		// A multiline $ only reads the character at its index (which is before the end of the text, where a search
+		// attempt is never skipped)
+		boolean multiline = (pattern.flags() & java.util.regex.Pattern.MULTILINE) != 0 && !parser.multilineFlag;
+
+		if (parser.dollar && !multiline) {
+			return null;
+		}
+
+		LiteralSearcher prefix = literals.prefix.isEmpty() ? null : new LiteralSearcher(literals.prefix, false);
+		LiteralSearcher required = literals.required.isEmpty() ? null
+				: new LiteralSearcher(literals.required, false);
+		long[] firstChars = literals.canBeEmpty ? null : literals.firstChars;
+
+		if (prefix == null && required == null && firstChars == null) {
+			return null;
+		}
+
+		return new Prefilter(prefix, required, firstChars);
+	}
+
+	/**
+	 * Finds the minimum and maximum length of a match for the internal pattern
+	 *
+	 * <p>The lengths are found by the same parser as the prefilter (quantifier bounds, alternations, and so on).
+	 * Comments mode, canonical equivalence, Unicode character classes, and <code>\G</code> (among others) aren't
+	 * supported. A back reference can match any length.</p>
+	 *
+	 * @param pattern
+	 *            the internal pattern
+	 * @return the match length, or {@link MatchLength#UNKNOWN} if the lengths can't be determined
+	 */
+	static MatchLength analyzeMatchLength(final java.util.regex.Pattern pattern) {
+		int flags = pattern.flags();
+
+		if ((flags & (java.util.regex.Pattern.COMMENTS | java.util.regex.Pattern.CANON_EQ
+				| java.util.regex.Pattern.UNICODE_CHARACTER_CLASS)) != 0) {
+			return MatchLength.UNKNOWN;
+		}
+
+		if ((flags & java.util.regex.Pattern.LITERAL) != 0) {
+			int length = pattern.pattern().length();
+			return new MatchLength(length, length, false);
+		}
+
+		LiteralParser parser = new LiteralParser(pattern.pattern());
+		Literals literals = parser.parse();
+
+		if (literals == null) {
+			return MatchLength.UNKNOWN;
+		}
+
+		return new MatchLength(literals.minLength, literals.maxLength, parser.readsAfterMatch);
+	}
+
+	/**
+	 * What's known about the text matched by part of a regular expression
+	 */
+	private static final class Literals {
+		static final Literals ZERO_WIDTH = new Literals("", "", "", null, true, 0, 0);
+		static final Literals UNKNOWN = new Literals(null, "", "", null, true, 0, MatchLength.UNBOUNDED);
+
+		/**
+		 * A grapheme cluster (<code>\X</code>), which may be any number of characters
+		 */
+		static final Literals GRAPHEME_CLUSTER = new Literals(null, "", "", null, false, 1, MatchLength.UNBOUNDED);
+
+		/**
+		 * The literal which is always matched, or <code>null</code> if it matches other text
+		 */
+		final String exact;
+
+		/**
+		 * A literal which the matched text always starts with
+		 */
+		final String prefix;
+
+		/**
+		 * A literal which the matched text always contains
+		 */
+		final String required;
+
+		/**
+		 * The possible first characters (only ASCII characters), or <code>null</code> if not known
+		 */
+		final long[] firstChars;
+
+		final boolean canBeEmpty;
+
+		/**
+		 * The minimum number of chars matched
+		 */
+		final int minLength;
+
+		/**
+		 * The maximum number of chars matched, or {@link MatchLength#UNBOUNDED} if not limited
+		 */
+		final int maxLength;
+
+		Literals(final String exact, final String prefix, final String required, final long[] firstChars,
+				final boolean canBeEmpty, final int minLength, final int maxLength) {
+			this.exact = exact;
+			this.prefix = prefix;
+			this.required = required;
+			this.firstChars = firstChars;
+			this.canBeEmpty = canBeEmpty;
+			this.minLength = minLength;
+			this.maxLength = maxLength;
+		}
+
+		static Literals literal(final String literal) {
+			long[] firstChars = null;
+			char first = literal.charAt(0);
+
+			if (first < 128) {
+				firstChars = new long[2];
+				firstChars[first >>> 6] |= 1L << first;
+			}
+
+			return new Literals(literal, literal, literal, firstChars, false, literal.length(), literal.length());
+		}
+
+		/**
+		 * A single character, from the given characters (or any character if <code>null</code>)
+		 *
+		 * <p>If not only ASCII characters, the character may be a supplementary character (two chars).</p>
+		 */
+		static Literals characterClass(final long[] firstChars) {
+			return new Literals(null, "", "", firstChars, false, 1, firstChars != null ? 1 : 2);
+		}
+
+		/**
+		 * Matched zero or more times (at most <code>max</code> times)
+		 */
+		Literals optional(final int max) {
+			return new Literals(null, "", "", this.firstChars, true, 0, times(this.maxLength, max));
+		}
+
+		/**
+		 * Matched from <code>min</code> to <code>max</code> times (<code>min</code> is at least 1)
+		 */
+		Literals repeat(final int min, final int max) {
+			boolean exactly = min == max;
+			int minLength = times(this.minLength, min);
+			int maxLength = times(this.maxLength, max);
+
+			if (this.exact == null || this.exact.isEmpty()) {
+				return new Literals(exactly ? this.exact : null, this.prefix, this.required, this.firstChars,
+						this.canBeEmpty, minLength, maxLength);
+			}
+
+			int times = Math.min(min, Math.max(1, MAX_LITERAL_LENGTH / this.exact.length()));
+			StringBuilder repeated = new StringBuilder(this.exact.length() * times);
+
+			for (int i = 0; i < times; i++) {
+				repeated.append(this.exact);
+			}
+
+			String literal = repeated.toString();
+
+			return new Literals(exactly && times == min ? literal : null, literal, literal, this.firstChars, false,
+					minLength, maxLength);
+		}
+
+		/**
+		 * Each part matched one after the other
+		 */
+		static Literals sequence(final List<Literals> parts) {
+			StringBuilder exact = new StringBuilder();
+			boolean isExact = true;
+			StringBuilder prefix = new StringBuilder();
+			boolean prefixComplete = false;
+			String required = "";
+			StringBuilder run = new StringBuilder();
+			long[] firstChars = null;
+			boolean firstCharsComplete = false;
+			boolean canBeEmpty = true;
+			int minLength = 0;
+			int maxLength = 0;
+
+			for (Literals part : parts) {
+				if (part.exact != null) {
+					if (isExact) {
+						exact.append(part.exact);
+					}
+
+					if (!prefixComplete) {
+						prefix.append(part.exact);
+					}
+
+					run.append(part.exact);
+				} else {
+					isExact = false;
+
+					if (!prefixComplete) {
+						prefix.append(part.prefix);
+						prefixComplete = true;
+					}
+
+					run.append(part.prefix);
+					required = longer(required, run.toString());
+					required = longer(required, part.required);
+					run.setLength(0);
+				}
+
+				if (!firstCharsComplete && (part.exact == null || !part.exact.isEmpty())) {
+					// The first part which may consume a character (zero-width assertions are skipped)
+					firstChars = part.canBeEmpty ? null : part.firstChars;
+					firstCharsComplete = true;
+				}
+
+				canBeEmpty &= part.canBeEmpty;
+				minLength = add(minLength, part.minLength);
+				maxLength = add(maxLength, part.maxLength);
+			}
+
+			required = longer(required, run.toString());
+
+			return new Literals(isExact ? exact.toString() : null, truncate(prefix.toString()), truncate(required),
+					firstChars, canBeEmpty, minLength, maxLength);
+		}
+
+		/**
+		 * One of the alternatives matched
+		 */
+		static Literals alternation(final List<Literals> alternatives) {
+			Literals first = alternatives.get(0);
+			String exact = first.exact;
+			String prefix = first.prefix;
+			long[] firstChars = first.firstChars == null ? null : first.firstChars.clone();
+			boolean canBeEmpty = first.canBeEmpty;
+			int minLength = first.minLength;
+			int maxLength = first.maxLength;
+
+			for (int i = 1; i < alternatives.size(); i++) {
+				Literals alternative = alternatives.get(i);
+
+				if (exact != null && !exact.equals(alternative.exact)) {
+					exact = null;
+				}
+
+				int length = 0;
+				while (length < prefix.length() && length < alternative.prefix.length()
+						&& prefix.charAt(length) == alternative.prefix.charAt(length)) {
+					length++;
+				}
+				prefix = prefix.substring(0, length);
+
+				if (firstChars != null && alternative.firstChars != null) {
+					firstChars[0] |= alternative.firstChars[0];
+					firstChars[1] |= alternative.firstChars[1];
+				} else {
+					firstChars = null;
+				}
+
+				canBeEmpty |= alternative.canBeEmpty;
+				minLength = Math.min(minLength, alternative.minLength);
+				maxLength = Math.max(maxLength, alternative.maxLength);
+			}
+
+			return new Literals(exact, prefix, exact != null ? exact : prefix, firstChars, canBeEmpty, minLength,
+					maxLength);
+		}
+
+		/**
+		 * Adds the lengths (the sum is {@link MatchLength#UNBOUNDED} if too long)
+		 */
+		private static int add(final int length1, final int length2) {
+			return (int) Math.min((long) length1 + length2, MatchLength.UNBOUNDED);
+		}
+
+		/**
+		 * Multiplies the length by the number of times (the product is {@link MatchLength#UNBOUNDED} if too long)
+		 */
+		private static int times(final int length, final int times) {
+			if (length == 0 || times == 0) {
+				return 0;
+			}
+
+			return (int) Math.min((long) length * times, MatchLength.UNBOUNDED);
+		}
+
+		private static String longer(final String literal1, final String literal2) {
+			return literal2.length() > literal1.length() ? literal2 : literal1;
+		}
+
+		private static String truncate(final String literal) {
+			return literal.length() > MAX_LITERAL_LENGTH ? literal.substring(0, MAX_LITERAL_LENGTH) : literal;
+		}
+	}
+
+	/**
+	 * Parses a Java regular expression, to find the literals (see {@link Literals})
+	 *
+	 * <p>If the regular expression uses a construct which isn't supported, parsing fails (and no literals are
+	 * found).</p>
+	 */
+	private static final class LiteralParser {
+		private final String regex;
+		private final int length;
+		private int index;
+		private boolean failed;
+
+		/**
+		 * Whether case-insensitive matching is turned on by an inline flag (the literals are then not known, but the
+		 * lengths are)
+		 */
+		boolean caseInsensitive;
+
+		/**
+		 * Whether the regular expression may look at the text after a match
+		 */
+		boolean readsAfterMatch;
+
+		/**
+		 * Whether the regular expression has a lookahead
+		 */
+		boolean lookahead;
+
+		/**
+		 * Whether the regular expression has a <code>$</code> or <code>\Z</code>
+		 */
+		boolean dollar;
+
+		/**
+		 * Whether multiline mode is turned on or off by an inline flag
+		 */
+		boolean multilineFlag;
+
+		LiteralParser(final String regex) {
+			this.regex = regex;
+			this.length = regex.length();
+		}
+
+		/**
+		 * Parses the regular expression
+		 *
+		 * @return the literals, or <code>null</code> if parsing failed
+		 */
+		Literals parse() {
+			Literals literals = this.parseAlternation();
+
+			return this.failed || this.index != this.length ? null : literals;
+		}
+
+		private Literals fail() {
+			this.failed = true;
+			this.index = this.length;
+			return Literals.UNKNOWN;
+		}
+
+		private boolean hasNext() {
+			return this.index < this.length;
+		}
+
+		private char peek() {
+			return this.regex.charAt(this.index);
+		}
+
+		private boolean startsWith(final String prefix) {
+			return this.regex.startsWith(prefix, this.index);
+		}
+
+		private Literals parseAlternation() {
+			List<Literals> alternatives = new ArrayList<>();
+			alternatives.add(this.parseSequence());
+
+			while (this.hasNext() && this.peek() == '|') {
+				this.index++;
+				alternatives.add(this.parseSequence());
+			}
+
+			return alternatives.size() == 1 ? alternatives.get(0) : Literals.alternation(alternatives);
+		}
+
+		private Literals parseSequence() {
+			List<Literals> parts = new ArrayList<>();
+
+			while (this.hasNext() && this.peek() != '|' && this.peek() != ')') {
+				if (this.startsWith("\\Q")) {
+					// Each quoted character is a separate part (a quantifier only applies to the last one)
+					int quoteEnd = this.regex.indexOf("\\E", this.index + 2);
+					String quoted = this.regex.substring(this.index + 2, quoteEnd == -1 ? this.length : quoteEnd);
+					this.index = quoteEnd == -1 ? this.length : quoteEnd + 2;
+
+					if (quoted.isEmpty()) {
+						return this.fail();
+					}
+
+					for (int i = 0; i < quoted.length() - 1; i++) {
+						parts.add(Literals.literal(String.valueOf(quoted.charAt(i))));
+					}
+
+					parts.add(this.parseQuantifier(Literals.literal(quoted.substring(quoted.length() - 1))));
+				} else {
+					parts.add(this.parseQuantifier(this.parseAtom()));
+				}
+
+				if (this.failed) {
+					return Literals.UNKNOWN;
+				}
+			}
+
+			return Literals.sequence(parts);
+		}
+
+		private Literals parseAtom() {
+			char c = this.peek();
+
+			switch (c) {
+			case '(':
+				return this.parseGroup();
+			case '[':
+				return Literals.characterClass(this.parseCharacterClass());
+			case '.':
+				this.index++;
+				return Literals.characterClass(null);
+			case '$':
+				this.readsAfterMatch = true;
+				this.dollar = true;
+				this.index++;
+				return Literals.ZERO_WIDTH;
+			case '^':
+				this.index++;
+				return Literals.ZERO_WIDTH;
+			case '\\':
+				return this.parseEscape();
+			case '*':
+			case '+':
+			case '?':
+			case '{':
+				return this.fail();
+			default:
+				if (Character.isHighSurrogate(c) && this.index + 1 < this.length
+						&& Character.isLowSurrogate(this.regex.charAt(this.index + 1))) {
+					this.index += 2;
+					return Literals.literal(this.regex.substring(this.index - 2, this.index));
+				}
+
+				this.index++;
+				return Literals.literal(String.valueOf(c));
+			}
+		}
+
+		private Literals parseGroup() {
+			// Skip '('
+			this.index++;
+			boolean lookaround = false;
+
+			if (this.hasNext() && this.peek() == '?') {
+				this.index++;
+
+				if (this.startsWith(":") || this.startsWith(">") || this.startsWith("=") || this.startsWith("!")) {
+					lookaround = this.peek() == '=' || this.peek() == '!';
+					this.readsAfterMatch |= lookaround;
+					this.lookahead |= lookaround;
+					this.index++;
+				} else if (this.startsWith("<=") || this.startsWith("<!")) {
+					lookaround = true;
+					this.index += 2;
+				} else if (this.startsWith("<")) {
+					// Named group
+					int nameEnd = this.regex.indexOf('>', this.index);
+
+					if (nameEnd == -1) {
+						return this.fail();
+					}
+
+					this.index = nameEnd + 1;
+				} else {
+					// Inline flags, such as (?m) or (?m:X)
+					while (this.hasNext() && (Character.isLetter(this.peek()) || this.peek() == '-')) {
+						char flag = this.peek();
+
+						if (flag == 'i') {
+							this.caseInsensitive = true;
+						} else if (flag == 'm') {
+							this.multilineFlag = true;
+						} else if (flag != 's' && flag != 'd' && flag != 'u' && flag != '-') {
+							// Comments or Unicode character classes
+							return this.fail();
+						}
+
+						this.index++;
+					}
+
+					if (!this.hasNext()) {
+						return this.fail();
+					}
+
+					if (this.peek() == ')') {
+						this.index++;
+						return Literals.ZERO_WIDTH;
+					}
+
+					if (this.peek() != ':') {
+						return this.fail();
+					}
+
+					this.index++;
+				}
+			}
+
+			Literals group = this.parseAlternation();
+
+			if (!this.hasNext() || this.peek() != ')') {
+				return this.fail();
+			}
+
+			this.index++;
+
+			// A lookaround doesn't consume any characters
+			return lookaround ? Literals.ZERO_WIDTH : group;
+		}
+
+		private Literals parseQuantifier(final Literals atom) {
+			if (!this.hasNext() || this.failed) {
+				return atom;
+			}
+
+			Literals quantified;
+
+			switch (this.peek()) {
+			case '?':
+				this.index++;
+				quantified = atom.optional(1);
+				break;
+			case '*':
+				this.index++;
+				quantified = atom.optional(MatchLength.UNBOUNDED);
+				break;
+			case '+':
+				this.index++;
+				quantified = atom.repeat(1, MatchLength.UNBOUNDED);
+				break;
+			case '{':
+				int close = this.regex.indexOf('}', this.index);
+
+				if (close == -1) {
+					return this.fail();
+				}
+
+				String bounds = this.regex.substring(this.index + 1, close);
+				int comma = bounds.indexOf(',');
+				String minString = comma == -1 ? bounds : bounds.substring(0, comma);
+
+				if (!RefactorUtility.isParsableInt(minString)
+						|| comma != -1 && comma + 1 < bounds.length()
+								&& !RefactorUtility.isParsableInt(bounds.substring(comma + 1))) {
+					return this.fail();
+				}
+
+				int min = Integer.parseInt(minString);
+				int max;
+
+				if (comma == -1) {
+					max = min;
+				} else if (comma + 1 == bounds.length()) {
+					max = MatchLength.UNBOUNDED;
+				} else {
+					max = Integer.parseInt(bounds.substring(comma + 1));
+				}
+
+				this.index = close + 1;
+				quantified = min == 0 ? atom.optional(max) : atom.repeat(min, max);
+				break;
+			default:
+				return atom;
+			}
+
+			// Lazy or possessive quantifier
+			if (this.hasNext() && (this.peek() == '?' || this.peek() == '+')) {
+				this.index++;
+			}
+
+			return quantified;
+		}
+
+		private Literals parseEscape() {
+			// Skip '\'
+			this.index++;
+
+			if (!this.hasNext()) {
+				return this.fail();
+			}
+
+			char c = this.peek();
+			this.index++;
+
+			switch (c) {
+			case 'd':
+				return Literals.characterClass(range(new long[2], '0', '9'));
+			case 'w':
+				return Literals.characterClass(wordCharacters(new long[2]));
+			case 's':
+			case 'S':
+			case 'D':
+			case 'W':
+			case 'h':
+			case 'H':
+			case 'v':
+			case 'V':
+			case 'R':
+				// \R may match "\r\n", which is the same length as a supplementary character
+				return Literals.characterClass(null);
+			case 'X':
+				return Literals.GRAPHEME_CLUSTER;
+			case 'p':
+			case 'P':
+			case 'N':
+				this.skipBraces(c != 'N');
+				return Literals.characterClass(null);
+			case 'b':
+				if (this.startsWith("{")) {
+					this.skipBraces(false);
+				}
+				this.readsAfterMatch = true;
+				return Literals.ZERO_WIDTH;
+			case 'B':
+			case 'z':
+				this.readsAfterMatch = true;
+				return Literals.ZERO_WIDTH;
+			case 'Z':
+				this.readsAfterMatch = true;
+				this.dollar = true;
+				return Literals.ZERO_WIDTH;
+			case 'A':
+				return Literals.ZERO_WIDTH;
+			case 'k':
+				int nameEnd = this.regex.indexOf('>', this.index);
+
+				if (nameEnd == -1) {
+					return this.fail();
+				}
+
+				this.index = nameEnd + 1;
+				return Literals.UNKNOWN;
+			default:
+				if (c >= '1' && c <= '9') {
+					// Back reference (more digits may or may not be part of the group number)
+					if (this.hasNext() && this.peek() >= '0' && this.peek() <= '9') {
+						return this.fail();
+					}
+
+					return Literals.UNKNOWN;
+				}
+
+				int value = this.parseCharacterEscape(c);
+
+				return value == -1 ? this.fail() : Literals.literal(new String(Character.toChars(value)));
+			}
+		}
+
+		/**
+		 * Parses an escaped character (the index is after the character following the backslash)
+		 *
+		 * @return the character's code point, or -1 if not supported
+		 */
+		private int parseCharacterEscape(final char c) {
+			switch (c) {
+			case 't':
+				return '\t';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 'f':
+				return '\f';
+			case 'a':
+				return '\u0007';
+			case 'e':
+				return '\u001B';
+			case 'c':
+				if (!this.hasNext()) {
+					return -1;
+				}
+
+				return this.regex.charAt(this.index++) ^ 64;
+			case '0':
+				int octal = 0;
+				int digits = 0;
+
+				while (this.hasNext() && digits < 3 && this.peek() >= '0' && this.peek() <= '7'
+						&& octal * 8 + this.peek() - '0' <= 0377) {
+					octal = octal * 8 + this.regex.charAt(this.index++) - '0';
+					digits++;
+				}
+
+				return digits == 0 ? -1 : octal;
+			case 'x':
+				if (this.startsWith("{")) {
+					int close = this.regex.indexOf('}', this.index);
+					return close == -1 ? -1 : this.parseHex(this.index + 1, close, close + 1);
+				}
+
+				return this.parseHex(this.index, this.index + 2, this.index + 2);
+			case 'u':
+				return this.parseHex(this.index, this.index + 4, this.index + 4);
+			default:
+				if (Character.isLetterOrDigit(c)) {
+					return -1;
+				}
+
+				return c;
+			}
+		}
+
+		/**
+		 * Parses the hexadecimal digits from <code>start</code> to <code>end</code>, and then moves to
+		 * <code>next</code>
+		 *
+		 * @return the code point, or -1 if not valid
+		 */
+		private int parseHex(final int start, final int end, final int next) {
+			if (end > this.length || start == end || end - start > 6) {
+				return -1;
+			}
+
+			int value = 0;
+
+			for (int i = start; i < end; i++) {
+				int digit = Character.digit(this.regex.charAt(i), 16);
+
+				if (digit == -1) {
+					return -1;
+				}
+
+				value = value * 16 + digit;
+			}
+
+			if (value > Character.MAX_CODE_POINT) {
+				return -1;
+			}
+
+			this.index = next;
+			return value;
+		}
+
+		/**
+		 * Skips an optional (or required) part in braces, such as in <code>\p{Alpha}</code>
+		 */
+		private void skipBraces(final boolean optional) {
+			if (this.startsWith("{")) {
+				int close = this.regex.indexOf('}', this.index);
+
+				if (close == -1) {
+					this.fail();
+				} else {
+					this.index = close + 1;
+				}
+			} else if (optional && this.hasNext()) {
+				// Single letter, such as \pL
+				this.index++;
+			} else {
+				this.fail();
+			}
+		}
+
+		/**
+		 * Parses a character class
+		 *
+		 * @return the characters in the class (if only ASCII characters), or <code>null</code> if not known
+		 */
+		private long[] parseCharacterClass() {
+			// Skip '['
+			this.index++;
+
+			long[] characters = new long[2];
+			boolean known = true;
+
+			if (this.hasNext() && this.peek() == '^') {
+				known = false;
+				this.index++;
+			}
+
+			boolean firstItem = true;
+
+			while (true) {
+				if (!this.hasNext()) {
+					this.fail();
+					return null;
+				}
+
+				char c = this.peek();
+
+				if (c == ']' && !firstItem) {
+					this.index++;
+					break;
+				}
+
+				firstItem = false;
+
+				if (c == '[') {
+					// Nested class (union)
+					long[] nested = this.parseCharacterClass();
+
+					if (nested == null) {
+						known = false;
+					} else {
+						characters[0] |= nested[0];
+						characters[1] |= nested[1];
+					}
+
+					continue;
+				}
+
+				if (c == '&' && this.startsWith("&&")) {
+					// Intersection
+					known = false;
+					this.index += 2;
+					continue;
+				}
+
+				int start = this.parseClassCharacter(characters);
+
+				if (this.failed) {
+					return null;
+				}
+
+				if (start == -1) {
+					// Predefined class, such as \d
+					known = false;
+					continue;
+				}
+
+				if (start == -2) {
+					// Added to the characters
+					continue;
+				}
+
+				int end = start;
+
+				if (this.startsWith("-") && this.index + 1 < this.length && this.regex.charAt(this.index + 1) != ']'
+						&& this.regex.charAt(this.index + 1) != '[') {
+					this.index++;
+					end = this.parseClassCharacter(null);
+
+					if (this.failed || end < start) {
+						this.fail();
+						return null;
+					}
+				}
+
+				if (end >= 128) {
+					known = false;
+				} else {
+					range(characters, start, end);
+				}
+			}
+
+			return known ? characters : null;
+		}
+
+		/**
+		 * Parses a character (or predefined class) in a character class
+		 *
+		 * @param characters
+		 *            the characters to add predefined classes to, or <code>null</code> if a single character is
+		 *            required (the end of a range)
+		 * @return the code point, -2 if a predefined class was added to the characters, or -1 if a predefined class
+		 *         couldn't be added
+		 */
+		private int parseClassCharacter(final long[] characters) {
+			char c = this.regex.charAt(this.index++);
+
+			if (c != '\\') {
+				if (Character.isHighSurrogate(c) && this.hasNext() && Character.isLowSurrogate(this.peek())) {
+					return Character.toCodePoint(c, this.regex.charAt(this.index++));
+				}
+
+				return c;
+			}
+
+			if (!this.hasNext()) {
+				this.fail();
+				return -1;
+			}
+
+			char escaped = this.regex.charAt(this.index++);
+
+			if (characters != null) {
+				switch (escaped) {
+				case 'd':
+					range(characters, '0', '9');
+					return -2;
+				case 'w':
+					wordCharacters(characters);
+					return -2;
+				case 's':
+				case 'S':
+				case 'D':
+				case 'W':
+				case 'h':
+				case 'H':
+				case 'v':
+				case 'V':
+					return -1;
+				case 'p':
+				case 'P':
+					this.skipBraces(true);
+					return -1;
+				case 'Q':
+					int quoteEnd = this.regex.indexOf("\\E", this.index);
+
+					if (quoteEnd == -1) {
+						this.fail();
+						return -1;
+					}
+
+					for (int i = this.index; i < quoteEnd; i++) {
+						char quoted = this.regex.charAt(i);
+
+						if (quoted >= 128) {
+							this.index = quoteEnd + 2;
+							return -1;
+						}
+
+						range(characters, quoted, quoted);
+					}
+
+					this.index = quoteEnd + 2;
+					return -2;
+				default:
+					break;
+				}
+			}
+
+			int value = this.parseCharacterEscape(escaped);
+
+			if (value == -1) {
+				this.fail();
+			}
+
+			return value;
+		}
+
+		private static long[] range(final long[] characters, final int start, final int end) {
+			for (int c = start; c <= end; c++) {
+				characters[c >>> 6] |= 1L << c;
+			}
+
+			return characters;
+		}
+
+		private static long[] wordCharacters(final long[] characters) {
+			range(characters, 'a', 'z');
+			range(characters, 'A', 'Z');
+			range(characters, '0', '9');
+			return range(characters, '_', '_');
+		}
+	}
+}
@@ -0,0 +1,852 @@
+package info.codesaway.util.regex;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import info.codesaway.util.regex.PatternCacheStats.PatternStats;
+
+/**
+ * The cache used by {@link Pattern#compile(String, int)}, {@link Pattern#valueOf(java.util.regex.Pattern)}, and the
+ * static convenience methods, such as {@link Pattern#matches(String, CharSequence)}.
+ *
+ * <p>Lookups never lock. By default, the cache is unbounded (the same as in previous versions). A maximum size
+ * (number of patterns) and / or a maximum weight (total length of the cached regular expressions) can be set, in which
+ * case patterns are evicted based on the {@link EvictionPolicy}.</p>
+ *
+ * <pre><code>PatternCache.getInstance()
+ *     .setMaximumSize(10_000)
+ *     .setEvictionPolicy(PatternCache.EvictionPolicy.LRU);</code></pre>
+ *
+ * <p>Evicting a pattern only removes it from the cache; the <code>Pattern</code> itself remains valid and usable.</p>
+ *
+ * <p>If multiple threads compile the same uncached pattern at the same time, only the first thread compiles it. The
+ * other threads wait for that compilation and receive the same <code>Pattern</code> (or the same
+ * {@link PatternSyntaxException}).</p>
+ *
+ * @since 2.1
+ */
+public final class PatternCache {
+	/**
+	 * Value used for the maximum size / weight when the cache is unbounded
+	 */
+	public static final long UNBOUNDED = Long.MAX_VALUE;
+
+	/**
+	 * Determines which pattern to remove when the cache exceeds its bounds
+	 *
+	 * @since 2.1
+	 */
+	public enum EvictionPolicy {
+		/**
+		 * Evicts the least recently used pattern
+		 *
+		 * <p>Recency is approximated (without locking lookups), by giving each pattern used since it was last
+		 * considered for eviction a second chance.</p>
+		 */
+		LRU,
+
+		/**
+		 * Evicts the least frequently used pattern
+		 *
+		 * <p>Frequencies are aged (halved each time the pattern is considered for eviction), so patterns which were
+		 * used frequently in the past, but no longer are, are eventually evicted. A newly cached pattern starts with
+		 * a frequency of 1, and is considered for eviction after the patterns cached before it.</p>
+		 */
+		LFU,
+
+		/**
+		 * Holds patterns using soft references, so the garbage collector can reclaim them in response to memory demand
+		 *
+		 * <p>If a maximum size or weight is set, the least recently used pattern is evicted when the cache exceeds its
+		 * bounds.</p>
+		 */
+		SOFT,
+
+		/**
+		 * Holds patterns using weak references, so patterns are removed once they are no longer referenced outside of
+		 * the cache
+		 *
+		 * <p>If a maximum size or weight is set, the least recently used pattern is evicted when the cache exceeds its
+		 * bounds.</p>
+		 */
+		WEAK
+	}
+
+	private static final PatternCache INSTANCE = new PatternCache();
+
+	/**
+	 * Minimum number of removed entries before the eviction queue is purged
+	 */
+	private static final int MINIMUM_PURGE_SIZE = 64;
+
+	private final ConcurrentHashMap<PatternCacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * The cached entries, in the order they are considered for eviction
+	 *
+	 * <p>Entries are added when cached, and moved to the end when given another chance. Removed entries are skipped
+	 * (and purged once they outnumber the cached entries).</p>
+	 */
+	private final ConcurrentLinkedQueue<CacheEntry> evictionQueue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Number of entries removed since the eviction queue was last purged
+	 */
+	private final AtomicLong removedEntries = new AtomicLong();
+
+	/**
+	 * Patterns currently being compiled
+	 */
+	private final ConcurrentHashMap<PatternCacheKey, Compilation> compilations = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of times a thread waited for another thread's compilation, instead of compiling the pattern itself
+	 */
+	private final AtomicLong duplicateCompilationsAvoided = new AtomicLong();
+
+	/**
+	 * Queue of soft / weak references whose pattern was cleared by the garbage collector
+	 */
+	private final ReferenceQueue<Pattern> referenceQueue = new ReferenceQueue<>();
+
+	/**
+	 * Lock held when evicting patterns (never held during lookups)
+	 */
+	private final Object evictionLock = new Object();
+
+	/**
+	 * The total weight of the cached patterns
+	 */
+	private final AtomicLong weight = new AtomicLong();
+
+	/* Statistics */
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder compileCount = new LongAdder();
+	private final LongAdder totalRefactorTime = new LongAdder();
+	private final LongAdder totalCompileTime = new LongAdder();
+
+	private final List<PatternCompileListener> compileListeners = new CopyOnWriteArrayList<>();
+
+	private volatile long maximumSize = UNBOUNDED;
+	private volatile long maximumWeight = UNBOUNDED;
+	private volatile EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+	private volatile PersistentPatternCache persistentCache;
+
+	private PatternCache() {
+	}
+
+	/**
+	 * Returns the pattern cache used by {@link Pattern}
+	 *
+	 * @return the pattern cache
+	 */
+	public static PatternCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the maximum number of patterns to cache
+	 *
+	 * @return the maximum number of patterns to cache, or {@link #UNBOUNDED}
+	 */
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Sets the maximum number of patterns to cache
+	 *
+	 * <p>If the cache currently holds more patterns, patterns are evicted until it is within its bounds.</p>
+	 *
+	 * @param maximumSize
+	 *            the maximum number of patterns to cache, or {@link #UNBOUNDED}
+	 * @return this pattern cache
+	 * @throws IllegalArgumentException
+	 *             If <code>maximumSize</code> is negative
+	 */
+	public PatternCache setMaximumSize(final long maximumSize) {
+		if (maximumSize < 0) {
+			throw new IllegalArgumentException("Maximum size cannot be negative: " + maximumSize);
+		}
+
+		this.maximumSize = maximumSize;
+		this.evictIfNecessary();
+		return this;
+	}
+
+	/**
+	 * Returns the maximum total weight of the cached patterns
+	 *
+	 * @return the maximum total weight of the cached patterns, or {@link #UNBOUNDED}
+	 * @see #setMaximumWeight(long)
+	 */
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Sets the maximum total weight of the cached patterns
+	 *
+	 * <p>The weight of a pattern is the length of its regular expression (with a minimum of 1), which roughly tracks
+	 * the memory used by the compiled pattern.</p>
+	 *
+	 * <p>If the cache currently exceeds this weight, patterns are evicted until it is within its bounds.</p>
+	 *
+	 * @param maximumWeight
+	 *            the maximum total weight, or {@link #UNBOUNDED}
+	 * @return this pattern cache
+	 * @throws IllegalArgumentException
+	 *             If <code>maximumWeight</code> is negative
+	 */
+	public PatternCache setMaximumWeight(final long maximumWeight) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("Maximum weight cannot be negative: " + maximumWeight);
+		}
+
+		this.maximumWeight = maximumWeight;
+		this.evictIfNecessary();
+		return this;
+	}
+
+	/**
+	 * Returns the eviction policy
+	 *
+	 * @return the eviction policy
+	 */
+	public EvictionPolicy getEvictionPolicy() {
+		return this.evictionPolicy;
+	}
+
+	/**
+	 * Sets the eviction policy
+	 *
+	 * <p><b>Note</b>: changing the eviction policy clears the cache.</p>
+	 *
+	 * @param evictionPolicy
+	 *            the eviction policy
+	 * @return this pattern cache
+	 */
+	public PatternCache setEvictionPolicy(final EvictionPolicy evictionPolicy) {
+		if (evictionPolicy == null) {
+			throw new NullPointerException("evictionPolicy");
+		}
+
+		synchronized (this.evictionLock) {
+			if (this.evictionPolicy != evictionPolicy) {
+				this.evictionPolicy = evictionPolicy;
+				this.clear();
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * Returns the persistent cache
+	 *
+	 * @return the persistent cache, or <code>null</code> if none is set
+	 */
+	public PersistentPatternCache getPersistentCache() {
+		return this.persistentCache;
+	}
+
+	/**
+	 * Sets the persistent cache, which stores refactored regular expressions on disk, so patterns compiled by a
+	 * previous run don't need to be refactored again
+	 *
+	 * <p>The persistent cache is only used when compiling a pattern; it doesn't change which patterns are kept in this
+	 * cache.</p>
+	 *
+	 * @param persistentCache
+	 *            the persistent cache, or <code>null</code> to stop using a persistent cache
+	 * @return this pattern cache
+	 */
+	public PatternCache setPersistentCache(final PersistentPatternCache persistentCache) {
+		this.persistentCache = persistentCache;
+		return this;
+	}
+
+	/**
+	 * Returns the number of cached patterns
+	 *
+	 * <p>When using {@link EvictionPolicy#SOFT} or {@link EvictionPolicy#WEAK}, this includes patterns which were
+	 * reclaimed by the garbage collector, but not yet removed from the cache.</p>
+	 *
+	 * @return the number of cached patterns
+	 */
+	public long size() {
+		return this.entries.mappingCount();
+	}
+
+	/**
+	 * Returns the total weight of the cached patterns
+	 *
+	 * @return the total weight of the cached patterns
+	 * @see #setMaximumWeight(long)
+	 */
+	public long weight() {
+		return this.weight.get();
+	}
+
+	/**
+	 * Returns the number of times a thread used the result of another thread's in-progress compilation, instead of
+	 * compiling the same pattern itself
+	 *
+	 * @return the number of duplicate compilations avoided
+	 */
+	public long duplicateCompilationsAvoided() {
+		return this.duplicateCompilationsAvoided.get();
+	}
+
+	/**
+	 * Returns a snapshot of the cache statistics
+	 *
+	 * <p>The per-pattern statistics include each cached pattern which has been compiled (lazily compiled patterns are
+	 * included once they compile).</p>
+	 *
+	 * @return a snapshot of the cache statistics
+	 */
+	public PatternCacheStats stats() {
+		List<PatternStats> patternStats = new ArrayList<>();
+
+		for (CacheEntry entry : this.entries.values()) {
+			Pattern pattern = entry.getPattern();
+
+			if (pattern != null && pattern.isCompiled()) {
+				patternStats.add(new PatternStats(pattern));
+			}
+		}
+
+		patternStats.sort(Comparator.comparingLong(PatternStats::refactorTime).reversed());
+
+		return new PatternCacheStats(this.hitCount.sum(), this.missCount.sum(), this.evictionCount.sum(),
+				this.compileCount.sum(), this.totalRefactorTime.sum(), this.totalCompileTime.sum(),
+				this.duplicateCompilationsAvoided.get(), this.size(), this.weight(), patternStats);
+	}
+
+	/**
+	 * Resets the hit, miss, eviction and compile statistics to zero
+	 */
+	public void resetStats() {
+		this.hitCount.reset();
+		this.missCount.reset();
+		this.evictionCount.reset();
+		this.compileCount.reset();
+		this.totalRefactorTime.reset();
+		this.totalCompileTime.reset();
+		this.duplicateCompilationsAvoided.set(0);
+	}
+
+	/**
+	 * Adds a listener which is notified each time a pattern is compiled
+	 *
+	 * @param listener
+	 *            the listener
+	 */
+	public void addCompileListener(final PatternCompileListener listener) {
+		if (listener == null) {
+			throw new NullPointerException("listener");
+		}
+
+		this.compileListeners.add(listener);
+	}
+
+	/**
+	 * Removes the listener
+	 *
+	 * @param listener
+	 *            the listener
+	 * @return <code>true</code> if the listener was removed
+	 */
+	public boolean removeCompileListener(final PatternCompileListener listener) {
+		return this.compileListeners.remove(listener);
+	}
+
+	/**
+	 * Records that the pattern was compiled (called by {@link Pattern} when compiling, whether or not the pattern is
+	 * cached)
+	 *
+	 * @param pattern
+	 *            the compiled pattern
+	 */
+	void recordCompilation(final Pattern pattern) {
+		this.compileCount.increment();
+		this.totalRefactorTime.add(pattern.getRefactorTime());
+		this.totalCompileTime.add(pattern.getCompileTime());
+
+		if (!this.compileListeners.isEmpty()) {
+			PatternStats stats = new PatternStats(pattern);
+
+			for (PatternCompileListener listener : this.compileListeners) {
+				listener.patternCompiled(stats);
+			}
+		}
+	}
+
+	/**
+	 * Removes all patterns from the cache
+	 */
+	public void clear() {
+		for (CacheEntry entry : this.entries.values()) {
+			// Only removes the entry (not one added concurrently for the same key)
+			this.remove(entry);
+		}
+
+		// Release the removed entries (and their patterns) held by the eviction queue
+		this.purgeEvictionQueue();
+	}
+
+	/**
+	 * Returns the cached pattern
+	 *
+	 * @param regex
+	 *            the regular expression
+	 * @param flags
+	 *            the flags
+	 * @return the cached pattern, or <code>null</code> if the pattern is not cached
+	 */
+	Pattern get(final String regex, final int flags) {
+		return this.get(new PatternCacheKey(regex, flags));
+	}
+
+	Pattern get(final PatternCacheKey key) {
+		Pattern pattern = this.lookup(key);
+
+		if (pattern != null) {
+			this.hitCount.increment();
+		} else {
+			this.missCount.increment();
+		}
+
+		return pattern;
+	}
+
+	/**
+	 * Returns the cached pattern, without recording a hit or miss
+	 */
+	private Pattern lookup(final PatternCacheKey key) {
+		CacheEntry entry = this.entries.get(key);
+
+		if (entry == null) {
+			return null;
+		}
+
+		Pattern pattern = entry.getPattern();
+
+		if (pattern == null) {
+			// Pattern was reclaimed by the garbage collector
+			this.evict(entry);
+			return null;
+		}
+
+		entry.recordAccess();
+		return pattern;
+	}
+
+	/**
+	 * Caches the pattern, unless a pattern is already cached for the key
+	 *
+	 * @param key
+	 *            the key
+	 * @param pattern
+	 *            the pattern to cache
+	 * @return the cached pattern (either <code>pattern</code> or the pattern which was already cached)
+	 */
+	Pattern putIfAbsent(final PatternCacheKey key, final Pattern pattern) {
+		this.expungeReclaimedEntries();
+
+		CacheEntry newEntry = new CacheEntry(key, pattern, this.evictionPolicy, this.referenceQueue);
+
+		while (true) {
+			CacheEntry existingEntry = this.entries.putIfAbsent(key, newEntry);
+
+			if (existingEntry == null) {
+				this.weight.addAndGet(newEntry.weight);
+				this.evictionQueue.offer(newEntry);
+				this.evictIfNecessary();
+				return pattern;
+			}
+
+			Pattern existingPattern = existingEntry.getPattern();
+
+			if (existingPattern != null) {
+				existingEntry.recordAccess();
+				return existingPattern;
+			}
+
+			// Existing pattern was reclaimed by the garbage collector, so replace it
+			this.evict(existingEntry);
+		}
+	}
+
+	/**
+	 * Returns the cached pattern, compiling and caching it if necessary
+	 *
+	 * <p>If another thread is already compiling the pattern, waits for that compilation to complete, instead of
+	 * compiling the pattern again.</p>
+	 *
+	 * @param key
+	 *            the key
+	 * @param compiler
+	 *            compiles the pattern, if it is not cached
+	 * @return the cached pattern
+	 * @throws PatternSyntaxException
+	 *             If the expression's syntax is invalid
+	 */
+	Pattern getOrCompile(final PatternCacheKey key, final Supplier<Pattern> compiler) {
+		Pattern cachedPattern = this.get(key);
+
+		if (cachedPattern != null) {
+			return cachedPattern;
+		}
+
+		Compilation compilation = new Compilation();
+		Compilation existingCompilation = this.compilations.putIfAbsent(key, compilation);
+
+		if (existingCompilation != null) {
+			if (existingCompilation.thread == Thread.currentThread()) {
+				// Compiling the pattern requires the same pattern (don't wait on ourselves)
+				return compiler.get();
+			}
+
+			this.duplicateCompilationsAvoided.incrementAndGet();
+			return existingCompilation.getPattern();
+		}
+
+		try {
+			// Check again, in case another thread cached the pattern before this compilation was registered
+			Pattern pattern = this.lookup(key);
+
+			if (pattern == null) {
+				pattern = this.putIfAbsent(key, compiler.get());
+			}
+
+			compilation.complete(pattern);
+			return pattern;
+		} catch (RuntimeException | Error e) {
+			compilation.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.compilations.remove(key, compilation);
+		}
+	}
+
+	private boolean remove(final CacheEntry entry) {
+		if (this.entries.remove(entry.key, entry)) {
+			entry.removed = true;
+			this.weight.addAndGet(-entry.weight);
+			this.removedEntries.incrementAndGet();
+			return true;
+		}
+
+		return false;
+	}
+
+	private void evict(final CacheEntry entry) {
+		if (this.remove(entry)) {
+			this.evictionCount.increment();
+		}
+	}
+
+	private void expungeReclaimedEntries() {
+		Reference<? extends Pattern> reference;
+
+		while ((reference = this.referenceQueue.poll()) != null) {
+			this.evict(((EntryReference) reference).getEntry());
+		}
+	}
+
+	private boolean exceedsBounds() {
+		return this.entries.mappingCount() > this.maximumSize || this.weight.get() > this.maximumWeight;
+	}
+
+	private void evictIfNecessary() {
+		if (this.exceedsBounds()) {
+			synchronized (this.evictionLock) {
+				while (this.exceedsBounds()) {
+					CacheEntry victim = this.findVictim();
+
+					if (victim == null) {
+						break;
+					}
+
+					this.evict(victim);
+				}
+			}
+		}
+
+		if (this.removedEntries.get() > Math.max(this.entries.mappingCount(), MINIMUM_PURGE_SIZE)) {
+			this.purgeEvictionQueue();
+		}
+	}
+
+	/**
+	 * Finds the entry to evict, based on the eviction policy
+	 *
+	 * <p>Entries are considered in the order of the eviction queue (a "clock"). An entry used since it was last
+	 * considered is given another chance (for {@link EvictionPolicy#LFU}, until its aged frequency reaches 0), so
+	 * each eviction only looks at a few entries, instead of scanning the whole cache.</p>
+	 *
+	 * @return the entry to evict, or <code>null</code> if the cache is empty
+	 */
+	private CacheEntry findVictim() {
+		boolean leastFrequentlyUsed = this.evictionPolicy == EvictionPolicy.LFU;
+		CacheEntry entry;
+
+		while ((entry = this.evictionQueue.poll()) != null) {
+			if (entry.removed) {
+				continue;
+			}
+
+			if (entry.getPattern() == null) {
+				// Reclaimed by garbage collector
+				return entry;
+			}
+
+			int frequency = entry.frequency.get();
+
+			if (frequency == 0) {
+				return entry;
+			}
+
+			// Give another chance (a concurrent access may be lost, which only affects which pattern is evicted)
+			entry.frequency.set(leastFrequentlyUsed ? frequency >>> 1 : 0);
+			this.evictionQueue.offer(entry);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the number of entries in the eviction queue, including removed entries which haven't been purged (used
+	 * by tests)
+	 */
+	int evictionQueueSize() {
+		return this.evictionQueue.size();
+	}
+
+	/**
+	 * Removes the entries which are no longer cached from the eviction queue
+	 */
+	private void purgeEvictionQueue() {
+		synchronized (this.evictionLock) {
+			this.removedEntries.set(0);
+			this.evictionQueue.removeIf(entry -> entry.removed);
+		}
+	}
+
+	/**
+	 * Entry in the pattern cache
+	 */
+	private static final class CacheEntry {
+		private final PatternCacheKey key;
+
+		/**
+		 * Either the {@link Pattern} or a {@link Reference} to the pattern (depending on the eviction policy)
+		 */
+		private final Object value;
+
+		private final long weight;
+		private final boolean leastFrequentlyUsed;
+
+		/**
+		 * For {@link EvictionPolicy#LFU}, the aged number of accesses (starting at 1); otherwise, 1 if accessed since
+		 * last considered for eviction
+		 */
+		private final AtomicInteger frequency;
+
+		/**
+		 * Whether the entry was removed from the cache (so is skipped in the eviction queue)
+		 */
+		private volatile boolean removed;
+
+		CacheEntry(final PatternCacheKey key, final Pattern pattern, final EvictionPolicy evictionPolicy,
+				final ReferenceQueue<Pattern> referenceQueue) {
+			this.key = key;
+			this.weight = Math.max(1, key.regex.length());
+			this.leastFrequentlyUsed = evictionPolicy == EvictionPolicy.LFU;
+			this.frequency = new AtomicInteger(this.leastFrequentlyUsed ? 1 : 0);
+
+			switch (evictionPolicy) {
+			case SOFT:
+				this.value = new SoftEntryReference(pattern, referenceQueue, this);
+				break;
+			case WEAK:
+				this.value = new WeakEntryReference(pattern, referenceQueue, this);
+				break;
+			default:
+				this.value = pattern;
+			}
+		}
+
+		Pattern getPattern() {
+			if (this.value instanceof Pattern) {
+				return (Pattern) this.value;
+			}
+
+			return (Pattern) ((Reference<?>) this.value).get();
+		}
+
+		void recordAccess() {
+			int frequency = this.frequency.get();
+
+			if (this.leastFrequentlyUsed) {
+				if (frequency != Integer.MAX_VALUE) {
+					this.frequency.incrementAndGet();
+				}
+			} else if (frequency == 0) {
+				// Only written if not already set (avoids contention on frequently used patterns)
+				this.frequency.set(1);
+			}
+		}
+	}
+
+	/**
+	 * Compilation in progress
+	 */
+	private static final class Compilation extends CompletableFuture<Pattern> {
+		/**
+		 * The thread compiling the pattern
+		 */
+		private final Thread thread = Thread.currentThread();
+
+		/**
+		 * Waits for the compilation to complete
+		 *
+		 * @return the compiled pattern
+		 * @throws PatternSyntaxException
+		 *             If the expression's syntax is invalid (the same exception thrown to the compiling thread)
+		 */
+		Pattern getPattern() {
+			try {
+				return this.join();
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause();
+
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+
+				throw e;
+			}
+		}
+	}
+
+	private interface EntryReference {
+		CacheEntry getEntry();
+	}
+
+	private static final class SoftEntryReference extends SoftReference<Pattern> implements EntryReference {
+		private final CacheEntry entry;
+
+		SoftEntryReference(final Pattern pattern, final ReferenceQueue<Pattern> referenceQueue,
+				final CacheEntry entry) {
+			super(pattern, referenceQueue);
+			this.entry = entry;
+		}
+
+		@Override
+		public CacheEntry getEntry() {
+			return this.entry;
+		}
+	}
+
+	private static final class WeakEntryReference extends WeakReference<Pattern> implements EntryReference {
+		private final CacheEntry entry;
+
+		WeakEntryReference(final Pattern pattern, final ReferenceQueue<Pattern> referenceQueue,
+				final CacheEntry entry) {
+			super(pattern, referenceQueue);
+			this.entry = entry;
+		}
+
+		@Override
+		public CacheEntry getEntry() {
+			return this.entry;
+		}
+	}
+
+	/**
+	 * Key used to cache patterns
+	 */
+	static final class PatternCacheKey {
+		private final String regex;
+		private final int flags;
+
+		PatternCacheKey(final String regex, final int flags) {
+			this.regex = regex;
+			this.flags = flags;
+		}
+
+		String getRegex() {
+			return this.regex;
+		}
+
+		int getFlags() {
+			return this.flags;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + this.flags;
+			result = prime * result + ((this.regex == null) ? 0 : this.regex.hashCode());
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (this.getClass() != obj.getClass()) {
+				return false;
+			}
+			PatternCacheKey other = (PatternCacheKey) obj;
+			if (this.flags != other.flags) {
+				return false;
+			}
+			if (this.regex == null) {
+				if (other.regex != null) {
+					return false;
+				}
+			} else if (!this.regex.equals(other.regex)) {
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return this.flags + ": " + this.regex;
+		}
+	}
+}
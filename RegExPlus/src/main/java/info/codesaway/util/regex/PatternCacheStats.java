@@ -0,0 +1,239 @@
+package info.codesaway.util.regex;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of the statistics for the {@link PatternCache}
+ *
+ * <p>All times are in nanoseconds.</p>
+ *
+ * @see PatternCache#stats()
+ * @since 2.1
+ */
+public final class PatternCacheStats {
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long compileCount;
+	private final long totalRefactorTime;
+	private final long totalCompileTime;
+	private final long duplicateCompilationsAvoided;
+	private final long size;
+	private final long weight;
+	private final List<PatternStats> patternStats;
+
+	PatternCacheStats(final long hitCount, final long missCount, final long evictionCount, final long compileCount,
+			final long totalRefactorTime, final long totalCompileTime, final long duplicateCompilationsAvoided,
+			final long size, final long weight, final List<PatternStats> patternStats) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.compileCount = compileCount;
+		this.totalRefactorTime = totalRefactorTime;
+		this.totalCompileTime = totalCompileTime;
+		this.duplicateCompilationsAvoided = duplicateCompilationsAvoided;
+		this.size = size;
+		this.weight = weight;
+		this.patternStats = Collections.unmodifiableList(patternStats);
+	}
+
+	/**
+	 * Returns the number of lookups which returned a cached pattern
+	 *
+	 * @return the number of cache hits
+	 */
+	public long hitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * Returns the number of lookups which did not find a cached pattern
+	 *
+	 * @return the number of cache misses
+	 */
+	public long missCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * Returns the number of lookups (hits plus misses)
+	 *
+	 * @return the number of lookups
+	 */
+	public long requestCount() {
+		return this.hitCount + this.missCount;
+	}
+
+	/**
+	 * Returns the ratio of lookups which returned a cached pattern
+	 *
+	 * @return the hit rate, or <code>1.0</code> if there were no lookups
+	 */
+	public double hitRate() {
+		long requestCount = this.requestCount();
+		return requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount;
+	}
+
+	/**
+	 * Returns the number of patterns evicted from the cache (including patterns reclaimed by the garbage collector
+	 * when using soft or weak references)
+	 *
+	 * @return the number of evictions
+	 */
+	public long evictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * Returns the number of patterns compiled (whether cached or not)
+	 *
+	 * @return the number of patterns compiled
+	 */
+	public long compileCount() {
+		return this.compileCount;
+	}
+
+	/**
+	 * Returns the total time spent refactoring patterns into a form usable by Java's {@link java.util.regex.Pattern}
+	 * class
+	 *
+	 * @return the total refactor time, in nanoseconds
+	 */
+	public long totalRefactorTime() {
+		return this.totalRefactorTime;
+	}
+
+	/**
+	 * Returns the total time spent compiling the refactored patterns using Java's {@link java.util.regex.Pattern}
+	 * class
+	 *
+	 * @return the total compile time, in nanoseconds
+	 */
+	public long totalCompileTime() {
+		return this.totalCompileTime;
+	}
+
+	/**
+	 * @return the number of duplicate compilations avoided
+	 * @see PatternCache#duplicateCompilationsAvoided()
+	 */
+	public long duplicateCompilationsAvoided() {
+		return this.duplicateCompilationsAvoided;
+	}
+
+	/**
+	 * @return the number of cached patterns
+	 * @see PatternCache#size()
+	 */
+	public long size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the total weight of the cached patterns
+	 * @see PatternCache#weight()
+	 */
+	public long weight() {
+		return this.weight;
+	}
+
+	/**
+	 * Returns the statistics for each cached, compiled pattern, ordered by refactor time (most expensive first)
+	 *
+	 * @return an unmodifiable list of the statistics for each cached pattern
+	 */
+	public List<PatternStats> patternStats() {
+		return this.patternStats;
+	}
+
+	@Override
+	public String toString() {
+		return "PatternCacheStats[hitCount=" + this.hitCount + ", missCount=" + this.missCount + ", evictionCount="
+				+ this.evictionCount + ", compileCount=" + this.compileCount + ", totalRefactorTime="
+				+ this.totalRefactorTime + ", totalCompileTime=" + this.totalCompileTime
+				+ ", duplicateCompilationsAvoided=" + this.duplicateCompilationsAvoided + ", size=" + this.size
+				+ ", weight=" + this.weight + "]";
+	}
+
+	/**
+	 * Statistics for compiling a single pattern
+	 *
+	 * @since 2.1
+	 */
+	public static final class PatternStats {
+		private final String pattern;
+		private final int flags;
+		private final String internalPattern;
+		private final long refactorTime;
+		private final long compileTime;
+
+		PatternStats(final Pattern pattern) {
+			this.pattern = pattern.pattern();
+			this.flags = pattern.flags();
+			this.internalPattern = pattern.getInternalPattern().pattern();
+			this.refactorTime = pattern.getRefactorTime();
+			this.compileTime = pattern.getCompileTime();
+		}
+
+		/**
+		 * @return the regular expression
+		 * @see Pattern#pattern()
+		 */
+		public String pattern() {
+			return this.pattern;
+		}
+
+		/**
+		 * @return the flags
+		 * @see Pattern#flags()
+		 */
+		public int flags() {
+			return this.flags;
+		}
+
+		/**
+		 * @return the refactored regular expression used by Java's {@link java.util.regex.Pattern} class
+		 * @see Pattern#internalPattern()
+		 */
+		public String internalPattern() {
+			return this.internalPattern;
+		}
+
+		/**
+		 * @return the time spent refactoring the pattern, in nanoseconds
+		 */
+		public long refactorTime() {
+			return this.refactorTime;
+		}
+
+		/**
+		 * @return the time spent compiling the refactored pattern using Java's {@link java.util.regex.Pattern} class,
+		 *         in nanoseconds
+		 */
+		public long compileTime() {
+			return this.compileTime;
+		}
+
+		/**
+		 * @return the length of the regular expression
+		 */
+		public int patternLength() {
+			return this.pattern.length();
+		}
+
+		/**
+		 * @return the length of the refactored regular expression
+		 */
+		public int internalPatternLength() {
+			return this.internalPattern.length();
+		}
+
+		@Override
+		public String toString() {
+			return "PatternStats[pattern=" + this.pattern + ", flags=" + this.flags + ", refactorTime="
+					+ this.refactorTime + ", compileTime=" + this.compileTime + ", patternLength="
+					+ this.patternLength() + ", internalPatternLength=" + this.internalPatternLength() + "]";
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package info.codesaway.util.regex;
+
+import info.codesaway.util.regex.PatternCacheStats.PatternStats;
+
+/**
+ * Listener notified each time a {@link Pattern} is compiled
+ *
+ * <p>Listeners are called on the compiling thread, so they should return quickly.</p>
+ *
+ * @see PatternCache#addCompileListener(PatternCompileListener)
+ * @since 2.1
+ */
+@FunctionalInterface
+public interface PatternCompileListener {
+	/**
+	 * Called after a pattern is successfully compiled
+	 *
+	 * @param stats
+	 *            the statistics for compiling the pattern
+	 */
+	void patternCompiled(PatternStats stats);
+}
@@ -0,0 +1,454 @@
+package info.codesaway.util.regex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import info.codesaway.util.regex.PatternCache.PatternCacheKey;
+
+/**
+ * An on-disk cache of refactored regular expressions, used to avoid refactoring the same patterns each time the JVM
+ * starts
+ *
+ * <p>The cache stores, for each regular expression and its flags, the refactored regular expression and the group
+ * mappings. When a pattern is in the cache, compiling it only requires compiling the refactored regular expression
+ * using Java's {@link java.util.regex.Pattern} class.</p>
+ *
+ * <p>The cache is opt-in. To use it, open the cache file when starting, set it as the persistent cache, and save it
+ * once the patterns are compiled:</p>
+ *
+ * <pre><code>PersistentPatternCache persistentCache = PersistentPatternCache.open(Paths.get("regexplus.cache"));
+ * PatternCache.getInstance().setPersistentCache(persistentCache);
+ *
+ * // Compile patterns
+ *
+ * persistentCache.save();</code></pre>
+ *
+ * <p>The file is read when opened, and each entry is only decoded when the pattern is compiled. If the file is
+ * missing, corrupt, or was written by a different version of RegExPlus, it's ignored and patterns are compiled
+ * normally (the next {@link #save()} replaces the file).</p>
+ *
+ * <p>Regular expressions which only use syntax supported by Java's <code>Pattern</code> class are never refactored,
+ * so they aren't stored.</p>
+ *
+ * @see PatternCache#setPersistentCache(PersistentPatternCache)
+ * @since 2.1
+ */
+public final class PersistentPatternCache {
+	/**
+	 * "RXPC"
+	 */
+	private static final int MAGIC = 0x52585043;
+
+	/**
+	 * Increment when the file format changes
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * The version of RegExPlus and of its refactoring (entries from other versions are stale, since they may have been
+	 * refactored differently)
+	 */
+	private static final String LIBRARY_VERSION = PrecompiledPattern.libraryVersion();
+
+	private final Path file;
+
+	/**
+	 * The contents of the file (or <code>null</code> if no valid file was loaded)
+	 *
+	 * <p>The file is read into a heap buffer, rather than memory-mapped, since {@link #save()} replaces the file,
+	 * which fails on Windows while the file is mapped (and a mapping is only released when garbage collected).</p>
+	 */
+	private final ByteBuffer buffer;
+
+	/**
+	 * Maps each entry in the loaded file to the offset of its payload
+	 */
+	private final Map<PatternCacheKey, Integer> offsets;
+
+	/**
+	 * Entries added since the file was loaded
+	 */
+	private final ConcurrentHashMap<PatternCacheKey, PrecompiledPattern> addedEntries = new ConcurrentHashMap<>();
+
+	private PersistentPatternCache(final Path file, final ByteBuffer buffer,
+			final Map<PatternCacheKey, Integer> offsets) {
+		this.file = file;
+		this.buffer = buffer;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Opens the cache stored in the specified file
+	 *
+	 * <p>If the file doesn't exist, can't be read, is corrupt, or was written by a different version of RegExPlus,
+	 * an empty cache is returned, which will be saved to the file.</p>
+	 *
+	 * @param file
+	 *            the cache file
+	 * @return the cache
+	 */
+	public static PersistentPatternCache open(final Path file) {
+		if (file == null) {
+			throw new NullPointerException("file");
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+
+			if (size <= Integer.MAX_VALUE) {
+				ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+				while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+					// Read until the buffer is full or the end of the file
+				}
+
+				((Buffer) buffer).flip();
+				Map<PatternCacheKey, Integer> offsets = index(buffer);
+
+				if (offsets != null) {
+					return new PersistentPatternCache(file, buffer, offsets);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// Missing, unreadable, or corrupt file (compile patterns normally)
+		}
+
+		return new PersistentPatternCache(file, null, Collections.emptyMap());
+	}
+
+	/**
+	 * Returns the cache file
+	 *
+	 * @return the cache file
+	 */
+	public Path getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Indicates whether a valid cache file was loaded when opened
+	 *
+	 * @return <code>true</code> if a valid cache file was loaded; <code>false</code> if the file was missing,
+	 *         corrupt, or stale
+	 */
+	public boolean isLoaded() {
+		return this.buffer != null;
+	}
+
+	/**
+	 * Returns the number of patterns in the cache
+	 *
+	 * @return the number of patterns in the cache
+	 */
+	public int size() {
+		int size = this.offsets.size();
+
+		for (PatternCacheKey key : this.addedEntries.keySet()) {
+			if (!this.offsets.containsKey(key)) {
+				size++;
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Indicates whether patterns were added since the file was loaded
+	 *
+	 * @return <code>true</code> if patterns were added since the file was loaded
+	 */
+	public boolean isModified() {
+		return !this.addedEntries.isEmpty();
+	}
+
+	/**
+	 * Gets the cached entry for the regular expression and flags
+	 *
+	 * @return the cached entry, or <code>null</code> if the pattern isn't cached
+	 */
+	PrecompiledPattern get(final String regex, final int flags) {
+		PatternCacheKey key = new PatternCacheKey(regex, flags);
+		PrecompiledPattern precompiled = this.addedEntries.get(key);
+
+		if (precompiled != null) {
+			return precompiled;
+		}
+
+		Integer offset = this.offsets.get(key);
+
+		if (offset == null) {
+			return null;
+		}
+
+		try {
+			return decode(this.buffer, offset, regex, flags);
+		} catch (RuntimeException e) {
+			// Checksum matched, but the entry is invalid (compile the pattern normally)
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the entry to the cache (the cache file is updated when {@link #save()} is called)
+	 */
+	void put(final PrecompiledPattern precompiled) {
+		this.addedEntries.put(new PatternCacheKey(precompiled.getPattern(), precompiled.getFlags()), precompiled);
+	}
+
+	/**
+	 * Writes the cache to the file
+	 *
+	 * <p>The cache is written to a temporary file, which then replaces the cache file, so a partially written file is
+	 * never read.</p>
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public synchronized void save() throws IOException {
+		Map<PatternCacheKey, byte[]> payloads = new LinkedHashMap<>();
+
+		for (Entry<PatternCacheKey, Integer> entry : this.offsets.entrySet()) {
+			int offset = entry.getValue();
+			byte[] payload = new byte[this.buffer.getInt(offset - Integer.BYTES)];
+
+			ByteBuffer view = this.buffer.duplicate();
+			position(view, offset);
+			view.get(payload);
+
+			payloads.put(entry.getKey(), payload);
+		}
+
+		for (Entry<PatternCacheKey, PrecompiledPattern> entry : this.addedEntries.entrySet()) {
+			try {
+				payloads.put(entry.getKey(), encode(entry.getValue()));
+			} catch (CharacterCodingException e) {
+				// Contains an unpaired surrogate, which can't be stored as UTF-8 (don't cache the pattern)
+				payloads.remove(entry.getKey());
+			}
+		}
+
+		ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+		int count = 0;
+
+		try (DataOutputStream body = new DataOutputStream(bodyBytes)) {
+			for (Entry<PatternCacheKey, byte[]> entry : payloads.entrySet()) {
+				PatternCacheKey key = entry.getKey();
+				byte[] regex;
+
+				try {
+					regex = toUTF8(key.getRegex());
+				} catch (CharacterCodingException e) {
+					continue;
+				}
+
+				byte[] payload = entry.getValue();
+
+				body.writeInt(regex.length);
+				body.write(regex);
+				body.writeInt(key.getFlags());
+				body.writeInt(payload.length);
+				body.write(payload);
+				count++;
+			}
+		}
+
+		byte[] bodyArray = bodyBytes.toByteArray();
+		CRC32 checksum = new CRC32();
+		checksum.update(bodyArray);
+
+		Path directory = this.file.toAbsolutePath().getParent();
+		Path tempFile = Files.createTempFile(directory, this.file.getFileName().toString(), ".tmp");
+
+		try {
+			try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(tempFile))) {
+				output.writeInt(MAGIC);
+				output.writeInt(FORMAT_VERSION);
+
+				byte[] libraryVersion = toUTF8(LIBRARY_VERSION);
+				output.writeInt(libraryVersion.length);
+				output.write(libraryVersion);
+
+				output.writeInt(count);
+				output.writeLong(checksum.getValue());
+				output.write(bodyArray);
+			}
+
+			try {
+				Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	/**
+	 * Validates the file header and checksum, and finds the payload of each entry
+	 *
+	 * @return map from each entry to the offset of its payload, or <code>null</code> if the file is invalid or stale
+	 */
+	private static Map<PatternCacheKey, Integer> index(final ByteBuffer buffer) {
+		ByteBuffer view = buffer.duplicate();
+
+		if (view.remaining() < 2 * Integer.BYTES || view.getInt() != MAGIC || view.getInt() != FORMAT_VERSION) {
+			return null;
+		}
+
+		if (!LIBRARY_VERSION.equals(readString(view))) {
+			return null;
+		}
+
+		int count = view.getInt();
+		long expectedChecksum = view.getLong();
+
+		CRC32 checksum = new CRC32();
+		checksum.update(view.duplicate());
+
+		if (checksum.getValue() != expectedChecksum) {
+			return null;
+		}
+
+		Map<PatternCacheKey, Integer> offsets = new HashMap<>(count * 4 / 3 + 1);
+
+		for (int i = 0; i < count; i++) {
+			String regex = readString(view);
+			int flags = view.getInt();
+			int length = readLength(view);
+			int offset = view.position();
+
+			offsets.put(new PatternCacheKey(regex, flags), offset);
+			position(view, offset + length);
+		}
+
+		if (view.hasRemaining()) {
+			return null;
+		}
+
+		return Collections.unmodifiableMap(offsets);
+	}
+
+	private static PrecompiledPattern decode(final ByteBuffer buffer, final int offset, final String regex,
+			final int flags) {
+		ByteBuffer view = buffer.duplicate();
+		position(view, offset);
+
+		String internalPattern = readString(view);
+		int capturingGroupCount = view.getInt();
+		boolean addedGroups = view.get() != 0;
+
+		Map<String, Integer> groupMapping = readMap(view);
+		Map<String, Integer> groupCounts = readMap(view);
+
+		return new PrecompiledPattern(regex, flags, internalPattern, capturingGroupCount, addedGroups, groupMapping,
+				groupCounts);
+	}
+
+	private static byte[] encode(final PrecompiledPattern precompiled) throws CharacterCodingException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			writeString(output, precompiled.getInternalPattern());
+			output.writeInt(precompiled.getCapturingGroupCount());
+			output.writeBoolean(precompiled.hasAddedGroups());
+			writeMap(output, precompiled.getGroupMapping());
+			writeMap(output, precompiled.getGroupCounts());
+		} catch (CharacterCodingException e) {
+			throw e;
+		} catch (IOException e) {
+			// Not thrown when writing to a byte array
+			throw new AssertionError(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static Map<String, Integer> readMap(final ByteBuffer view) {
+		int size = readLength(view);
+		Map<String, Integer> map = new HashMap<>(size * 4 / 3 + 1);
+
+		for (int i = 0; i < size; i++) {
+			String key = readString(view);
+			map.put(key, view.getInt());
+		}
+
+		return map;
+	}
+
+	private static void writeMap(final DataOutputStream output, final Map<String, Integer> map) throws IOException {
+		output.writeInt(map.size());
+
+		for (Entry<String, Integer> entry : map.entrySet()) {
+			writeString(output, entry.getKey());
+			output.writeInt(entry.getValue());
+		}
+	}
+
+	private static String readString(final ByteBuffer view) {
+		byte[] bytes = new byte[readLength(view)];
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(final DataOutputStream output, final String value) throws IOException {
+		byte[] bytes = toUTF8(value);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	/**
+	 * Reads a length, verifying that there are at least that many bytes remaining
+	 */
+	private static int readLength(final ByteBuffer view) {
+		int length = view.getInt();
+
+		if (length < 0 || length > view.remaining()) {
+			throw new BufferUnderflowException();
+		}
+
+		return length;
+	}
+
+	/**
+	 * Encodes the value as UTF-8
+	 *
+	 * @throws CharacterCodingException
+	 *             if the value contains an unpaired surrogate (rather than replacing it, which would change the value)
+	 */
+	private static byte[] toUTF8(final String value) throws CharacterCodingException {
+		ByteBuffer encoded = StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(value));
+		byte[] bytes = new byte[encoded.remaining()];
+		encoded.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Sets the position of the buffer
+	 *
+	 * <p>Called on {@link Buffer}, so the compiled code also runs on Java 8 (where <code>ByteBuffer</code> doesn't
+	 * override <code>position(int)</code>).</p>
+	 */
+	private static void position(final ByteBuffer buffer, final int position) {
+		((Buffer) buffer).position(position);
+	}
+}
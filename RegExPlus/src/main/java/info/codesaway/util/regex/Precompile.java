@@ -0,0 +1,35 @@
+package info.codesaway.util.regex;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Refactors the annotated regular expression constant at build time
+ *
+ * <p>The annotated field must be a <code>static final String</code> constant. When compiling, the
+ * <code>info.codesaway.util.regex.processor.PrecompileProcessor</code> annotation processor (in the separate
+ * <code>regexplus-processor</code> artifact, which needs to be on the annotation processor path) refactors the regular
+ * expression and generates a {@link PrecompiledPatternProvider}, so the regular expression isn't refactored at runtime.
+ * An invalid regular expression fails the build.</p>
+ *
+ * <pre><code>&#64;Precompile(flags = Pattern.CASE_INSENSITIVE)
+ * static final String DATE_REGEX = "(?&lt;year&gt;\\d{4})-(?&lt;month&gt;\\d\\d)";
+ *
+ * static final Pattern DATE = Pattern.compile(DATE_REGEX, Pattern.CASE_INSENSITIVE);</code></pre>
+ *
+ * @since 2.1
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Precompile {
+	/**
+	 * Match flags bit mask, the same as passed to {@link Pattern#compile(String, int)}
+	 *
+	 * @return match flags bit mask
+	 */
+	int flags() default 0;
+}
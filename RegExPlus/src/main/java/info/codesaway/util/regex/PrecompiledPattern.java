@@ -0,0 +1,179 @@
+package info.codesaway.util.regex;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The result of refactoring a regular expression: everything needed to create a {@link Pattern} by only compiling the
+ * internal {@link java.util.regex.Pattern}
+ *
+ * <p>Precompiled patterns are usually generated at build time, by annotating regular expression constants with
+ * {@link Precompile}. When compiling a pattern, {@link Pattern} uses the precompiled patterns from each
+ * {@link PrecompiledPatternProvider}, instead of refactoring the regular expression.</p>
+ *
+ * @see Pattern#compile(PrecompiledPattern)
+ * @since 2.1
+ */
+public final class PrecompiledPattern {
+	/**
+	 * Increment whenever a change to refactoring changes the refactored regular expression or group mappings of any
+	 * pattern
+	 *
+	 * <p>Patterns refactored before the change are then stale, even if the version of RegExPlus isn't available
+	 * (such as when running from the class files, rather than the jar).</p>
+	 */
+	static final int REFACTOR_VERSION = 1;
+
+	/**
+	 * The version of RegExPlus and of its refactoring (patterns refactored by other versions are stale, since they may
+	 * have been refactored differently)
+	 */
+	private static final String LIBRARY_VERSION = findLibraryVersion() + "-r" + REFACTOR_VERSION;
+
+	private final String pattern;
+	private final int flags;
+	private final String internalPattern;
+	private final int capturingGroupCount;
+	private final boolean addedGroups;
+	private final Map<String, Integer> groupMapping;
+	private final Map<String, Integer> groupCounts;
+
+	/**
+	 * Creates a <code>PrecompiledPattern</code> from a compiled pattern
+	 *
+	 * @param pattern
+	 *            the compiled pattern
+	 */
+	PrecompiledPattern(final Pattern pattern) {
+		this(pattern.pattern(), pattern.flags(), pattern.internalPattern(), pattern.groupCount(),
+				pattern.addedGroups(), pattern.getGroupMapping(), pattern.getGroupCounts());
+	}
+
+	PrecompiledPattern(final String pattern, final int flags, final String internalPattern,
+			final int capturingGroupCount, final boolean addedGroups, final Map<String, Integer> groupMapping,
+			final Map<String, Integer> groupCounts) {
+		this.pattern = pattern;
+		this.flags = flags;
+		this.internalPattern = internalPattern;
+		this.capturingGroupCount = capturingGroupCount;
+		this.addedGroups = addedGroups;
+		this.groupMapping = Collections.unmodifiableMap(new HashMap<>(groupMapping));
+		this.groupCounts = Collections.unmodifiableMap(new HashMap<>(groupCounts));
+	}
+
+	/**
+	 * Refactors the regular expression
+	 *
+	 * @param regex
+	 *            the expression to be refactored
+	 * @param flags
+	 *            match flags bit mask
+	 * @return the refactored regular expression and group mappings
+	 * @throws PatternSyntaxException
+	 *             If the expression's syntax is invalid
+	 * @see Pattern#compile(String, int)
+	 */
+	public static PrecompiledPattern refactor(final String regex, final int flags) {
+		return new PrecompiledPattern(Pattern.compile(regex, flags, false));
+	}
+
+	/**
+	 * Creates a <code>PrecompiledPattern</code> from the values returned by the getters of a
+	 * <code>PrecompiledPattern</code> (used by generated code)
+	 *
+	 * @param pattern
+	 *            the original regular expression
+	 * @param flags
+	 *            match flags bit mask
+	 * @param internalPattern
+	 *            the refactored regular expression
+	 * @param capturingGroupCount
+	 *            the number of capturing groups
+	 * @param addedGroups
+	 *            whether groups were added when refactoring
+	 * @param groupMapping
+	 *            the group mapping
+	 * @param groupCounts
+	 *            the group counts
+	 * @return the precompiled pattern
+	 */
+	public static PrecompiledPattern of(final String pattern, final int flags, final String internalPattern,
+			final int capturingGroupCount, final boolean addedGroups, final Map<String, Integer> groupMapping,
+			final Map<String, Integer> groupCounts) {
+		return new PrecompiledPattern(pattern, flags, internalPattern, capturingGroupCount, addedGroups, groupMapping,
+				groupCounts);
+	}
+
+	/**
+	 * Returns the version of RegExPlus, which is used to detect patterns refactored by a different version
+	 *
+	 * <p>The version includes the version of the refactoring, which changes whenever a pattern would be refactored
+	 * differently, so it's also used if the version of RegExPlus isn't available.</p>
+	 *
+	 * @return the version of RegExPlus and of its refactoring (such as "2.1.0-r1", or "unknown-r1" if the version of
+	 *         RegExPlus isn't available)
+	 */
+	public static String libraryVersion() {
+		return LIBRARY_VERSION;
+	}
+
+	/**
+	 * @return the original regular expression
+	 */
+	public String getPattern() {
+		return this.pattern;
+	}
+
+	/**
+	 * @return the match flags
+	 */
+	public int getFlags() {
+		return this.flags;
+	}
+
+	/**
+	 * @return the refactored regular expression, used to compile the internal {@link java.util.regex.Pattern}
+	 */
+	public String getInternalPattern() {
+		return this.internalPattern;
+	}
+
+	/**
+	 * @return the number of capturing groups
+	 * @see Pattern#groupCount()
+	 */
+	public int getCapturingGroupCount() {
+		return this.capturingGroupCount;
+	}
+
+	/**
+	 * @return whether groups were added when refactoring
+	 * @see Pattern#addedGroups()
+	 */
+	public boolean hasAddedGroups() {
+		return this.addedGroups;
+	}
+
+	/**
+	 * @return an unmodifiable map from mapping names (such as "name[1]") to group indexes
+	 */
+	public Map<String, Integer> getGroupMapping() {
+		return this.groupMapping;
+	}
+
+	/**
+	 * @return an unmodifiable map from group names to group counts
+	 * @see Pattern#getGroupCounts()
+	 */
+	public Map<String, Integer> getGroupCounts() {
+		return this.groupCounts;
+	}
+
+	private static String findLibraryVersion() {
+		Package libraryPackage = Pattern.class.getPackage();
+		String version = libraryPackage != null ? libraryPackage.getImplementationVersion() : null;
+
+		return version != null ? version : "unknown";
+	}
+}
@@ -0,0 +1,32 @@
+package info.codesaway.util.regex;
+
+import java.util.Collection;
+
+/**
+ * Service which provides patterns refactored at build time
+ *
+ * <p>Implementations are usually generated by the {@link Precompile} annotation processor and are found using
+ * {@link java.util.ServiceLoader} (listed in
+ * <code>META-INF/services/info.codesaway.util.regex.PrecompiledPatternProvider</code>). When compiling a pattern which
+ * is provided, {@link Pattern} only compiles the refactored regular expression.</p>
+ *
+ * @since 2.1
+ */
+public interface PrecompiledPatternProvider {
+	/**
+	 * Returns the version of RegExPlus used to refactor the patterns
+	 *
+	 * <p>If it differs from the current {@link PrecompiledPattern#libraryVersion() version}, the patterns are
+	 * ignored, since they may have been refactored differently.</p>
+	 *
+	 * @return the version of RegExPlus used to refactor the patterns
+	 */
+	String getLibraryVersion();
+
+	/**
+	 * Returns the precompiled patterns
+	 *
+	 * @return the precompiled patterns
+	 */
+	Collection<PrecompiledPattern> getPrecompiledPatterns();
+}
@@ -0,0 +1,80 @@
+package info.codesaway.util.regex;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import info.codesaway.util.regex.PatternCache.PatternCacheKey;
+
+/**
+ * The patterns provided by each {@link PrecompiledPatternProvider} (loaded the first time a pattern is refactored)
+ *
+ * @since 2.1
+ */
+final class PrecompiledPatternRegistry {
+	private PrecompiledPatternRegistry() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Lazily loads the providers
+	 */
+	private static final class Holder {
+		static final Map<PatternCacheKey, PrecompiledPattern> PATTERNS = load();
+	}
+
+	/**
+	 * Gets the precompiled pattern for the regular expression and flags
+	 *
+	 * @return the precompiled pattern, or <code>null</code> if the pattern isn't precompiled
+	 */
+	static PrecompiledPattern get(final String regex, final int flags) {
+		Map<PatternCacheKey, PrecompiledPattern> patterns = Holder.PATTERNS;
+
+		// Null if a provider compiles a pattern while the providers are loading
+		if (patterns == null || patterns.isEmpty()) {
+			return null;
+		}
+
+		return patterns.get(new PatternCacheKey(regex, flags));
+	}
+
+	private static Map<PatternCacheKey, PrecompiledPattern> load() {
+		Map<PatternCacheKey, PrecompiledPattern> patterns = new HashMap<>();
+		String libraryVersion = PrecompiledPattern.libraryVersion();
+
+		Iterator<PrecompiledPatternProvider> providers = ServiceLoader.load(PrecompiledPatternProvider.class)
+				.iterator();
+
+		while (hasNext(providers)) {
+			try {
+				PrecompiledPatternProvider provider = providers.next();
+
+				// Patterns refactored by a different version are stale
+				if (!libraryVersion.equals(provider.getLibraryVersion())) {
+					continue;
+				}
+
+				for (PrecompiledPattern precompiled : provider.getPrecompiledPatterns()) {
+					patterns.put(new PatternCacheKey(precompiled.getPattern(), precompiled.getFlags()), precompiled);
+				}
+			} catch (ServiceConfigurationError | RuntimeException e) {
+				// Skip the provider (its patterns are refactored normally)
+			}
+		}
+
+		return Collections.unmodifiableMap(patterns);
+	}
+
+	private static boolean hasNext(final Iterator<PrecompiledPatternProvider> providers) {
+		try {
+			return providers.hasNext();
+		} catch (ServiceConfigurationError e) {
+			// Invalid configuration file (stop loading, since the error may be repeated)
+			return false;
+		}
+	}
+}
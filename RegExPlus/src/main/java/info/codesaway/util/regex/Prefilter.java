@@ -0,0 +1,93 @@
+package info.codesaway.util.regex;
+
+/**
+ * Skips the text which can't contain a match, before searching using the internal {@link java.util.regex.Matcher}
+ *
+ * <p>Created by {@link PatternAnalyzer#createPrefilter(java.util.regex.Pattern)} from the internal pattern (or, if
+ * the pattern only matches a literal, from the {@link LiteralSearcher}):</p>
+ * <ul>
+ * <li>If every match starts with a literal prefix, the search starts at the next occurrence of the prefix</li>
+ * <li>Otherwise, if every match contains a literal, the search fails without using the internal matcher if the
+ * literal doesn't occur in the rest of the text; if the possible first characters of a match are known, the search
+ * starts at the next possible first character</li>
+ * </ul>
+ */
+final class Prefilter {
+	/**
+	 * The literal which every match starts with, or <code>null</code> if not known
+	 */
+	private final LiteralSearcher prefix;
+
+	/**
+	 * A literal which every match contains, or <code>null</code> if not known
+	 */
+	private final LiteralSearcher required;
+
+	/**
+	 * The possible first characters of a match (only ASCII characters), or <code>null</code> if not known
+	 */
+	private final long[] firstChars;
+
+	Prefilter(final LiteralSearcher prefix, final LiteralSearcher required, final long[] firstChars) {
+		this.prefix = prefix;
+		this.required = required;
+		this.firstChars = firstChars;
+	}
+
+	String getPrefix() {
+		return this.prefix == null ? null : this.prefix.getLiteral();
+	}
+
+	String getRequired() {
+		return this.required == null ? null : this.required.getLiteral();
+	}
+
+	boolean isFirstChar(final char c) {
+		return c < 128 && (this.firstChars[c >>> 6] & 1L << c) != 0;
+	}
+
+	boolean hasFirstChars() {
+		return this.firstChars != null;
+	}
+
+	/**
+	 * Returns the index where searching for the next match should start
+	 *
+	 * <p>There is no match which starts at or after <code>from</code> and before the returned index. If there is no
+	 * match in the rest of the text, the returned index is where a search fails quickly (but still reaches the end of
+	 * the text, if a match could start near the end).</p>
+	 *
+	 * @param text
+	 *            the text
+	 * @param from
+	 *            where searching for the next match would normally start (at most the length of the text)
+	 * @return the index where searching for the next match should start
+	 */
+	int getSearchStart(final CharSequence text, final int from) {
+		int length = text.length();
+
+		if (this.prefix != null) {
+			int index = this.prefix.indexOf(text, from);
+
+			// If not found, a partial prefix may be at the end of the text
+			return index != -1 ? index : Math.max(from, length - this.prefix.length() + 1);
+		}
+
+		if (this.required != null && this.required.indexOf(text, from) == -1) {
+			// Every match is non-empty, so there is no match at the end of the text
+			return length;
+		}
+
+		if (this.firstChars != null) {
+			for (int i = from; i < length; i++) {
+				if (this.isFirstChar(text.charAt(i))) {
+					return i;
+				}
+			}
+
+			return length;
+		}
+
+		return from;
+	}
+}
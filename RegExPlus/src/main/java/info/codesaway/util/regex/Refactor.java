@@ -728,7 +728,7 @@ class Refactor {
 					}
 
 					// remove (in internal pattern)
-					this.replaceWith("");
+					this.removeMatch();
 				}
 			} else if (this.group == 27) {
 				/*
@@ -2066,7 +2066,7 @@ class Refactor {
 		if (newFlags.length() != 0 || !isGroup) {
 			this.replaceWith("(?" + newFlags + ending);
 		} else {
-			this.replaceWith("");
+			this.removeMatch();
 		}
 	}
 
@@ -3730,6 +3730,75 @@ class Refactor {
 		// return matcher;
 	}
 
+	/**
+	 * Removes the current match (in the internal pattern)
+	 *
+	 * <p>If the match is between a short hex or unicode escape (such as <code>\x4</code>) and a hex digit, the escape
+	 * is padded with zeros, so the escape isn't joined with the hex digit once the match is removed (for example,
+	 * <code>\x4(?#comment)b</code> is refactored as <code>\x04b</code>, rather than <code>\x4b</code>).</p>
+	 */
+	private void removeMatch() {
+		int end = this.matcher.end();
+
+		if (this.isInComments || end == this.text.length() || Character.digit(this.text.charAt(end), 16) == -1) {
+			this.replaceWith("");
+			return;
+		}
+
+		this.matcher.appendReplacement(this.result, "");
+
+		int digitsEnd = this.result.length();
+		int digitsStart = digitsEnd;
+
+		while (digitsStart > 0 && digitsEnd - digitsStart < 4
+				&& Character.digit(this.result.charAt(digitsStart - 1), 16) != -1) {
+			digitsStart--;
+		}
+
+		int digits = digitsEnd - digitsStart;
+		int escapeStart = digitsStart - 2;
+		int padding = 0;
+
+		if (digits != 0 && escapeStart >= 0 && this.result.charAt(escapeStart) == '\\'
+				&& !isEscaped(this.result, escapeStart)) {
+			char escape = this.result.charAt(escapeStart + 1);
+
+			if (escape == 'x') {
+				padding = 2 - digits;
+			} else if (escape == 'u') {
+				padding = 4 - digits;
+			}
+		}
+
+		if (padding > 0) {
+			String original = this.result.substring(digitsStart, digitsEnd);
+			StringBuilder padded = new StringBuilder(4);
+
+			for (int i = 0; i < padding; i++) {
+				padded.append('0');
+			}
+
+			padded.append(original);
+			this.result.replace(digitsStart, digitsEnd, padded.toString());
+			this.differences.replace0(digitsStart, original, padded.toString());
+		}
+
+		this.differences.replace0(this.result.length(), this.match, "");
+	}
+
+	/**
+	 * Indicates whether the character at the specified index is escaped (preceded by an odd number of backslashes)
+	 */
+	private static boolean isEscaped(final CharSequence text, final int index) {
+		int backslashes = 0;
+
+		while (index - backslashes > 0 && text.charAt(index - backslashes - 1) == '\\') {
+			backslashes++;
+		}
+
+		return backslashes % 2 == 1;
+	}
+
 	/**
 	 * add javadoc comments.
 	 */
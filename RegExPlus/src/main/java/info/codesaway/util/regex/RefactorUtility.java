@@ -1029,6 +1029,51 @@ class RefactorUtility
 		}
 	}
 
+	/**
+	 * Indicates whether the string contains a parsable integer, so that {@link Integer#parseInt(String)} won't throw
+	 * an exception.
+	 * 
+	 * @param string
+	 *            the string
+	 * @return <code>true</code> if, and only if, <code>string</code> is a parsable integer
+	 * @see Integer#parseInt(String)
+	 */
+	static boolean isParsableInt(String string)
+	{
+		int length = string.length();
+
+		if (length == 0) {
+			return false;
+		}
+
+		char firstChar = string.charAt(0);
+		boolean negative = firstChar == '-';
+		int start = negative || firstChar == '+' ? 1 : 0;
+
+		if (start == length) {
+			return false;
+		}
+
+		long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+
+		for (int i = start; i < length; i++) {
+			int digit = Character.digit(string.charAt(i), 10);
+
+			if (digit < 0) {
+				return false;
+			}
+
+			value = value * 10 + digit;
+
+			if (value > limit) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	/**
 	 * Returns a String that is never used as a mapping name
 	 * 
@@ -1066,4 +1111,197 @@ class RefactorUtility
 		return "[" + trailingDigits.charAt(0) + "]" +
 				trailingDigits.substring(1);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Flags which require the regular expression to be refactored
+	 * (regardless of its syntax)
+	 */
+	private static final int REFACTOR_FLAGS = info.codesaway.util.regex.Pattern.COMMENTS |
+			info.codesaway.util.regex.Pattern.EXPLICIT_CAPTURE;
+
+	/**
+	 * The inline flags supported by Java (other than "x", which requires
+	 * handling comments)
+	 */
+	private static final String JAVA_INLINE_FLAGS = "idmsuU";
+
+	/**
+	 * <p>Indicates whether the regular expression needs to be refactored
+	 * before it can be compiled by Java's {@link Pattern} class.</p>
+	 * 
+	 * <p>This is a single scan over the regular expression, which looks for
+	 * any syntax that the {@link Refactor} class would change, such as named
+	 * groups, back references, conditionals, branch reset patterns,
+	 * subroutines, numeric ranges, comments, <code>\x{...}</code>,
+	 * <code>\c</code>, POSIX character classes, and the RegExPlus inline
+	 * flags (J, n, o, v, and x).</p>
+	 * 
+	 * <p>The check is conservative; a return value of <code>false</code>
+	 * means the refactored regular expression would be the same as
+	 * <code>regex</code>, with only unnamed groups.</p>
+	 * 
+	 * @param regex
+	 *            the regular expression
+	 * @param flags
+	 *            the flags
+	 * @return <code>false</code> if the regular expression can be compiled
+	 *         as is by Java's {@link Pattern} class
+	 */
+	static boolean requiresRefactor(String regex, int flags)
+	{
+		if ((flags & REFACTOR_FLAGS) != 0)
+			return true;
+
+		int length = regex.length();
+		int charClassDepth = 0;
+		boolean inCurlyBrace = false;
+
+		for (int i = 0; i < length; i++) {
+			char c = regex.charAt(i);
+
+			switch (c) {
+			case '\\':
+				if (++i == length)
+					// Trailing backslash (let Java report the error)
+					return false;
+
+				char escaped = regex.charAt(i);
+
+				if (escaped == 'Q') {
+					// Skip \Q..\E block
+					int end = regex.indexOf("\\E", i + 1);
+
+					if (end == -1)
+						return false;
+
+					i = end + 1;
+				} else if (escaped >= '0' && escaped <= '9' || escaped == 'g' || escaped == 'k' ||
+						escaped == 'c' || escaped == 'X') {
+					// Back reference, octal, control character, or grapheme
+					return true;
+				} else if (escaped == 'x') {
+					// Only \\x followed by 2 hex digits is valid Java syntax
+					if (!isHexDigits(regex, i + 1, 2))
+						return true;
+				} else if (escaped == 'u') {
+					// Only \\u followed by 4 hex digits is valid Java syntax
+					if (!isHexDigits(regex, i + 1, 4))
+						return true;
+				}
+				break;
+			case '[':
+				if (i + 1 < length && regex.charAt(i + 1) == ':')
+					// POSIX character class
+					return true;
+
+				// Same handling as Refactor, where "[]" and "[^]" start a
+				// character class that includes the "]"
+				charClassDepth++;
+
+				if (regex.startsWith("]", i + 1) || i + 1 < length - 2 && regex.startsWith("^]", i + 1))
+					charClassDepth++;
+				break;
+			case ']':
+				if (charClassDepth != 0)
+					charClassDepth--;
+				break;
+			case '{':
+				if (charClassDepth == 0) {
+					if (inCurlyBrace)
+						return true;
+
+					inCurlyBrace = true;
+				}
+				break;
+			case '}':
+				if (charClassDepth == 0) {
+					if (!inCurlyBrace)
+						// Refactor escapes a '}' by itself
+						return true;
+
+					inCurlyBrace = false;
+				}
+				break;
+			case '(':
+				if (i + 1 < length) {
+					char next = regex.charAt(i + 1);
+
+					if (next == '*')
+						// Verb, such as (*FAIL)
+						return true;
+
+					if (next == '?' && requiresRefactorGroup(regex, i + 2))
+						return true;
+				}
+				break;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Indicates whether the group starting with "(?" needs to be refactored
+	 * 
+	 * @param regex
+	 *            the regular expression
+	 * @param start
+	 *            the index after the "(?"
+	 * @return <code>true</code> unless the group is a non-capture group,
+	 *         lookaround, atomic group, or flags supported by Java
+	 */
+	private static boolean requiresRefactorGroup(String regex, int start)
+	{
+		int length = regex.length();
+
+		if (start == length)
+			return true;
+
+		switch (regex.charAt(start)) {
+		case ':':
+		case '=':
+		case '!':
+		case '>':
+			return false;
+		case '<':
+			// Lookbehind (otherwise a named group)
+			return !(regex.startsWith("=", start + 1) || regex.startsWith("!", start + 1));
+		}
+
+		// Inline flags, such as "(?i)", "(?-i)", or "(?i-s:"
+		boolean seenDash = false;
+
+		for (int i = start; i < length; i++) {
+			char c = regex.charAt(i);
+
+			if (c == ':' || c == ')')
+				return false;
+			else if (c == '-' && !seenDash)
+				seenDash = true;
+			else if (JAVA_INLINE_FLAGS.indexOf(c) == -1)
+				// RegExPlus flag, subroutine, conditional, etc.
+				return true;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Indicates whether there are exactly <code>count</code> hex digits
+	 * starting at the specified index (more digits may follow)
+	 */
+	private static boolean isHexDigits(String regex, int start, int count)
+	{
+		if (start + count > regex.length())
+			return false;
+
+		for (int i = start; i < start + count; i++) {
+			char c = regex.charAt(i);
+
+			if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F'))
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,329 @@
+package info.codesaway.util.regex;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A node in the syntax tree built by {@link RegExParser}
+ *
+ * <p>Each node knows the Java syntax it is emitted as (see {@link #appendTo(StringBuilder)}), so the internal
+ * pattern is generated by walking the tree once.</p>
+ *
+ * @since 2.1
+ */
+abstract class RegExNode {
+	/**
+	 * Appends the Java regular expression syntax for this node
+	 *
+	 * @param result
+	 *            the builder to append to
+	 */
+	abstract void appendTo(StringBuilder result);
+
+	/**
+	 * Returns the Java regular expression syntax for this node
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		this.appendTo(result);
+		return result.toString();
+	}
+
+	/**
+	 * Nodes which match one after the other (for example, <code>abc</code>)
+	 */
+	static final class Sequence extends RegExNode {
+		private final List<RegExNode> nodes;
+
+		Sequence(final List<RegExNode> nodes) {
+			this.nodes = Collections.unmodifiableList(nodes);
+		}
+
+		List<RegExNode> getNodes() {
+			return this.nodes;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			for (RegExNode node : this.nodes) {
+				node.appendTo(result);
+			}
+		}
+	}
+
+	/**
+	 * Alternatives separated by a pike (for example, <code>a|b|c</code>)
+	 */
+	static final class Alternation extends RegExNode {
+		private final List<RegExNode> alternatives;
+
+		Alternation(final List<RegExNode> alternatives) {
+			this.alternatives = Collections.unmodifiableList(alternatives);
+		}
+
+		List<RegExNode> getAlternatives() {
+			return this.alternatives;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			for (int i = 0; i < this.alternatives.size(); i++) {
+				if (i != 0) {
+					result.append('|');
+				}
+
+				this.alternatives.get(i).appendTo(result);
+			}
+		}
+	}
+
+	/**
+	 * The kinds of groups
+	 */
+	enum GroupType {
+		/** A capture group (named or unnamed) */
+		CAPTURE,
+
+		/** A non-capture group, which may set flags (for example, <code>(?i:RegEx)</code>) */
+		NON_CAPTURE,
+
+		/** <code>(?=RegEx)</code> */
+		LOOKAHEAD,
+
+		/** <code>(?!RegEx)</code> */
+		NEGATIVE_LOOKAHEAD,
+
+		/** <code>(?&lt;=RegEx)</code> */
+		LOOKBEHIND,
+
+		/** <code>(?&lt;!RegEx)</code> */
+		NEGATIVE_LOOKBEHIND,
+
+		/** <code>(?&gt;RegEx)</code> */
+		ATOMIC
+	}
+
+	/**
+	 * A parenthesized group
+	 */
+	static final class Group extends RegExNode {
+		private final GroupType type;
+		private final String start;
+		private final RegExNode body;
+		private final int groupIndex;
+		private final String name;
+
+		/**
+		 * @param type
+		 *            the type of group
+		 * @param start
+		 *            the Java syntax which starts the group (for example, <code>"(?:"</code>)
+		 * @param body
+		 *            the contents of the group
+		 * @param groupIndex
+		 *            the group index (for a capture group), or 0
+		 * @param name
+		 *            the group name (for a named group), or <code>null</code>
+		 */
+		Group(final GroupType type, final String start, final RegExNode body, final int groupIndex,
+				final String name) {
+			this.type = type;
+			this.start = start;
+			this.body = body;
+			this.groupIndex = groupIndex;
+			this.name = name;
+		}
+
+		GroupType getType() {
+			return this.type;
+		}
+
+		RegExNode getBody() {
+			return this.body;
+		}
+
+		int getGroupIndex() {
+			return this.groupIndex;
+		}
+
+		String getName() {
+			return this.name;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			result.append(this.start);
+			this.body.appendTo(result);
+			result.append(')');
+		}
+	}
+
+	/**
+	 * Inline flags which apply to the rest of the enclosing group (for example, <code>(?i)</code>)
+	 */
+	static final class InlineFlags extends RegExNode {
+		private final String text;
+
+		InlineFlags(final String text) {
+			this.text = text;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			result.append(this.text);
+		}
+	}
+
+	/**
+	 * A quantified node (for example, <code>a*</code> or <code>a{2,3}?</code>)
+	 */
+	static final class Quantifier extends RegExNode {
+		/** The maximum for an unbounded quantifier (such as <code>*</code>) */
+		static final int UNBOUNDED = -1;
+
+		private final RegExNode node;
+		private final int min;
+		private final int max;
+		private final String text;
+
+		/**
+		 * @param node
+		 *            the quantified node
+		 * @param min
+		 *            the minimum number of repetitions
+		 * @param max
+		 *            the maximum number of repetitions, or {@link #UNBOUNDED}
+		 * @param text
+		 *            the quantifier (including any lazy or possessive suffix)
+		 */
+		Quantifier(final RegExNode node, final int min, final int max, final String text) {
+			this.node = node;
+			this.min = min;
+			this.max = max;
+			this.text = text;
+		}
+
+		RegExNode getNode() {
+			return this.node;
+		}
+
+		int getMin() {
+			return this.min;
+		}
+
+		int getMax() {
+			return this.max;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			this.node.appendTo(result);
+			result.append(this.text);
+		}
+	}
+
+	/**
+	 * Literal text, such as <code>a</code>, <code>\.</code>, <code>\x41</code>, or <code>\Q...\E</code>
+	 */
+	static final class Literal extends RegExNode {
+		private final String value;
+		private final String text;
+
+		/**
+		 * @param value
+		 *            the literal text matched
+		 * @param text
+		 *            the Java syntax for the literal
+		 */
+		Literal(final String value, final String text) {
+			this.value = value;
+			this.text = text;
+		}
+
+		String getValue() {
+			return this.value;
+		}
+
+		String getText() {
+			return this.text;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			result.append(this.text);
+		}
+	}
+
+	/**
+	 * A character class, such as <code>[a-z]</code>
+	 */
+	static final class CharClass extends RegExNode {
+		private final String text;
+
+		CharClass(final String text) {
+			this.text = text;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			result.append(this.text);
+		}
+	}
+
+	/**
+	 * A predefined character class, such as <code>.</code>, <code>\d</code>, or <code>\p{L}</code>
+	 */
+	static final class CharType extends RegExNode {
+		private final String text;
+
+		CharType(final String text) {
+			this.text = text;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			result.append(this.text);
+		}
+	}
+
+	/**
+	 * A zero-width boundary matcher, such as <code>^</code>, <code>\b</code>, or <code>\G</code>
+	 */
+	static final class Anchor extends RegExNode {
+		private final String text;
+
+		Anchor(final String text) {
+			this.text = text;
+		}
+
+		String getText() {
+			return this.text;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			result.append(this.text);
+		}
+	}
+
+	/**
+	 * A back reference to a capture group which has already started (by name or number)
+	 */
+	static final class Backreference extends RegExNode {
+		private final int groupIndex;
+
+		Backreference(final int groupIndex) {
+			this.groupIndex = groupIndex;
+		}
+
+		int getGroupIndex() {
+			return this.groupIndex;
+		}
+
+		@Override
+		void appendTo(final StringBuilder result) {
+			result.append('\\').append(this.groupIndex);
+		}
+	}
+}
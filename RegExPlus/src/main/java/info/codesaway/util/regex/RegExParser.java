@@ -0,0 +1,885 @@
+package info.codesaway.util.regex;
+
+import static info.codesaway.util.regex.RefactorUtility.hexCodeFormat;
+import static info.codesaway.util.regex.RefactorUtility.posixClasses;
+import static info.codesaway.util.regex.RefactorUtility.unicodeFormat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import info.codesaway.util.regex.RegExNode.Alternation;
+import info.codesaway.util.regex.RegExNode.Anchor;
+import info.codesaway.util.regex.RegExNode.Backreference;
+import info.codesaway.util.regex.RegExNode.CharClass;
+import info.codesaway.util.regex.RegExNode.CharType;
+import info.codesaway.util.regex.RegExNode.Group;
+import info.codesaway.util.regex.RegExNode.GroupType;
+import info.codesaway.util.regex.RegExNode.InlineFlags;
+import info.codesaway.util.regex.RegExNode.Literal;
+import info.codesaway.util.regex.RegExNode.Quantifier;
+import info.codesaway.util.regex.RegExNode.Sequence;
+
+/**
+ * Single-pass parser which converts a regular expression into a {@link RegExTree}, whose Java syntax is used as the
+ * internal pattern
+ *
+ * <p>The parser handles the commonly used RegExPlus syntax (named groups, back references to groups which have
+ * already started, comments, the <code>J</code> flag, <code>\x{h..h}</code>, <code>\xh</code>, short
+ * <code>&#92;u</code> escapes, <code>\cX</code>, <code>\X</code>, POSIX character classes, and <code>(*FAIL)</code>).
+ * It produces the same internal pattern and group mappings as {@link Refactor}, but reads the regular expression
+ * only once.</p>
+ *
+ * <p>Any other syntax (such as conditionals, branch resets, subroutines, numeric ranges, forward references,
+ * duplicate names, or the flags which change how the regular expression is read), as well as any syntax error, is
+ * left to {@link Refactor}, so it is handled and reported exactly as before.</p>
+ *
+ * @since 2.1
+ */
+final class RegExParser {
+	/**
+	 * Flags which require the regular expression to be refactored by {@link Refactor}
+	 */
+	private static final int UNSUPPORTED_FLAGS = Pattern.LITERAL | Pattern.COMMENTS | Pattern.EXPLICIT_CAPTURE
+			| Pattern.DOTNET_NUMBERING | Pattern.PERL_OCTAL | Pattern.VERIFY_GROUPS;
+
+	/**
+	 * Inline flags supported by the parser (<code>J</code> is removed, since it is not a Java flag)
+	 */
+	private static final String SUPPORTED_INLINE_FLAGS = "idmsuUJ";
+
+	/**
+	 * Replacement for <code>\X</code> (an extended grapheme cluster)
+	 */
+	private static final String EXTENDED_GRAPHEME_CLUSTER = "(?>\\P{M}\\p{M}*)";
+
+	private final String regex;
+	private final int length;
+	private int index;
+	private int groupCount;
+	private final Map<String, Integer> namedGroups = new LinkedHashMap<>();
+
+	private RegExParser(final String regex) {
+		this.regex = regex;
+		this.length = regex.length();
+	}
+
+	/**
+	 * Parses the regular expression
+	 *
+	 * @param regex
+	 *            the regular expression
+	 * @param flags
+	 *            the match flags
+	 * @return the parsed regular expression, or <code>null</code> if the regular expression must be refactored by
+	 *         {@link Refactor} instead
+	 */
+	static RegExTree parse(final String regex, final int flags) {
+		if ((flags & UNSUPPORTED_FLAGS) != 0) {
+			return null;
+		}
+
+		RegExParser parser = new RegExParser(regex);
+
+		try {
+			RegExNode root = parser.parseAlternation();
+
+			if (parser.index != parser.length) {
+				// Unmatched closing ')'
+				return null;
+			}
+
+			return new RegExTree(root, parser.groupCount, parser.namedGroups);
+		} catch (UnsupportedSyntaxException e) {
+			return null;
+		}
+	}
+
+	private RegExNode parseAlternation() {
+		RegExNode sequence = this.parseSequence();
+
+		if (!this.at('|')) {
+			return sequence;
+		}
+
+		List<RegExNode> alternatives = new ArrayList<>();
+		alternatives.add(sequence);
+
+		while (this.at('|')) {
+			this.index++;
+			alternatives.add(this.parseSequence());
+		}
+
+		return new Alternation(alternatives);
+	}
+
+	private RegExNode parseSequence() {
+		List<RegExNode> nodes = new ArrayList<>();
+
+		while (this.index < this.length) {
+			char c = this.regex.charAt(this.index);
+			RegExNode node;
+
+			switch (c) {
+			case '|':
+			case ')':
+				return new Sequence(nodes);
+			case '(':
+				node = this.parseGroup();
+				break;
+			case '[':
+				if (this.regex.startsWith("[:", this.index)) {
+					// POSIX class outside of a character class
+					throw UnsupportedSyntaxException.INSTANCE;
+				}
+
+				node = this.parseCharClass();
+				break;
+			case '\\':
+				node = this.parseEscape();
+				break;
+			case '*':
+			case '+':
+			case '?':
+			case '{':
+				this.parseQuantifier(nodes);
+				continue;
+			case '}':
+				// Escape a lone '}' (same as Refactor, since Android requires it)
+				this.index++;
+				node = new Literal("}", "\\}");
+				break;
+			case '.':
+				this.index++;
+				node = new CharType(".");
+				break;
+			case '^':
+			case '$':
+				this.index++;
+				node = new Anchor(String.valueOf(c));
+				break;
+			default:
+				node = this.parseLiteral();
+				break;
+			}
+
+			if (node == null) {
+				// Removed from the internal pattern (such as a comment)
+				continue;
+			}
+
+			nodes.add(node);
+
+			if (node instanceof Backreference && this.index < this.length && isDigit(this.regex.charAt(this.index))) {
+				// Wrap a digit which follows a back reference, so it isn't read as part of the group number
+				char digit = this.regex.charAt(this.index++);
+				nodes.add(new Literal(String.valueOf(digit), "[" + digit + "]"));
+			}
+		}
+
+		return new Sequence(nodes);
+	}
+
+	private RegExNode parseLiteral() {
+		int start = this.index;
+		this.index += Character.charCount(this.regex.codePointAt(start));
+		String literal = this.regex.substring(start, this.index);
+
+		return new Literal(literal, literal);
+	}
+
+	private void parseQuantifier(final List<RegExNode> nodes) {
+		int start = this.index;
+		char c = this.regex.charAt(this.index++);
+		int min;
+		int max;
+
+		if (c == '*') {
+			min = 0;
+			max = Quantifier.UNBOUNDED;
+		} else if (c == '+') {
+			min = 1;
+			max = Quantifier.UNBOUNDED;
+		} else if (c == '?') {
+			min = 0;
+			max = 1;
+		} else {
+			// {n}, {n,}, or {n,m}
+			min = this.parseNumber();
+
+			if (this.at(',')) {
+				this.index++;
+				max = this.at('}') ? Quantifier.UNBOUNDED : this.parseNumber();
+			} else {
+				max = min;
+			}
+
+			this.expect('}');
+		}
+
+		if (this.at('?') || this.at('+')) {
+			// Lazy or possessive
+			this.index++;
+		}
+
+		if (nodes.isEmpty()) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		int last = nodes.size() - 1;
+		RegExNode node = nodes.get(last);
+
+		// Java doesn't allow quantifying a quantifier or flags
+		// (also, only the last character of a quoted literal is quantified)
+		if (node instanceof Quantifier || node instanceof InlineFlags
+				|| node instanceof Literal && !isSingleCodePoint(((Literal) node).getValue())) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		nodes.set(last, new Quantifier(node, min, max, this.regex.substring(start, this.index)));
+	}
+
+	private int parseNumber() {
+		int start = this.index;
+
+		while (this.index < this.length && isDigit(this.regex.charAt(this.index))) {
+			this.index++;
+		}
+
+		// Limit digits to prevent overflow
+		if (this.index == start || this.index - start > 9) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		return Integer.parseInt(this.regex.substring(start, this.index));
+	}
+
+	/**
+	 * Parses a group, starting at the '('
+	 *
+	 * @return the group, or <code>null</code> if the group is removed from the internal pattern
+	 */
+	private RegExNode parseGroup() {
+		int start = this.index++;
+
+		if (this.at('*')) {
+			// (*F) or (*FAIL) - always fails
+			if (this.regex.startsWith("*F)", this.index)) {
+				this.index += 3;
+			} else if (this.regex.startsWith("*FAIL)", this.index)) {
+				this.index += 6;
+			} else {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			return new Group(GroupType.NEGATIVE_LOOKAHEAD, "(?!", new Sequence(new ArrayList<>()), 0, null);
+		}
+
+		if (!this.at('?')) {
+			return this.parseCaptureGroup(null);
+		}
+
+		this.index++;
+
+		if (this.index == this.length) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		char c = this.regex.charAt(this.index++);
+
+		switch (c) {
+		case ':':
+			return this.parseGroup(GroupType.NON_CAPTURE, "(?:");
+		case '=':
+			return this.parseGroup(GroupType.LOOKAHEAD, "(?=");
+		case '!':
+			return this.parseGroup(GroupType.NEGATIVE_LOOKAHEAD, "(?!");
+		case '>':
+			return this.parseGroup(GroupType.ATOMIC, "(?>");
+		case '<':
+			if (this.at('=')) {
+				this.index++;
+				return this.parseGroup(GroupType.LOOKBEHIND, "(?<=");
+			} else if (this.at('!')) {
+				this.index++;
+				return this.parseGroup(GroupType.NEGATIVE_LOOKBEHIND, "(?<!");
+			}
+
+			return this.parseCaptureGroup(this.parseGroupName('>'));
+		case '\'':
+			return this.parseCaptureGroup(this.parseGroupName('\''));
+		case 'P':
+			if (this.at('<')) {
+				this.index++;
+				return this.parseCaptureGroup(this.parseGroupName('>'));
+			} else if (this.at('=')) {
+				this.index++;
+				return this.backreference(this.parseGroupName(')'));
+			}
+
+			throw UnsupportedSyntaxException.INSTANCE;
+		case '#':
+			// Comment (removed)
+			int end = this.regex.indexOf(')', this.index);
+
+			if (end == -1) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			this.index = end + 1;
+			return null;
+		default:
+			this.index--;
+			return this.parseFlags(start);
+		}
+	}
+
+	private Group parseGroup(final GroupType type, final String groupStart) {
+		RegExNode body = this.parseAlternation();
+		this.expect(')');
+
+		return new Group(type, groupStart, body, 0, null);
+	}
+
+	private Group parseCaptureGroup(final String name) {
+		int groupIndex = ++this.groupCount;
+
+		if (name != null && this.namedGroups.put(name, groupIndex) != null) {
+			// Duplicate name
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		RegExNode body = this.parseAlternation();
+		this.expect(')');
+
+		// Named groups are emitted as unnamed groups (the name is tracked by the group mappings)
+		return new Group(GroupType.CAPTURE, "(", body, groupIndex, name);
+	}
+
+	/**
+	 * Parses inline flags, such as <code>(?i)</code> or <code>(?i-s:RegEx)</code>
+	 *
+	 * @param start
+	 *            the index of the '('
+	 * @return the flags, or <code>null</code> if the flags are removed from the internal pattern
+	 */
+	private RegExNode parseFlags(final int start) {
+		String onFlags = this.parseFlagLetters();
+		String offFlags;
+
+		if (this.at('-')) {
+			this.index++;
+			offFlags = this.parseFlagLetters();
+		} else {
+			offFlags = null;
+		}
+
+		if (!this.at(')') && !this.at(':')) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		boolean isGroup = this.regex.charAt(this.index++) == ':';
+		String flagsText;
+
+		if (onFlags.indexOf('J') == -1 && (offFlags == null || offFlags.indexOf('J') == -1)) {
+			flagsText = this.regex.substring(start, this.index - 1);
+		} else {
+			// Remove the J flag (same as Refactor)
+			StringBuilder newFlags = new StringBuilder("(?").append(onFlags.replace("J", ""));
+
+			if (offFlags != null && offFlags.replace("J", "").length() != 0) {
+				newFlags.append('-').append(offFlags.replace("J", ""));
+			}
+
+			if (newFlags.length() == 2 && !isGroup) {
+				return null;
+			}
+
+			flagsText = newFlags.toString();
+		}
+
+		if (!isGroup) {
+			return new InlineFlags(flagsText + ")");
+		}
+
+		return this.parseGroup(GroupType.NON_CAPTURE, flagsText + ":");
+	}
+
+	private String parseFlagLetters() {
+		int start = this.index;
+
+		while (this.index < this.length && SUPPORTED_INLINE_FLAGS.indexOf(this.regex.charAt(this.index)) != -1) {
+			this.index++;
+		}
+
+		return this.regex.substring(start, this.index);
+	}
+
+	/**
+	 * Parses a group name, and the terminator which follows it
+	 *
+	 * @param terminator
+	 *            the character which ends the name
+	 * @return the group name
+	 */
+	private String parseGroupName(final char terminator) {
+		int start = this.index;
+
+		if (this.index == this.length || !Character.isJavaIdentifierStart(this.regex.codePointAt(this.index))) {
+			// Missing name (or a name which starts with a digit)
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		do {
+			this.index += Character.charCount(this.regex.codePointAt(this.index));
+		} while (this.index < this.length && Character.isJavaIdentifierPart(this.regex.codePointAt(this.index)));
+
+		String name = this.regex.substring(start, this.index);
+		this.expect(terminator);
+
+		return name;
+	}
+
+	/**
+	 * Returns a back reference to the named group, which must have already started
+	 *
+	 * @param name
+	 *            the group name
+	 * @return the back reference
+	 */
+	private Backreference backreference(final String name) {
+		Integer groupIndex = this.namedGroups.get(name);
+
+		if (groupIndex == null) {
+			// Forward reference or non-existent group
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		return new Backreference(groupIndex);
+	}
+
+	/**
+	 * Parses an escape sequence (outside of a character class), starting at the '\'
+	 *
+	 * @return the escape sequence
+	 */
+	private RegExNode parseEscape() {
+		int start = this.index++;
+
+		if (this.index == this.length) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		char c = this.regex.charAt(this.index++);
+
+		switch (c) {
+		case 'Q':
+			int end = this.regex.indexOf("\\E", this.index);
+			String quoted = end == -1 ? this.regex.substring(this.index) : this.regex.substring(this.index, end);
+			this.index = end == -1 ? this.length : end + 2;
+
+			return new Literal(quoted, this.regex.substring(start, this.index));
+		case '1':
+		case '2':
+		case '3':
+		case '4':
+		case '5':
+		case '6':
+		case '7':
+		case '8':
+		case '9':
+			int groupIndex = c - '0';
+
+			// Only single digit references to groups which have already started
+			if (this.index < this.length && isDigit(this.regex.charAt(this.index)) || groupIndex > this.groupCount) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			return new Backreference(groupIndex);
+		case 'k':
+			if (this.at('<')) {
+				this.index++;
+				return this.backreference(this.parseGroupName('>'));
+			} else if (this.at('\'')) {
+				this.index++;
+				return this.backreference(this.parseGroupName('\''));
+			} else if (this.at('{')) {
+				this.index++;
+				return this.backreference(this.parseGroupName('}'));
+			}
+
+			throw UnsupportedSyntaxException.INSTANCE;
+		case 'g':
+			if (this.at('{')) {
+				this.index++;
+				return this.backreference(this.parseGroupName('}'));
+			}
+
+			throw UnsupportedSyntaxException.INSTANCE;
+		case 'x':
+		case 'u':
+		case 'c':
+			this.index = start;
+			return this.parseCharacterEscape();
+		case 'X':
+			return new CharType(EXTENDED_GRAPHEME_CLUSTER);
+		case 'p':
+		case 'P':
+			this.skipProperty();
+			return new CharType(this.regex.substring(start, this.index));
+		case 'd':
+		case 'D':
+		case 'h':
+		case 'H':
+		case 's':
+		case 'S':
+		case 'v':
+		case 'V':
+		case 'w':
+		case 'W':
+		case 'R':
+			return new CharType(this.regex.substring(start, this.index));
+		case 'b':
+			if (this.at('{')) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+			// fall through
+		case 'B':
+		case 'A':
+		case 'G':
+		case 'z':
+		case 'Z':
+			return new Anchor(this.regex.substring(start, this.index));
+		case 't':
+			return new Literal("\t", "\\t");
+		case 'n':
+			return new Literal("\n", "\\n");
+		case 'r':
+			return new Literal("\r", "\\r");
+		case 'f':
+			return new Literal("\f", "\\f");
+		case 'a':
+			return new Literal("\u0007", "\\a");
+		case 'e':
+			return new Literal("\u001B", "\\e");
+		default:
+			if (isAsciiLetterOrDigit(c)) {
+				// \0 (octal), \N, \E, or an unknown escape
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			// Escaped character (including a surrogate pair)
+			this.index = start + 1 + Character.charCount(this.regex.codePointAt(start + 1));
+			String text = this.regex.substring(start, this.index);
+
+			return new Literal(text.substring(1), text);
+		}
+	}
+
+	/**
+	 * Parses a hex (<code>\xhh</code>, <code>\xh</code>, or <code>\x{h..h}</code>), unicode (<code>&#92;u</code><i>hhhh</i>),
+	 * or control character (<code>\cX</code>) escape, starting at the '\'
+	 *
+	 * @return the escaped character (using Java syntax)
+	 */
+	private Literal parseCharacterEscape() {
+		int start = this.index;
+		char c = this.regex.charAt(this.index + 1);
+		this.index += 2;
+
+		int codePoint;
+		String text;
+
+		if (c == 'c') {
+			if (this.index == this.length || !isAsciiLetter(this.regex.charAt(this.index))) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			char controlCharacter = this.regex.charAt(this.index++);
+			codePoint = Character.toUpperCase(controlCharacter) - ('A' - 1);
+			text = String.format(hexCodeFormat, codePoint);
+		} else if (c == 'x' && this.at('{')) {
+			int end = this.regex.indexOf('}', this.index);
+
+			if (end == -1 || !isHexDigits(this.regex, this.index + 1, end) || end - this.index - 1 > 6) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			codePoint = Integer.parseInt(this.regex.substring(this.index + 1, end), 16);
+			this.index = end + 1;
+
+			if (codePoint > Character.MAX_CODE_POINT) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			} else if (codePoint <= 0xFF) {
+				text = String.format(hexCodeFormat, codePoint);
+			} else if (Character.charCount(codePoint) == 1) {
+				text = String.format(unicodeFormat, codePoint);
+			} else {
+				text = new String(Character.toChars(codePoint));
+			}
+		} else {
+			// \xh, \xhh, or \\u followed by 1 to 4 hex digits
+			int maxDigits = c == 'x' ? 2 : 4;
+			int end = this.index;
+
+			while (end < this.length && end - this.index < maxDigits && isHexDigit(this.regex.charAt(end))) {
+				end++;
+			}
+
+			if (end == this.index) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			String hex = this.regex.substring(this.index, end);
+			this.index = end;
+
+			codePoint = Integer.parseInt(hex, 16);
+
+			StringBuilder padded = new StringBuilder(maxDigits + 2).append('\\').append(c);
+
+			for (int i = hex.length(); i < maxDigits; i++) {
+				padded.append('0');
+			}
+
+			text = hex.length() == maxDigits ? this.regex.substring(start, end) : padded.append(hex).toString();
+		}
+
+		return new Literal(new String(Character.toChars(codePoint)), text);
+	}
+
+	/**
+	 * Skips the property name which follows <code>\p</code> or <code>\P</code>
+	 */
+	private void skipProperty() {
+		if (this.at('{')) {
+			int end = this.regex.indexOf('}', this.index);
+
+			if (end == -1) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			this.index = end + 1;
+		} else if (this.index < this.length) {
+			this.index++;
+		} else {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+	}
+
+	/**
+	 * Parses a character class, starting at the '['
+	 *
+	 * @return the character class
+	 */
+	private CharClass parseCharClass() {
+		StringBuilder text = new StringBuilder();
+		this.parseCharClass(text, false);
+
+		return new CharClass(text.toString());
+	}
+
+	private void parseCharClass(final StringBuilder text, final boolean nested) {
+		text.append('[');
+		this.index++;
+
+		if (this.at('^')) {
+			text.append('^');
+			this.index++;
+		}
+
+		if (this.at(']')) {
+			if (nested) {
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			// A ']' at the start of the class is a literal
+			text.append(']');
+			this.index++;
+		}
+
+		while (this.index < this.length) {
+			char c = this.regex.charAt(this.index);
+
+			switch (c) {
+			case ']':
+				text.append(']');
+				this.index++;
+				return;
+			case '[':
+				if (this.regex.startsWith("[:", this.index)) {
+					this.parsePosixClass(text);
+				} else {
+					this.parseCharClass(text, true);
+				}
+				break;
+			case '\\':
+				this.parseCharClassEscape(text);
+				break;
+			case '(':
+				if (this.index + 1 < this.length && (this.regex.charAt(this.index + 1) == '?'
+						|| this.regex.charAt(this.index + 1) == '*')) {
+					// Refactor treats some groups specially, even inside a character class
+					throw UnsupportedSyntaxException.INSTANCE;
+				}
+				// fall through
+			default:
+				text.append(c);
+				this.index++;
+				break;
+			}
+		}
+
+		// Unclosed character class
+		throw UnsupportedSyntaxException.INSTANCE;
+	}
+
+	/**
+	 * Parses a POSIX character class (such as <code>[:alpha:]</code>), starting at the '['
+	 *
+	 * @param text
+	 *            the character class to append to
+	 */
+	private void parsePosixClass(final StringBuilder text) {
+		int start = this.index + 2;
+		boolean negated = start < this.length && this.regex.charAt(start) == '^';
+		int nameStart = negated ? start + 1 : start;
+		int nameEnd = nameStart;
+
+		while (nameEnd < this.length && isAsciiLetter(this.regex.charAt(nameEnd))) {
+			nameEnd++;
+		}
+
+		if (nameEnd == nameStart || !this.regex.startsWith(":]", nameEnd)) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		String posixClass = this.regex.substring(nameStart, nameEnd);
+
+		if (posixClass.equals("word")) {
+			text.append(negated ? "\\W" : "\\w");
+		} else {
+			String value = posixClasses.get(posixClass);
+
+			if (value == null) {
+				// Unknown POSIX class name
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			text.append('\\').append(negated ? 'P' : 'p').append('{').append(value).append('}');
+		}
+
+		this.index = nameEnd + 2;
+	}
+
+	/**
+	 * Parses an escape sequence inside a character class, starting at the '\'
+	 *
+	 * @param text
+	 *            the character class to append to
+	 */
+	private void parseCharClassEscape(final StringBuilder text) {
+		int start = this.index;
+
+		if (start + 1 == this.length) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		char c = this.regex.charAt(start + 1);
+
+		switch (c) {
+		case 'Q':
+			int end = this.regex.indexOf("\\E", start + 2);
+			this.index = end == -1 ? this.length : end + 2;
+			break;
+		case 'x':
+		case 'u':
+		case 'c':
+			text.append(this.parseCharacterEscape().getText());
+			return;
+		case 'p':
+		case 'P':
+			this.index += 2;
+			this.skipProperty();
+			break;
+		case 'k':
+		case 'g':
+		case 'X':
+		case 'N':
+		case 'E':
+			throw UnsupportedSyntaxException.INSTANCE;
+		default:
+			if (isDigit(c)) {
+				// Octal escape or back reference
+				throw UnsupportedSyntaxException.INSTANCE;
+			}
+
+			this.index = start + 1 + Character.charCount(this.regex.codePointAt(start + 1));
+			break;
+		}
+
+		text.append(this.regex, start, this.index);
+	}
+
+	private boolean at(final char c) {
+		return this.index < this.length && this.regex.charAt(this.index) == c;
+	}
+
+	private void expect(final char c) {
+		if (!this.at(c)) {
+			throw UnsupportedSyntaxException.INSTANCE;
+		}
+
+		this.index++;
+	}
+
+	private static boolean isDigit(final char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isAsciiLetter(final char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+	}
+
+	private static boolean isAsciiLetterOrDigit(final char c) {
+		return isAsciiLetter(c) || isDigit(c);
+	}
+
+	private static boolean isHexDigit(final char c) {
+		return isDigit(c) || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+	}
+
+	private static boolean isHexDigits(final String text, final int start, final int end) {
+		if (start == end) {
+			return false;
+		}
+
+		for (int i = start; i < end; i++) {
+			if (!isHexDigit(text.charAt(i))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isSingleCodePoint(final String text) {
+		return !text.isEmpty() && Character.charCount(text.codePointAt(0)) == text.length();
+	}
+
+	/**
+	 * Thrown when the regular expression uses syntax which must be refactored by {@link Refactor}
+	 *
+	 * <p>A shared instance (without a stack trace) is used, since it only signals to fall back to
+	 * {@link Refactor}.</p>
+	 */
+	private static final class UnsupportedSyntaxException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		static final UnsupportedSyntaxException INSTANCE = new UnsupportedSyntaxException();
+
+		private UnsupportedSyntaxException() {
+			super(null, null, false, false);
+		}
+	}
+}
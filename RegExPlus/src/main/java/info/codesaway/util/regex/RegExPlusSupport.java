@@ -9,6 +9,12 @@ package info.codesaway.util.regex;
 public final class RegExPlusSupport {
 	private static final ThreadLocal<Matcher> CURRENT_MATCHER = new ThreadLocal<>();
 
+	/**
+	 * Whether {@link Pattern#isPartialMatch(CharSequence)}, {@link Pattern#isCase(Object)}, and
+	 * {@link Matcher#asBoolean()} store the last matcher
+	 */
+	private static volatile boolean lastMatcherTracked = true;
+
 	public static Matcher getLastMatcher() {
 		return CURRENT_MATCHER.get();
 	}
@@ -17,4 +23,50 @@ public final class RegExPlusSupport {
 		CURRENT_MATCHER.set(matcher);
 		return matcher;
 	}
+
+	/**
+	 * Indicates whether the last matcher is stored by {@link Pattern#isPartialMatch(CharSequence)},
+	 * {@link Pattern#isCase(Object)}, and {@link Matcher#asBoolean()}.
+	 *
+	 * @return <code>true</code> if the last matcher is stored (the default)
+	 * @since 2.1
+	 */
+	public static boolean isLastMatcherTracked() {
+		return lastMatcherTracked;
+	}
+
+	/**
+	 * Sets whether the last matcher is stored by {@link Pattern#isPartialMatch(CharSequence)},
+	 * {@link Pattern#isCase(Object)}, and {@link Matcher#asBoolean()}.
+	 *
+	 * <p>Storing the last matcher keeps it (and its input) for each thread, until the thread stores another matcher.
+	 * Applications which never call {@link #getLastMatcher()} can turn this off; the matchers used by
+	 * <code>isPartialMatch</code> and <code>isCase</code> are then reused. Turning this off also removes the current
+	 * thread's last matcher. {@link #setLastMatcher(Matcher)} always stores the matcher.</p>
+	 *
+	 * @param tracked
+	 *            whether the last matcher is stored
+	 * @since 2.1
+	 */
+	public static void setLastMatcherTracked(final boolean tracked) {
+		lastMatcherTracked = tracked;
+
+		if (!tracked) {
+			CURRENT_MATCHER.remove();
+		}
+	}
+
+	/**
+	 * Stores the last matcher, unless turned off (see {@link #setLastMatcherTracked(boolean)})
+	 *
+	 * @return <code>true</code> if the matcher was stored (so it must not be reused)
+	 */
+	static boolean trackLastMatcher(final Matcher matcher) {
+		if (!lastMatcherTracked) {
+			return false;
+		}
+
+		CURRENT_MATCHER.set(matcher);
+		return true;
+	}
 }
\ No newline at end of file
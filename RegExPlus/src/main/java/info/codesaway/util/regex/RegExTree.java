@@ -0,0 +1,48 @@
+package info.codesaway.util.regex;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A regular expression parsed by {@link RegExParser}
+ *
+ * @since 2.1
+ */
+final class RegExTree {
+	private final RegExNode root;
+	private final int groupCount;
+	private final Map<String, Integer> namedGroups;
+
+	RegExTree(final RegExNode root, final int groupCount, final Map<String, Integer> namedGroups) {
+		this.root = root;
+		this.groupCount = groupCount;
+		this.namedGroups = Collections.unmodifiableMap(namedGroups);
+	}
+
+	RegExNode getRoot() {
+		return this.root;
+	}
+
+	/**
+	 * @return the number of capture groups
+	 */
+	int getGroupCount() {
+		return this.groupCount;
+	}
+
+	/**
+	 * @return the mapping from group names to group indexes
+	 */
+	Map<String, Integer> getNamedGroups() {
+		return this.namedGroups;
+	}
+
+	/**
+	 * Returns the equivalent regular expression, using only syntax supported by Java's
+	 * {@link java.util.regex.Pattern} class
+	 */
+	@Override
+	public String toString() {
+		return this.root.toString();
+	}
+}
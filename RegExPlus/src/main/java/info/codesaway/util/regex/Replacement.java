@@ -0,0 +1,248 @@
+package info.codesaway.util.regex;
+
+import static info.codesaway.util.regex.Pattern.getMappingName;
+import static info.codesaway.util.regex.RefactorUtility.fullGroupName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A replacement string compiled for a specific {@link Pattern}
+ *
+ * <p>The replacement string is parsed once, into the literal text and the group references (which are resolved to
+ * the groups in the pattern), so that it doesn't need to be parsed again for each match. Replacements are created
+ * using {@link Pattern#compileReplacement(String)} and can be used with {@link Matcher#replaceAll(Replacement)},
+ * {@link Matcher#replaceFirst(Replacement)}, and {@link Matcher#appendReplacement(StringBuffer, Replacement)}.</p>
+ *
+ * <p>The replacement string has the same syntax as the replacement string passed to
+ * {@link Matcher#appendReplacement(StringBuffer, String)}.</p>
+ *
+ * <pre><code>Replacement replacement = pattern.compileReplacement("${month}/${day}/${year}");
+ *
+ * for (String line : lines) {
+ *     String result = pattern.matcher(line).replaceAll(replacement);
+ * }</code></pre>
+ *
+ * <p>If a replacement is used with a matcher for a different pattern, the replacement string is compiled again for
+ * the matcher's pattern.</p>
+ *
+ * @since 2.1
+ */
+public final class Replacement {
+	private static final java.util.regex.Pattern replacementPart = java.util.regex.Pattern
+			.compile("\\G(?:(-?\\d++)|" + fullGroupName + ")\\}");
+
+	private final Pattern pattern;
+	private final String replacement;
+
+	/**
+	 * The literal text before each group reference, and after the last group reference (there is one more literal
+	 * than group reference)
+	 */
+	private final String[] literals;
+
+	/**
+	 * For each group reference, the group indexes (in the internal pattern) for each occurrence of the group
+	 */
+	private final int[][] groupIndexes;
+
+	private Replacement(final Pattern pattern, final String replacement, final String[] literals,
+			final int[][] groupIndexes) {
+		this.pattern = pattern;
+		this.replacement = replacement;
+		this.literals = literals;
+		this.groupIndexes = groupIndexes;
+	}
+
+	/**
+	 * Compiles the replacement string for the given pattern
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the replacement string refers to a named-capturing
+	 *             group that does not exist in the pattern
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the replacement string refers to a capturing group
+	 *             that does not exist in the pattern
+	 */
+	static Replacement compile(final Pattern pattern, final String replacement) {
+		List<String> literals = new ArrayList<>();
+		List<int[]> groupIndexes = new ArrayList<>();
+
+		int cursor = 0;
+		StringBuilder literal = new StringBuilder();
+		java.util.regex.Matcher matcher = null;
+
+		while (cursor < replacement.length()) {
+			char nextChar = replacement.charAt(cursor);
+
+			if (nextChar == '\\') {
+				cursor++;
+				nextChar = replacement.charAt(cursor);
+				literal.append(nextChar);
+				cursor++;
+			} else if (nextChar == '$') {
+				// Skip past $
+				cursor++;
+
+				// A StringIndexOutOfBoundsException is thrown if
+				// this "$" is the last character in replacement
+				// string in current implementation, a IAE might be
+				// more appropriate.
+				nextChar = replacement.charAt(cursor);
+
+				int[] mappedIndexes;
+
+				if (nextChar == '<') {
+					// e.g. $<name>
+					// (Java's named group reference)
+
+					cursor++;
+					int nameStart = cursor;
+					while (cursor < replacement.length()) {
+						nextChar = replacement.charAt(cursor);
+
+						if (nextChar >= 'a' && nextChar <= 'z' ||
+								nextChar >= 'A' && nextChar <= 'Z' ||
+								nextChar >= '0' && nextChar <= '9') {
+							cursor++;
+						} else {
+							break;
+						}
+					}
+					if (cursor == nameStart) {
+						throw new IllegalArgumentException(
+								"named capturing group has 0 length name");
+					}
+					if (nextChar != '>') {
+						throw new IllegalArgumentException(
+								"named capturing group is missing trailing '>'");
+					}
+					String gname = replacement.substring(nameStart, cursor);
+					Integer mappedIndex = pattern.getGroupMapping().get(getMappingName(gname, 1));
+					if (mappedIndex == null) {
+						throw new IllegalArgumentException(
+								"No group with name <" + gname + ">");
+					}
+					mappedIndexes = new int[] { mappedIndex };
+					cursor++;
+				} else if (nextChar == '{') {
+					if (matcher == null) {
+						matcher = replacementPart.matcher(replacement);
+					}
+
+					if (!matcher.find(++cursor)) {
+						throw new IllegalArgumentException(
+								"Illegal group reference");
+					}
+
+					String numberGroup = matcher.group(1);
+					cursor = matcher.end();
+
+					if (numberGroup != null) {
+						int groupIndex = Integer.parseInt(numberGroup);
+						mappedIndexes = MatcherHelper.resolveGroupIndexes(pattern, groupIndex);
+					} else {
+						String groupName = matcher.group(2);
+
+						if (groupName.length() == 0) {
+							throw new IllegalArgumentException(
+									"named capturing group has 0 length name");
+						}
+
+						String groupOccurrence = matcher.group(3);
+
+						if (groupOccurrence == null) {
+							mappedIndexes = pattern.groupRef(groupName).getGroupIndexes();
+						} else {
+							int occurrence = Integer.parseInt(groupOccurrence);
+							mappedIndexes = pattern.groupRef(groupName, occurrence).getGroupIndexes();
+						}
+					}
+				} else {
+					// e.g $123
+					// (original functionality)
+
+					// The first number is always a group
+					int refNum = nextChar - '0';
+					if ((refNum < 0) || (refNum > 9)) {
+						throw new IllegalArgumentException(
+								"Illegal group reference");
+					}
+
+					cursor++;
+					// Capture the largest legal group string
+					while (cursor < replacement.length()) {
+						int nextDigit = replacement.charAt(cursor) - '0';
+						if ((nextDigit < 0) || (nextDigit > 9)) { // not a number
+							break;
+						}
+						int newRefNum = (refNum * 10) + nextDigit;
+						if (pattern.groupCount() < newRefNum) {
+							break;
+						}
+						refNum = newRefNum;
+						cursor++;
+					}
+
+					mappedIndexes = MatcherHelper.resolveGroupIndexes(pattern, refNum);
+				}
+
+				literals.add(literal.toString());
+				literal.setLength(0);
+				groupIndexes.add(mappedIndexes);
+			} else {
+				literal.append(nextChar);
+				cursor++;
+			}
+		}
+
+		literals.add(literal.toString());
+
+		return new Replacement(pattern, replacement, literals.toArray(new String[0]),
+				groupIndexes.toArray(new int[0][]));
+	}
+
+	/**
+	 * Returns the pattern used to compile this replacement
+	 *
+	 * @return the pattern used to compile this replacement
+	 */
+	public Pattern pattern() {
+		return this.pattern;
+	}
+
+	/**
+	 * Indicates whether the replacement string is literal (that is, it doesn't refer to any groups)
+	 *
+	 * @return <code>true</code> if the replacement string doesn't refer to any groups
+	 */
+	public boolean isLiteral() {
+		return this.groupIndexes.length == 0;
+	}
+
+	/**
+	 * Returns the literal text before each group reference, and after the last group reference (must not be
+	 * modified)
+	 */
+	String[] getLiterals() {
+		return this.literals;
+	}
+
+	/**
+	 * Returns the group indexes (in the internal pattern) for each group reference (must not be modified)
+	 */
+	int[][] getGroupIndexes() {
+		return this.groupIndexes;
+	}
+
+	/**
+	 * Returns the replacement string, as passed to {@link Pattern#compileReplacement(String)}
+	 *
+	 * @return the replacement string
+	 */
+	@Override
+	public String toString() {
+		return this.replacement;
+	}
+}
@@ -0,0 +1,82 @@
+package info.codesaway.util.lcs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import info.codesaway.util.lcs.LongestCommonSubsequence.LcsDiffEntry;
+import info.codesaway.util.lcs.LongestCommonSubsequence.LcsDiffType;
+
+public class MyersDiffTest {
+	@Test
+	public void testDiff() {
+		assertThat(MyersDiff.diff("abc", "axc")).hasToString("[ a, -b, +x,  c]");
+		assertThat(MyersDiff.diff("", "ab")).hasToString("[+a, +b]");
+		assertThat(MyersDiff.diff("ab", "")).hasToString("[-a, -b]");
+		assertThat(MyersDiff.diff("abc", "xyz")).hasToString("[-a, -b, -c, +x, +y, +z]");
+		assertThat(MyersDiff.diff(new int[] { 1, 2, 3 }, new int[] { 1, 3, 4 })).hasToString("[ 1, -2,  3, +4]");
+	}
+
+	@Test
+	public void testSameLengthAsLcsTable() {
+		Random random = new Random(1);
+
+		for (int n = 0; n < 2000; n++) {
+			String before = randomString(random);
+			String after = randomString(random);
+
+			List<LcsDiffEntry<Character>> diff = MyersDiff.diff(before, after);
+			LcsString lcs = new LcsString(before, after);
+
+			assertThat(MyersDiff.lcsLength(before, after)).as(before + " -> " + after).isEqualTo(lcs.lcsLength());
+			// Equally short, though the changes may be aligned differently
+			assertThat(diff).as(before + " -> " + after).hasSameSizeAs(lcs.diff());
+			assertThat(apply(diff, LcsDiffType.ADD)).isEqualTo(before);
+			assertThat(apply(diff, LcsDiffType.REMOVE)).isEqualTo(after);
+		}
+	}
+
+	@Test
+	public void testLongInput() {
+		StringBuilder before = new StringBuilder();
+		StringBuilder after = new StringBuilder();
+
+		for (int i = 0; i < 100_000; i++) {
+			before.append((char) ('a' + i % 26));
+			after.append((char) ('a' + (i % 100 == 0 ? 25 - i % 26 : i % 26)));
+		}
+
+		List<LcsDiffEntry<Character>> diff = MyersDiff.diff(before, after);
+
+		assertThat(apply(diff, LcsDiffType.ADD)).isEqualTo(before.toString());
+		assertThat(apply(diff, LcsDiffType.REMOVE)).isEqualTo(after.toString());
+	}
+
+	private static String randomString(final Random random) {
+		char[] chars = new char[random.nextInt(12)];
+
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ('a' + random.nextInt(3));
+		}
+
+		return new String(chars);
+	}
+
+	/**
+	 * Returns the value after applying the diff, skipping entries of the specified type
+	 */
+	private static String apply(final List<LcsDiffEntry<Character>> diff, final LcsDiffType skip) {
+		StringBuilder result = new StringBuilder();
+
+		for (LcsDiffEntry<Character> entry : diff) {
+			if (entry.getType() != skip) {
+				result.append(entry.getValue());
+			}
+		}
+
+		return result.toString();
+	}
+}
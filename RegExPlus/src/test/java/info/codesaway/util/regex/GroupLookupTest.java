@@ -0,0 +1,126 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.AbstractMap.SimpleEntry;
+
+import org.junit.Test;
+
+public class GroupLookupTest {
+	@Test
+	public void testGroupIndexes() {
+		// Branch reset: group 1 occurs twice
+		Pattern pattern = Pattern.compile("(?|(a)|(b))(c)");
+
+		assertThat(pattern.getGroupIndexes(0)).containsExactly(0);
+		assertThat(pattern.getGroupIndexes(1)).hasSize(2);
+		assertThat(pattern.getGroupIndexes(2)).hasSize(1);
+
+		Matcher matcher = pattern.matcher("bc");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group(1)).isEqualTo("b");
+		assertThat(matcher.start(1)).isEqualTo(0);
+		assertThat(matcher.end(-1)).isEqualTo(2);
+		assertThat(matcher.getGroupIndex(1)).isEqualTo(pattern.getGroupIndexes(1)[1]);
+
+		assertThatThrownBy(() -> matcher.group(3)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matcher.group(-3)).isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void testGroupIndexesWithoutRefactor() {
+		Pattern pattern = Pattern.compile("(a)(b)?");
+
+		assertThat(pattern.getGroupIndexes(1)).containsExactly(1);
+		assertThat(pattern.getGroupIndexes(2)).containsExactly(2);
+
+		Matcher matcher = pattern.matcher("a");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group(2)).isNull();
+	}
+
+	@Test
+	public void testGroupRef() {
+		Pattern pattern = Pattern.compile("(?J)(?<d>\\d+)-(?<d>\\d+)?(?<w>\\w)");
+		GroupRef first = pattern.groupRef("d[1]");
+		GroupRef second = pattern.groupRef("d", 2);
+
+		assertThat(pattern.groupRef("d[1]")).isSameAs(first);
+		assertThat(pattern.groupRef("d[2]")).isSameAs(second);
+		assertThat(first.pattern()).isSameAs(pattern);
+		assertThat(second).hasToString("d[2]");
+
+		Matcher matcher = pattern.matcher("12-x");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group(first)).isEqualTo("12");
+		assertThat(matcher.start(first)).isEqualTo(0);
+		assertThat(matcher.end(first)).isEqualTo(2);
+		assertThat(matcher.group(second)).isNull();
+		assertThat(matcher.group(second, "none")).isEqualTo("none");
+		assertThat(matcher.group(pattern.groupRef("d"))).isEqualTo("12");
+
+		MatchResult result = matcher.toMatchResult();
+		assertThat(result.group(pattern.groupRef("w"))).isEqualTo("x");
+
+		// Resolved by name when used with a different pattern
+		Matcher other = Pattern.compile("(?<w>a)(?<d>b)").matcher("ab");
+		assertThat(other.matches()).isTrue();
+		assertThat(other.group(first)).isEqualTo("b");
+
+		assertThatThrownBy(() -> pattern.groupRef("z")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testGroupNames() {
+		Pattern pattern = Pattern.compile("(?J)(?<d>\\d)(?<d>\\d)?(?|(?<a>a)|(?<b>b))(x)");
+
+		Matcher matcher = pattern.matcher("1bx");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.getGroupName(1)).isEqualTo("d[1]");
+		assertThat(matcher.getGroupName(2)).isEqualTo("d[2]");
+		assertThat(matcher.getGroupName(3)).isEqualTo("b");
+		assertThat(matcher.getGroupName(4)).isNull();
+		assertThat(matcher.getGroupName(0)).isNull();
+
+		assertThat(pattern.getGroupNamesByIndex()).contains("d[1]", "d[2]", "a", "b");
+		assertThatThrownBy(() -> pattern.getGroupNamesByIndex().set(0, "z"))
+				.isInstanceOf(UnsupportedOperationException.class);
+
+		assertThat(matcher.keySet()).hasSize(5).contains(0, 4).doesNotContain(-1, 5);
+		assertThat(matcher.entrySet()).hasSize(5).contains(new SimpleEntry<>(3, "b"));
+	}
+
+	@Test
+	public void testLookupsWithoutException() {
+		Pattern pattern = Pattern.compile("(?<a>a)(b)?");
+		Matcher matcher = pattern.matcher("a");
+		assertThat(matcher.matches()).isTrue();
+
+		assertThat(matcher.containsKey("a")).isTrue();
+		assertThat(matcher.containsKey("[2]")).isTrue();
+		assertThat(matcher.containsKey("z")).isFalse();
+		assertThat(matcher.containsKey("[-3]")).isFalse();
+		assertThat(matcher.containsKey("a[x]")).isFalse();
+		assertThat(matcher.containsKey(3)).isFalse();
+		assertThat(matcher.containsKey(-2)).isTrue();
+
+		assertThat(pattern.hasGroup("a[1]")).isTrue();
+		assertThat(pattern.hasGroup("a[2]")).isFalse();
+		assertThat(pattern.hasGroup("a[99999999999]")).isFalse();
+		assertThat(pattern.groupCount("[x]")).isZero();
+
+		assertThat(matcher.matched("a", false)).isTrue();
+		assertThat(matcher.matched(2, false)).isFalse();
+		assertThat(matcher.matched("z", false)).isFalse();
+		assertThat(matcher.matched(5, false)).isFalse();
+		assertThat(matcher.matched("a", 2, false)).isFalse();
+		assertThat(matcher.toMatchResult().matched("z", false)).isFalse();
+
+		// The public API still throws when the contract requires it
+		assertThatThrownBy(() -> matcher.matched("z")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matcher.matched(5)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matcher.group("z", "default")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matcher.group("a[x]")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,102 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LiteralSearcherTest {
+	@Test
+	public void testForPattern() {
+		assertThat(Pattern.compile("user=").getLiteralSearcher().getLiteral()).isEqualTo("user=");
+		assertThat(Pattern.compile("a.b", Pattern.LITERAL).getLiteralSearcher().getLiteral()).isEqualTo("a.b");
+		assertThat(Pattern.compile("Abc", Pattern.CASE_INSENSITIVE).getLiteralSearcher()).isNotNull();
+		assertThat(Pattern.compile("Abc", Pattern.CASE_INSENSITIVE).getPrefilter().getPrefix()).isEqualTo("Abc");
+
+		assertThat(Pattern.compile("a.b").getLiteralSearcher()).isNull();
+		assertThat(Pattern.compile("").getLiteralSearcher()).isNull();
+		assertThat(Pattern.compile("a b", Pattern.COMMENTS).getLiteralSearcher()).isNull();
+		assertThat(Pattern.compile("abc", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE).getLiteralSearcher())
+				.isNull();
+		assertThat(Pattern.compile("a😀").getLiteralSearcher()).isNull();
+	}
+
+	@Test
+	public void testIndexOf() {
+		LiteralSearcher searcher = new LiteralSearcher("abab", false);
+		assertThat(searcher.indexOf(new StringBuilder("aababab"), 0)).isEqualTo(1);
+		assertThat(searcher.indexOf(new StringBuilder("aababab"), 2)).isEqualTo(3);
+		assertThat(searcher.indexOf(new StringBuilder("aababab"), 4)).isEqualTo(-1);
+		assertThat(searcher.indexOf(new StringBuilder("aba"), 0)).isEqualTo(-1);
+
+		// Characters which share an entry in the skip table
+		searcher = new LiteralSearcher("ša", true);
+		assertThat(searcher.indexOf("ašA", 0)).isEqualTo(1);
+		assertThat(searcher.indexOf("aaš", 0)).isEqualTo(-1);
+		assertThat(searcher.matches(new StringBuilder("šA"))).isTrue();
+		assertThat(searcher.matches("Ša")).isFalse();
+	}
+
+	@Test
+	public void testSameResults() {
+		String[] regexes = { "ab", "a.b", "aa", "Straße", "x" };
+		int[] flagsList = { 0, Pattern.LITERAL, Pattern.CASE_INSENSITIVE, Pattern.LITERAL | Pattern.CASE_INSENSITIVE };
+		String[] texts = { "", "ab", "AB", "aab ab aB", "a.b axb A.B", "aaaaa", "STRAßE straße", "xyxx",
+				"bab" };
+
+		for (String regex : regexes) {
+			for (int flags : flagsList) {
+				Pattern pattern = Pattern.compile(regex, flags);
+				java.util.regex.Pattern expected = java.util.regex.Pattern.compile(regex, flags);
+
+				for (String text : texts) {
+					String description = String.format("%s (flags %d) in \"%s\"", regex, flags, text);
+
+					for (int limit = -1; limit <= 3; limit++) {
+						assertThat(pattern.split(new StringBuilder(text), limit)).as(description)
+								.containsExactly(expected.split(text, limit));
+					}
+
+					assertThat(findAll(pattern.matcher(new StringBuilder(text)))).as(description)
+							.isEqualTo(findAll(expected.matcher(text)));
+					assertThat(pattern.asPredicate().test(text)).as(description)
+							.isEqualTo(expected.matcher(text).find());
+
+					if (flags == 0) {
+						assertThat(Pattern.matches(regex, text)).as(description).isEqualTo(text.matches(regex));
+						assertThat(Pattern.replaceAll(text, regex, "[$0]")).as(description)
+								.isEqualTo(text.replaceAll(regex, "[$0]"));
+						assertThat(Pattern.replaceAll(new StringBuilder(text), regex, "\\$")).as(description)
+								.isEqualTo(text.replaceAll(regex, "\\$"));
+						assertThat(Pattern.replaceFirst(text, regex, "-")).as(description)
+								.isEqualTo(text.replaceFirst(regex, "-"));
+					}
+				}
+			}
+		}
+	}
+
+	private static List<String> findAll(final Matcher matcher) {
+		List<String> matches = new ArrayList<>();
+
+		while (matcher.find()) {
+			matches.add(matcher.start() + ":" + matcher.group());
+		}
+
+		matches.add("hitEnd=" + matcher.hitEnd());
+		return matches;
+	}
+
+	private static List<String> findAll(final java.util.regex.Matcher matcher) {
+		List<String> matches = new ArrayList<>();
+
+		while (matcher.find()) {
+			matches.add(matcher.start() + ":" + matcher.group());
+		}
+
+		matches.add("hitEnd=" + matcher.hitEnd());
+		return matches;
+	}
+}
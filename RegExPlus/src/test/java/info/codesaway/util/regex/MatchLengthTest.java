@@ -0,0 +1,95 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class MatchLengthTest {
+	private static final String[] REGEXES = { "\\d{3}-\\d{4}", "ab?c{2,4}", "(?Z[0..255])", "a(?=bc)", "ab$", "a\\b",
+			"(?=.*z)ab", "\\d+\\.\\d+", "(?i)ab|cde", "[a😀]{2}", "(a)\\1" };
+
+	private static final String[] TEXTS = { "", "a", "ab", "abc", "abcz", "abz", "ab ", "abcc", "abccccc", "555-1234",
+			"555-12345", "5551234", "0", "25", "255", "256", "2555", "1.", "1.5", "AB", "CD", "cdef", "😀", "a😀",
+			"😀a😀", "aa", "aaa" };
+
+	@Test
+	public void testSameMatches() {
+		for (String regex : REGEXES) {
+			Pattern pattern = Pattern.compile(regex);
+			java.util.regex.Pattern expected = pattern.getInternalPattern();
+
+			for (String text : TEXTS) {
+				String description = regex + " with \"" + text + "\"";
+				Matcher matcher = pattern.matcher(text);
+				java.util.regex.Matcher expectedMatcher = expected.matcher(text);
+
+				assertThat(matcher.matches()).as(description).isEqualTo(expectedMatcher.matches());
+				assertThat(matcher.hitEnd()).as(description).isEqualTo(expectedMatcher.hitEnd());
+				assertThat(matcher.requireEnd()).as(description).isEqualTo(expectedMatcher.requireEnd());
+				assertThat(matcher.find()).as(description).isEqualTo(expectedMatcher.find());
+
+				assertThat(Pattern.matches(regex, text)).as(description).isEqualTo(expectedMatcher.matches());
+				assertThat(pattern.isPartialMatch(text)).as(description)
+						.isEqualTo(expectedMatcher.matches() || expectedMatcher.hitEnd());
+			}
+		}
+	}
+
+	@Test
+	public void testSkippedMatch() {
+		Pattern pattern = Pattern.compile("a(?=bc)");
+		Matcher matcher = pattern.matcher("abc");
+
+		// Too long, so the match is skipped
+		assertThat(matcher.matches()).isFalse();
+		assertThat(matcher.find()).isTrue();
+		assertThat(matcher.group()).isEqualTo("a");
+
+		matcher.reset();
+		assertThat(matcher.matches()).isFalse();
+		matcher.useTransparentBounds(true);
+		assertThat(matcher.hitEnd()).isFalse();
+
+		// Transparent bounds let the lookahead see past the region
+		matcher.region(0, 1);
+		assertThat(matcher.matches()).isTrue();
+	}
+
+	@Test
+	public void testFindNearEnd() {
+		Matcher matcher = Pattern.compile("\\d{3}-\\d{4}").matcher("555-1234 555-123");
+		java.util.regex.Matcher expected = java.util.regex.Pattern.compile("\\d{3}-\\d{4}")
+				.matcher("555-1234 555-123");
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(matcher.find()).isEqualTo(expected.find());
+			assertThat(matcher.hitEnd()).isEqualTo(expected.hitEnd());
+		}
+	}
+
+	@Test
+	public void testFailedFindHitEnd() {
+		// Anchored patterns whose minimum length is longer than the rest of the text
+		String[] regexes = { "^abc", "^ab", "^\\w\\d", "^abc\\w{1,3}", "\\Aab", "(?m)^ab\\d", "x|^abc" };
+		String[] texts = { "", "a", "ab", "x", "xa", "abx", "ab\na" };
+
+		for (String regex : regexes) {
+			Pattern pattern = Pattern.compile(regex);
+
+			for (String text : texts) {
+				String description = regex + " with \"" + text + "\"";
+				Matcher matcher = pattern.matcher(text);
+				java.util.regex.Matcher expected = java.util.regex.Pattern.compile(regex).matcher(text);
+				boolean found;
+
+				do {
+					found = expected.find();
+
+					assertThat(matcher.find()).as(description).isEqualTo(found);
+					assertThat(matcher.hitEnd()).as(description).isEqualTo(expected.hitEnd());
+					assertThat(matcher.requireEnd()).as(description).isEqualTo(expected.requireEnd());
+				} while (found);
+			}
+		}
+	}
+}
@@ -1,6 +1,12 @@
 package info.codesaway.util.regex;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
@@ -13,4 +19,120 @@ public class MatchResultTest {
 
 		assertThat(m.toMatchResult().text()).isEmpty();
 	}
+
+	@Test
+	public void testTextCopiedOncePerReset() {
+		StringBuilder text = new StringBuilder("a1 b2");
+		Matcher m = Pattern.compile("(?<w>[a-z])(\\d)").matcher(text);
+
+		assertThat(m.find()).isTrue();
+		MatchResult first = m.toMatchResult();
+		assertThat(m.find()).isTrue();
+		MatchResult second = m.toMatchResult();
+
+		// Copied once, and unaffected by changes to the text
+		assertThat(second.text()).isSameAs(first.text());
+		text.setCharAt(0, 'z');
+		assertThat(first.group("w")).isEqualTo("a");
+		assertThat(second.group(2)).isEqualTo("2");
+		assertThat(second.start(1)).isEqualTo(3);
+
+		// Copied again after a reset
+		m.reset();
+		assertThat(m.find()).isTrue();
+		assertThat(m.toMatchResult().group()).isEqualTo("z1");
+
+		List<MatchResult> results = m.getResults();
+		assertThat(results).hasSize(2);
+		assertThat(results.get(1).text()).isSameAs(results.get(0).text());
+	}
+
+	@Test
+	public void testShareText() {
+		StringBuilder text = new StringBuilder("a1 b2");
+		Matcher m = Pattern.compile("([a-z])(\\d)?").matcher(text).shareText(true);
+
+		assertThat(m.shareText()).isTrue();
+		assertThat(m.find()).isTrue();
+		MatchResult result = m.toMatchResult();
+
+		text.setCharAt(0, 'z');
+		assertThat(result.group(1)).isEqualTo("z");
+		assertThat(result.end()).isEqualTo(2);
+		assertThat(m.getResults()).extracting(MatchResult::group).containsExactly("z1", "b2");
+
+		m.reset("x");
+		assertThat(m.find()).isTrue();
+		assertThat(m.toMatchResult().group(2)).isNull();
+		assertThatThrownBy(() -> m.toMatchResult().group(3)).isInstanceOf(IndexOutOfBoundsException.class);
+
+		m.reset();
+		assertThatThrownBy(() -> m.toMatchResult().group()).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void testForEachMatch() {
+		Pattern pattern = Pattern.compile("(?J)(?<n>\\d+)|(?<n>[a-z]+)");
+		List<String> groups = new ArrayList<>();
+		List<MatchResult> kept = new ArrayList<>();
+
+		pattern.forEachMatch("ab 12 c", mr -> {
+			groups.add(mr.group("n") + mr.occurrence("n"));
+			kept.add(mr.toMatchResult());
+		});
+
+		assertThat(groups).containsExactly("ab2", "121", "c2");
+		assertThat(kept).extracting(MatchResult::group).containsExactly("ab", "12", "c");
+		assertThat(kept.get(0).toMatchResult()).isSameAs(kept.get(0));
+
+		// Starts from the beginning, even after a previous find
+		Matcher matcher = pattern.matcher("x y");
+		assertThat(matcher.find()).isTrue();
+		List<Integer> starts = new ArrayList<>();
+		matcher.forEachMatch(mr -> starts.add(mr.start()));
+		assertThat(starts).containsExactly(0, 2);
+
+		assertThatThrownBy(() -> matcher.forEachMatch(mr -> matcher.find()))
+				.isInstanceOf(ConcurrentModificationException.class);
+	}
+
+	@Test
+	public void testResults() {
+		Pattern pattern = Pattern.compile("(?<w>[a-z]+)(\\d)?");
+		Matcher matcher = pattern.matcher("ab1 cd ef2");
+		assertThat(matcher.find()).isTrue();
+
+		assertThat(matcher.results().map(mr -> mr.group("w"))).containsExactly("ab", "cd", "ef");
+		assertThat(pattern.results("x").map(MatchResult::group)).containsExactly("x");
+		assertThat(pattern.results("1").count()).isZero();
+		assertThat(Pattern.compile("").results("ab").map(MatchResult::start)).containsExactly(0, 1, 2);
+
+		// The stream doesn't change the matcher
+		assertThat(matcher.group()).isEqualTo("ab1");
+	}
+
+	@Test
+	public void testParallelResults() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			text.append("line ").append(i).append(i % 3 == 0 ? "" : " ERROR 4" + i).append('\n');
+		}
+
+		// Splittable (matches can't contain a line feed), and not splittable
+		for (String regex : new String[] { "(?m)^line (\\d+)$|ERROR (?<code>\\d+)", "\\d+\\s+ERROR" }) {
+			Pattern pattern = Pattern.compile(regex);
+
+			List<String> sequential = pattern.results(text).map(mr -> mr.start() + mr.group())
+					.collect(Collectors.toList());
+			List<String> parallel = pattern.results(text).parallel().map(mr -> mr.start() + mr.group())
+					.collect(Collectors.toList());
+
+			assertThat(parallel).isEqualTo(sequential).isEqualTo(pattern.matcher(text).getResults().stream()
+					.map(mr -> mr.start() + mr.group()).collect(Collectors.toList()));
+			assertThat(sequential).isNotEmpty();
+		}
+
+		assertThat(Pattern.compile("(?m)^line").results(text).spliterator().trySplit()).isNotNull();
+		assertThat(Pattern.compile("line\\s").results(text).spliterator().trySplit()).isNull();
+	}
 }
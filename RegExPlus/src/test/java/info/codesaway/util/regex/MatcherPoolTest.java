@@ -0,0 +1,90 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+public class MatcherPoolTest {
+	@Test
+	public void testReuse() {
+		Pattern pattern = Pattern.compile("a+");
+		MatcherPool pool = pattern.getMatcherPool();
+
+		assertThat(pattern.getMatcherPool()).isSameAs(pool);
+
+		Matcher matcher = pool.acquire("aa");
+		assertThat(matcher.matches()).isTrue();
+		pool.release(matcher);
+
+		// The pool doesn't keep the input
+		assertThat(matcher.text()).isEmpty();
+
+		Matcher reused = pool.acquire("b");
+		assertThat(reused).isSameAs(matcher);
+		assertThat(reused.matches()).isFalse();
+
+		// Another matcher is created while the pooled matcher is in use
+		assertThat(pool.acquire("a")).isNotSameAs(reused);
+	}
+
+	@Test
+	public void testConvenienceMethods() {
+		assertThat(Pattern.matches("(?<d>\\d+)", "123")).isTrue();
+		assertThat(Pattern.matches("(?<d>\\d+)", "12a")).isFalse();
+		assertThat(Pattern.replaceAll("a1b22", "(?<d>\\d+)", "<${d}>")).isEqualTo("a<1>b<22>");
+		assertThat(Pattern.replaceFirst("a1b22", "\\d", "")).isEqualTo("ab22");
+		assertThat(Pattern.compile("x").isCase("y")).isFalse();
+	}
+
+	@Test
+	public void testSplit() {
+		String[] regexes = { ":", "o", "", "\\d*", "(?=b)" };
+		String[] inputs = { "boo:and:foo", "", "b", "a1b2c", ":a::" };
+		int[] limits = { -2, 0, 1, 2, 5 };
+
+		for (String regex : regexes) {
+			for (String input : inputs) {
+				for (int limit : limits) {
+					assertThat(Pattern.split(input, regex, limit))
+							.as("split(\"%s\", \"%s\", %d)", input, regex, limit)
+							.containsExactly(java.util.regex.Pattern.compile(regex).split(input, limit));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAsPredicateAcrossThreads() throws Exception {
+		Predicate<String> predicate = Pattern.compile("(?<word>ERROR) (?<code>\\d+)").asPredicate();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			List<Future<Integer>> futures = new ArrayList<>();
+
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(() -> {
+					int count = 0;
+					for (int i = 0; i < 10000; i++) {
+						if (predicate.test(i % 2 == 0 ? "ERROR " + i : "INFO " + i)) {
+							count++;
+						}
+					}
+					return count;
+				}));
+			}
+
+			for (Future<Integer> future : futures) {
+				assertThat(future.get()).isEqualTo(5000);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
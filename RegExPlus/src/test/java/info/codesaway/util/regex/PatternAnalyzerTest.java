@@ -0,0 +1,77 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class PatternAnalyzerTest {
+	private static boolean isSplittable(final String regex, final int flags) {
+		return PatternAnalyzer.isSplittableAtLineFeeds(Pattern.compile(regex, flags).getInternalPattern());
+	}
+
+	private static boolean isSplittable(final String regex) {
+		return isSplittable(regex, 0);
+	}
+
+	@Test
+	public void testSplittableAtLineFeeds() {
+		assertThat(isSplittable("ERROR (?<code>\\d+)")).isTrue();
+		assertThat(isSplittable("(?i)user=[\\w.-]+")).isTrue();
+		assertThat(isSplittable("^.*$", Pattern.MULTILINE)).isTrue();
+		assertThat(isSplittable("[ -~]+\\r?")).isTrue();
+		assertThat(isSplittable("(a)\\1\\b")).isTrue();
+		assertThat(isSplittable("a.b", Pattern.LITERAL)).isTrue();
+		assertThat(isSplittable("[]a]")).isTrue();
+	}
+
+	@Test
+	public void testNotSplittableAtLineFeeds() {
+		assertThat(isSplittable("a\\sb")).isFalse();
+		assertThat(isSplittable("a\\nb")).isFalse();
+		assertThat(isSplittable("[^a]")).isFalse();
+		assertThat(isSplittable("[\\x00-\\x7F]")).isFalse();
+		assertThat(isSplittable("[\t-~]")).isFalse();
+		assertThat(isSplittable("\\W")).isFalse();
+		assertThat(isSplittable("a.b", Pattern.DOTALL)).isFalse();
+		assertThat(isSplittable("(?is)a.b")).isFalse();
+		assertThat(isSplittable("\\Ga")).isFalse();
+		assertThat(isSplittable("\\Qa\nb\\E")).isFalse();
+		assertThat(isSplittable("\\p{Cc}")).isFalse();
+
+		// Ranges which start with an escaped character
+		assertThat(isSplittable("[\\t-\\r]+")).isFalse();
+		assertThat(isSplittable("[\\a-\\r]")).isFalse();
+		assertThat(isSplittable("[\\r-~]")).isTrue();
+
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			text.append("abcdefgh\t\n\tijk\n");
+		}
+
+		Pattern pattern = Pattern.compile("[\\t-\\r]+");
+		assertThat(pattern.results(text).parallel().count()).isEqualTo(pattern.results(text).count());
+	}
+
+	@Test
+	public void testMatchLength() {
+		assertThat(Pattern.compile("ab?c{2,4}").getMinLength()).isEqualTo(3);
+		assertThat(Pattern.compile("ab?c{2,4}").getMaxLength()).isEqualTo(6);
+		assertThat(Pattern.compile("\\d{3}-\\d{4}|\\d{10}").getMinLength()).isEqualTo(8);
+		assertThat(Pattern.compile("\\d{3}-\\d{4}|\\d{10}").getMaxLength()).isEqualTo(10);
+		assertThat(Pattern.compile("(?Z[000..255])").getMinLength()).isEqualTo(3);
+		assertThat(Pattern.compile("(?Z[000..255])").getMaxLength()).isEqualTo(3);
+		assertThat(Pattern.compile("(?<d>\\d\\d?)-(?&d)").getMaxLength()).isEqualTo(5);
+		assertThat(Pattern.compile("(?i)ab(?=c)\\b$").getMaxLength()).isEqualTo(2);
+		assertThat(Pattern.compile("a.b", Pattern.LITERAL).getMaxLength()).isEqualTo(3);
+
+		// Any character may be a supplementary character
+		assertThat(Pattern.compile(".[^a]").getMinLength()).isEqualTo(2);
+		assertThat(Pattern.compile(".[^a]").getMaxLength()).isEqualTo(4);
+
+		assertThat(Pattern.compile("a+").getMaxLength()).isEqualTo(-1);
+		assertThat(Pattern.compile("(a)\\1").getMinLength()).isEqualTo(1);
+		assertThat(Pattern.compile("(a)\\1").getMaxLength()).isEqualTo(-1);
+		assertThat(Pattern.compile("\\Ga").getMinLength()).isEqualTo(0);
+		assertThat(Pattern.compile("a b", Pattern.COMMENTS).getMaxLength()).isEqualTo(-1);
+	}
+}
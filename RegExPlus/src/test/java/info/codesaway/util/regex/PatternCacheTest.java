@@ -0,0 +1,328 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import info.codesaway.util.regex.PatternCache.EvictionPolicy;
+import info.codesaway.util.regex.PatternCache.PatternCacheKey;
+import info.codesaway.util.regex.PatternCacheStats.PatternStats;
+
+public class PatternCacheTest {
+	private final PatternCache cache = PatternCache.getInstance();
+
+	@After
+	public void restoreDefaults() {
+		this.cache.setEvictionPolicy(EvictionPolicy.LRU)
+				.setMaximumSize(PatternCache.UNBOUNDED)
+				.setMaximumWeight(PatternCache.UNBOUNDED);
+	}
+
+	@Test
+	public void testCompileReturnsCachedPattern() {
+		Pattern pattern = Pattern.compile("cache(?<name>d)");
+
+		assertThat(Pattern.compile("cache(?<name>d)")).isSameAs(pattern);
+		assertThat(Pattern.compile("cache(?<name>d)", Pattern.CASE_INSENSITIVE)).isNotSameAs(pattern);
+	}
+
+	@Test
+	public void testLruEviction() {
+		this.cache.clear();
+		this.cache.setMaximumSize(2);
+
+		Pattern first = Pattern.compile("lru1");
+		Pattern second = Pattern.compile("lru2");
+
+		// Access first, so second is least recently used
+		assertThat(Pattern.compile("lru1")).isSameAs(first);
+		Pattern.compile("lru3");
+
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(Pattern.compile("lru1")).isSameAs(first);
+		assertThat(Pattern.compile("lru2")).isNotSameAs(second);
+	}
+
+	@Test
+	public void testLfuEviction() {
+		this.cache.setEvictionPolicy(EvictionPolicy.LFU);
+		this.cache.clear();
+		this.cache.setMaximumSize(2);
+
+		Pattern first = Pattern.compile("lfu1");
+		Pattern.compile("lfu1");
+		Pattern.compile("lfu1");
+		Pattern second = Pattern.compile("lfu2");
+		Pattern.compile("lfu2");
+
+		Pattern.compile("lfu3");
+
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(Pattern.compile("lfu1")).isSameAs(first);
+		assertThat(Pattern.compile("lfu2")).isSameAs(second);
+	}
+
+	@Test
+	public void testLfuNewPatternCached() {
+		this.cache.setEvictionPolicy(EvictionPolicy.LFU);
+		this.cache.clear();
+		this.cache.setMaximumSize(2);
+
+		for (int i = 0; i < 4; i++) {
+			Pattern.compile("lfuOld1");
+			Pattern.compile("lfuOld2");
+		}
+
+		// Frequencies are aged, so a new pattern which is used repeatedly isn't always evicted
+		Pattern pattern = null;
+
+		for (int i = 0; i < 3; i++) {
+			pattern = Pattern.compile("lfuNew");
+		}
+
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(Pattern.compile("lfuNew")).isSameAs(pattern);
+	}
+
+	@Test
+	public void testEvictionAfterClear() {
+		this.cache.clear();
+		this.cache.setMaximumSize(10);
+
+		for (int i = 0; i < 1000; i++) {
+			Pattern.compile("clear" + i);
+
+			if (i % 7 == 0) {
+				this.cache.clear();
+			}
+		}
+
+		assertThat(this.cache.size()).isLessThanOrEqualTo(10);
+
+		Pattern first = Pattern.compile("afterClear0");
+
+		for (int i = 1; i <= 10; i++) {
+			Pattern.compile("afterClear" + i);
+		}
+
+		assertThat(this.cache.size()).isEqualTo(10);
+		assertThat(Pattern.compile("afterClear0")).isNotSameAs(first);
+	}
+
+	@Test
+	public void testClearEmptiesEvictionQueue() {
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 1000; i++) {
+				Pattern.compile("clearQueue" + i);
+			}
+
+			this.cache.clear();
+		}
+
+		assertThat(this.cache.size()).isZero();
+		assertThat(this.cache.weight()).isZero();
+		assertThat(this.cache.evictionQueueSize()).isZero();
+
+		for (int i = 0; i < 1000; i++) {
+			Pattern.compile("policyQueue" + i);
+		}
+
+		// Changing the eviction policy clears the cache
+		this.cache.setEvictionPolicy(EvictionPolicy.LFU);
+		assertThat(this.cache.size()).isZero();
+		assertThat(this.cache.evictionQueueSize()).isZero();
+	}
+
+	@Test
+	public void testMaximumWeight() {
+		this.cache.clear();
+		this.cache.setMaximumWeight(10);
+
+		Pattern first = Pattern.compile("12345");
+		Pattern.compile("67890");
+		Pattern.compile("abc");
+
+		// "12345" is evicted, since the total weight would be 13
+		assertThat(this.cache.weight()).isEqualTo(8);
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(Pattern.compile("12345")).isNotSameAs(first);
+	}
+
+	@Test
+	public void testEvictedPatternStillUsable() {
+		this.cache.clear();
+		this.cache.setMaximumSize(1);
+
+		Pattern pattern = Pattern.compile("(?<word>\\w+)");
+		Pattern.compile("other");
+
+		Matcher matcher = pattern.matcher("evicted");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group("word")).isEqualTo("evicted");
+	}
+
+	@Test
+	public void testWeakValues() {
+		this.cache.setEvictionPolicy(EvictionPolicy.WEAK);
+
+		Pattern pattern = Pattern.compile("weak");
+
+		assertThat(Pattern.compile("weak")).isSameAs(pattern);
+		assertThat(this.cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void testStats() {
+		this.cache.clear();
+		this.cache.resetStats();
+
+		Pattern.compile("stats(?<name>\\x{41})");
+		Pattern.compile("stats(?<name>\\x{41})");
+		Pattern.compile("other stats");
+
+		PatternCacheStats stats = this.cache.stats();
+
+		assertThat(stats.hitCount()).isEqualTo(1);
+		assertThat(stats.missCount()).isEqualTo(2);
+		assertThat(stats.compileCount()).isEqualTo(2);
+		assertThat(stats.size()).isEqualTo(2);
+		assertThat(stats.patternStats()).hasSize(2);
+
+		PatternStats patternStats = stats.patternStats().stream()
+				.filter(p -> p.pattern().startsWith("stats"))
+				.findFirst()
+				.get();
+
+		assertThat(patternStats.internalPattern()).isEqualTo("stats(\\x41)");
+		assertThat(patternStats.patternLength()).isEqualTo(20);
+		assertThat(patternStats.internalPatternLength()).isEqualTo(11);
+		assertThat(stats.totalRefactorTime()).isGreaterThanOrEqualTo(patternStats.refactorTime());
+	}
+
+	@Test
+	public void testCompileListener() {
+		List<String> compiled = new ArrayList<>();
+		PatternCompileListener listener = stats -> compiled.add(stats.pattern());
+
+		this.cache.addCompileListener(listener);
+
+		try {
+			Pattern.compile("listener (?<name>test)");
+			Pattern.compile("listener (?<name>test)");
+		} finally {
+			this.cache.removeCompileListener(listener);
+		}
+
+		assertThat(compiled).containsExactly("listener (?<name>test)");
+	}
+
+	@Test
+	public void testSingleFlightCompilation() throws Exception {
+		PatternCacheKey key = new PatternCacheKey("single(?<flight>)", 0);
+		CountDownLatch compiling = new CountDownLatch(1);
+		CountDownLatch finishCompiling = new CountDownLatch(1);
+		AtomicInteger compileCount = new AtomicInteger();
+		long duplicatesBefore = this.cache.duplicateCompilationsAvoided();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			Future<Pattern> first = executor.submit(() -> this.cache.getOrCompile(key, () -> {
+				compileCount.incrementAndGet();
+				compiling.countDown();
+				try {
+					finishCompiling.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return Pattern.compile("single flight");
+			}));
+
+			compiling.await();
+
+			@SuppressWarnings("unchecked")
+			Future<Pattern>[] others = new Future[3];
+			for (int i = 0; i < others.length; i++) {
+				others[i] = executor.submit(() -> this.cache.getOrCompile(key, () -> {
+					compileCount.incrementAndGet();
+					return Pattern.compile("single flight");
+				}));
+			}
+
+			// Wait until the other threads are waiting on the compilation
+			while (this.cache.duplicateCompilationsAvoided() - duplicatesBefore < others.length) {
+				Thread.sleep(1);
+			}
+
+			finishCompiling.countDown();
+
+			Pattern pattern = first.get(10, TimeUnit.SECONDS);
+			for (Future<Pattern> other : others) {
+				assertThat(other.get(10, TimeUnit.SECONDS)).isSameAs(pattern);
+			}
+
+			assertThat(compileCount.get()).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSingleFlightCompilationError() throws Exception {
+		PatternCacheKey key = new PatternCacheKey("(?<unclosed>", 0);
+		CountDownLatch compiling = new CountDownLatch(1);
+		CountDownLatch finishCompiling = new CountDownLatch(1);
+		long duplicatesBefore = this.cache.duplicateCompilationsAvoided();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try {
+			Future<Throwable> first = executor.submit(() -> this.catchThrowable(() -> this.cache.getOrCompile(key,
+					() -> {
+						compiling.countDown();
+						try {
+							finishCompiling.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						throw new PatternSyntaxException(Refactor.UNCLOSED_GROUP, key.getRegex(), 12);
+					})));
+
+			compiling.await();
+
+			Future<Throwable> second = executor.submit(() -> this.catchThrowable(
+					() -> this.cache.getOrCompile(key, () -> Pattern.compile("second"))));
+
+			while (this.cache.duplicateCompilationsAvoided() == duplicatesBefore) {
+				Thread.sleep(1);
+			}
+
+			finishCompiling.countDown();
+
+			Throwable error = first.get(10, TimeUnit.SECONDS);
+			assertThat(error).isInstanceOf(PatternSyntaxException.class);
+			assertThat(second.get(10, TimeUnit.SECONDS)).isSameAs(error);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Throwable catchThrowable(final Runnable runnable) {
+		try {
+			runnable.run();
+			return null;
+		} catch (Throwable e) {
+			return e;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class PatternSerializationTest {
+	@Test
+	public void testRoundTrip() throws Exception {
+		Pattern expected = Pattern.compile("(?<a>x)(?<a>y)?\\k<a>(?(a)z)", Pattern.DUPLICATE_NAMES);
+		byte[] bytes = serialize(expected);
+
+		PatternCache.getInstance().clear();
+		Pattern pattern = deserialize(bytes);
+
+		assertThat(pattern.pattern()).isEqualTo(expected.pattern());
+		assertThat(pattern.flags()).isEqualTo(expected.flags());
+		assertThat(pattern.internalPattern()).isEqualTo(expected.internalPattern());
+		assertThat(pattern.groupCount()).isEqualTo(expected.groupCount());
+		assertThat(pattern.addedGroups()).isEqualTo(expected.addedGroups());
+		assertThat(pattern.getGroupMapping()).isEqualTo(expected.getGroupMapping());
+		assertThat(pattern.getGroupCounts()).isEqualTo(expected.getGroupCounts());
+
+		// Deserialized patterns aren't added to the pattern cache
+		assertThat(deserialize(bytes)).isNotSameAs(pattern);
+		Pattern compiled = Pattern.compile(expected.pattern(), expected.flags());
+		assertThat(compiled).isNotSameAs(pattern);
+
+		// Resolves to the cached pattern
+		assertThat(deserialize(bytes)).isSameAs(compiled);
+
+		Matcher matcher = pattern.matcher("xxz");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group("a")).isEqualTo("x");
+	}
+
+	@Test
+	public void testCraftedStreamNotCached() throws Exception {
+		Pattern original = Pattern.compile("(?<a>x)\\k<a>");
+		String internalPattern = original.internalPattern();
+		byte[] bytes = replace(serialize(original), internalPattern, internalPattern.replace('x', 'y'));
+
+		PatternCache.getInstance().clear();
+		Pattern crafted = deserialize(bytes);
+		assertThat(crafted.matcher("yy").matches()).isTrue();
+
+		Pattern pattern = Pattern.compile("(?<a>x)\\k<a>");
+		assertThat(pattern).isNotSameAs(crafted);
+		assertThat(pattern.matcher("xx").matches()).isTrue();
+	}
+
+	@Test
+	public void testDifferentVersion() throws Exception {
+		Pattern original = Pattern.compile("(?<a>x)\\k<a>");
+		String internalPattern = original.internalPattern();
+		String version = PrecompiledPattern.libraryVersion();
+		String otherVersion = version.substring(0, version.length() - 1) + "X";
+
+		byte[] bytes = serialize(original);
+		bytes = replace(bytes, internalPattern, internalPattern.replace('x', 'y'));
+		bytes = replace(bytes, version, otherVersion);
+
+		PatternCache.getInstance().clear();
+		Pattern pattern = deserialize(bytes);
+
+		// Refactored again, rather than using the stale refactored regular expression
+		assertThat(pattern.internalPattern()).isEqualTo(internalPattern);
+		assertThat(pattern.matcher("xx").matches()).isTrue();
+		assertThat(Pattern.compile("(?<a>x)\\k<a>")).isSameAs(pattern);
+	}
+
+	@Test
+	public void testInvalidLazyPattern() throws Exception {
+		Pattern invalid = Pattern.compile("(?<a>x", 0, true);
+		Pattern pattern = deserialize(serialize(invalid));
+
+		assertThatThrownBy(pattern::forceCompile).isInstanceOf(PatternSyntaxException.class);
+	}
+
+	private static byte[] serialize(final Pattern pattern) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(pattern);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Replaces the (ASCII) string in the serialized bytes with a string of the same length
+	 */
+	private static byte[] replace(final byte[] bytes, final String target, final String replacement) {
+		assertThat(replacement).hasSameSizeAs(target);
+		String text = new String(bytes, StandardCharsets.ISO_8859_1);
+		int index = text.indexOf(target);
+		assertThat(index).isNotNegative();
+
+		byte[] replaced = bytes.clone();
+		byte[] replacementBytes = replacement.getBytes(StandardCharsets.ISO_8859_1);
+		System.arraycopy(replacementBytes, 0, replaced, index, replacementBytes.length);
+		return replaced;
+	}
+
+	private static Pattern deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (Pattern) input.readObject();
+		}
+	}
+}
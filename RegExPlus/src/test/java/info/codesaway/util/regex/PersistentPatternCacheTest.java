@@ -0,0 +1,129 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PersistentPatternCacheTest {
+	private final PatternCache cache = PatternCache.getInstance();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@After
+	public void removePersistentCache() {
+		this.cache.setPersistentCache(null);
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("regexplus.cache");
+		String regex = "(?<year>\\d{4})-(?<month>\\d\\d)(?(month)x|y)";
+
+		PersistentPatternCache persistentCache = PersistentPatternCache.open(file);
+		assertThat(persistentCache.isLoaded()).isFalse();
+
+		this.cache.setPersistentCache(persistentCache);
+		this.cache.clear();
+		Pattern expected = Pattern.compile(regex);
+		// Java syntax isn't refactored, so isn't stored
+		Pattern.compile("javaSyntax\\d+");
+
+		assertThat(persistentCache.size()).isEqualTo(1);
+		persistentCache.save();
+
+		PersistentPatternCache loaded = PersistentPatternCache.open(file);
+		assertThat(loaded.isLoaded()).isTrue();
+		assertThat(loaded.isModified()).isFalse();
+		assertThat(loaded.size()).isEqualTo(1);
+
+		PrecompiledPattern precompiled = loaded.get(regex, 0);
+		assertThat(precompiled).isNotNull();
+		assertThat(precompiled.getInternalPattern()).isEqualTo(expected.internalPattern());
+
+		this.cache.setPersistentCache(loaded);
+		this.cache.clear();
+		Pattern pattern = Pattern.compile(regex);
+
+		assertThat(pattern).isNotSameAs(expected);
+		assertThat(pattern.internalPattern()).isEqualTo(expected.internalPattern());
+		assertThat(pattern.groupCount()).isEqualTo(expected.groupCount());
+		assertThat(pattern.addedGroups()).isEqualTo(expected.addedGroups());
+		assertThat(pattern.getGroupMapping()).isEqualTo(expected.getGroupMapping());
+		assertThat(pattern.getGroupCounts()).isEqualTo(expected.getGroupCounts());
+		// Compiled from the persistent cache, so nothing new to save
+		assertThat(loaded.isModified()).isFalse();
+
+		Matcher matcher = pattern.matcher("2024-01x");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group("month")).isEqualTo("01");
+	}
+
+	@Test
+	public void testCorruptFile() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("regexplus.cache");
+
+		PersistentPatternCache persistentCache = PersistentPatternCache.open(file);
+		persistentCache.put(new PrecompiledPattern(Pattern.compile("(?<a>x)\\k<a>")));
+		persistentCache.save();
+
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length - 1] ^= 1;
+		Files.write(file, bytes);
+
+		PersistentPatternCache corrupt = PersistentPatternCache.open(file);
+		assertThat(corrupt.isLoaded()).isFalse();
+		assertThat(corrupt.size()).isZero();
+
+		Files.write(file, new byte[] { 1, 2, 3 });
+		assertThat(PersistentPatternCache.open(file).isLoaded()).isFalse();
+	}
+
+	@Test
+	public void testSaveLoadedFile() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("regexplus.cache");
+
+		PersistentPatternCache persistentCache = PersistentPatternCache.open(file);
+		persistentCache.put(new PrecompiledPattern(Pattern.compile("(?<a>x)\\k<a>")));
+		persistentCache.save();
+
+		// Replaces the file which was loaded
+		PersistentPatternCache loaded = PersistentPatternCache.open(file);
+		loaded.put(new PrecompiledPattern(Pattern.compile("(?<b>y)\\k<b>")));
+		loaded.save();
+
+		PersistentPatternCache reloaded = PersistentPatternCache.open(file);
+		assertThat(reloaded.isLoaded()).isTrue();
+		assertThat(reloaded.size()).isEqualTo(2);
+		assertThat(reloaded.get("(?<a>x)\\k<a>", 0)).isNotNull();
+		assertThat(reloaded.get("(?<b>y)\\k<b>", 0)).isNotNull();
+	}
+
+	@Test
+	public void testStaleFile() throws IOException {
+		Path file = this.folder.getRoot().toPath().resolve("regexplus.cache");
+		String version = PrecompiledPattern.libraryVersion();
+		assertThat(version).endsWith("-r" + PrecompiledPattern.REFACTOR_VERSION);
+
+		PersistentPatternCache persistentCache = PersistentPatternCache.open(file);
+		persistentCache.put(new PrecompiledPattern(Pattern.compile("(?<a>x)\\k<a>")));
+		persistentCache.save();
+
+		// Written by a different version of the refactoring (the header isn't covered by the checksum)
+		byte[] bytes = Files.readAllBytes(file);
+		int versionEnd = 3 * Integer.BYTES + version.length();
+		bytes[versionEnd - 1]++;
+		Files.write(file, bytes);
+
+		PersistentPatternCache stale = PersistentPatternCache.open(file);
+		assertThat(stale.isLoaded()).isFalse();
+		assertThat(stale.size()).isZero();
+	}
+}
@@ -0,0 +1,101 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class PrecompiledPatternTest {
+	static final String DATE_REGEX = "(?<year>\\d{4})-(?<month>\\d\\d)(?(month)\\u00e9|\"\\n)";
+
+	static final String STALE_REGEX = "(?<stale>x)\\k<stale>";
+
+	/**
+	 * Provider listed in META-INF/services (the same as a provider generated by the annotation processor)
+	 */
+	public static final class Provider implements PrecompiledPatternProvider {
+		@Override
+		public String getLibraryVersion() {
+			return PrecompiledPattern.libraryVersion();
+		}
+
+		@Override
+		public Collection<PrecompiledPattern> getPrecompiledPatterns() {
+			return Arrays.asList(PrecompiledPattern.refactor(DATE_REGEX, Pattern.CASE_INSENSITIVE));
+		}
+	}
+
+	/**
+	 * Provider from a different version of RegExPlus (its patterns are ignored)
+	 */
+	public static final class StaleProvider implements PrecompiledPatternProvider {
+		@Override
+		public String getLibraryVersion() {
+			return "stale-" + PrecompiledPattern.libraryVersion();
+		}
+
+		@Override
+		public Collection<PrecompiledPattern> getPrecompiledPatterns() {
+			return Arrays.asList(PrecompiledPattern.of(STALE_REGEX, 0, "stale", 0, false, Collections.emptyMap(),
+					Collections.emptyMap()));
+		}
+	}
+
+	@Test
+	public void testProvider() {
+		PrecompiledPattern precompiled = PrecompiledPatternRegistry.get(DATE_REGEX, Pattern.CASE_INSENSITIVE);
+		PrecompiledPattern expected = PrecompiledPattern.refactor(DATE_REGEX, Pattern.CASE_INSENSITIVE);
+
+		assertThat(precompiled).isNotNull();
+		assertThat(precompiled.getInternalPattern()).isEqualTo(expected.getInternalPattern());
+		assertThat(precompiled.getCapturingGroupCount()).isEqualTo(expected.getCapturingGroupCount());
+		assertThat(precompiled.hasAddedGroups()).isEqualTo(expected.hasAddedGroups());
+		assertThat(precompiled.getGroupMapping()).isEqualTo(expected.getGroupMapping());
+		assertThat(precompiled.getGroupCounts()).isEqualTo(expected.getGroupCounts());
+
+		assertThat(PrecompiledPatternRegistry.get(DATE_REGEX, 0)).isNull();
+	}
+
+	@Test
+	public void testStaleProvider() {
+		assertThat(PrecompiledPatternRegistry.get(STALE_REGEX, 0)).isNull();
+
+		PatternCache.getInstance().clear();
+		assertThat(Pattern.compile(STALE_REGEX).matcher("xx").matches()).isTrue();
+	}
+
+	@Test
+	public void testCompile() {
+		PrecompiledPattern precompiled = PrecompiledPattern.refactor(DATE_REGEX, Pattern.CASE_INSENSITIVE);
+		PatternCache.getInstance().clear();
+		Pattern pattern = Pattern.compile(precompiled);
+
+		// Not added to the pattern cache
+		Pattern cached = Pattern.compile(DATE_REGEX, Pattern.CASE_INSENSITIVE);
+		assertThat(cached).isNotSameAs(pattern);
+		assertThat(pattern.internalPattern()).isEqualTo(cached.internalPattern());
+
+		// Resolves to the cached pattern
+		assertThat(Pattern.compile(precompiled)).isSameAs(cached);
+
+		Matcher matcher = pattern.matcher("2024-01\u00e9");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group("month")).isEqualTo("01");
+	}
+
+	@Test
+	public void testCompileDoesNotAffectCache() {
+		PatternCache.getInstance().clear();
+		Pattern pattern = Pattern.compile(
+				PrecompiledPattern.of("abc", 0, "xyz", 0, false, Collections.emptyMap(), Collections.emptyMap()));
+
+		assertThat(pattern.matcher("xyz").matches()).isTrue();
+
+		assertThat(Pattern.compile("abc").matcher("abc").matches()).isTrue();
+		assertThat(Pattern.compile("abc").matcher("xyz").matches()).isFalse();
+		assertThat(Pattern.matches("abc", "abc")).isTrue();
+	}
+}
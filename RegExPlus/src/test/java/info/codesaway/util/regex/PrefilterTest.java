@@ -0,0 +1,133 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PrefilterTest {
+	private static Prefilter prefilter(final String regex) {
+		return Pattern.compile(regex).getPrefilter();
+	}
+
+	@Test
+	public void testPrefix() {
+		assertThat(prefilter("ERROR (?<code>\\d+)").getPrefix()).isEqualTo("ERROR ");
+		assertThat(prefilter("(?:ab)c+d").getPrefix()).isEqualTo("abc");
+		assertThat(prefilter("abc?d").getPrefix()).isEqualTo("ab");
+		assertThat(prefilter("\\bx{3}\\.y").getPrefix()).isEqualTo("xxx.y");
+		assertThat(prefilter("\\Qa.b\\E*").getPrefix()).isEqualTo("a.");
+		assertThat(prefilter("(?<=a)ab|ac").getPrefix()).isEqualTo("a");
+		assertThat(prefilter("\\x41\\u0042\\t").getPrefix()).isEqualTo("AB\t");
+	}
+
+	@Test
+	public void testRequiredAndFirstChars() {
+		Prefilter prefilter = prefilter("[a-c\\d]+ user=(\\w+)");
+		assertThat(prefilter.getPrefix()).isNull();
+		assertThat(prefilter.getRequired()).isEqualTo(" user=");
+		assertThat(prefilter.isFirstChar('b')).isTrue();
+		assertThat(prefilter.isFirstChar('7')).isTrue();
+		assertThat(prefilter.isFirstChar('d')).isFalse();
+		assertThat(prefilter.isFirstChar('é')).isFalse();
+
+		prefilter = prefilter("(?:\\d|x)y|z");
+		assertThat(prefilter.getRequired()).isNull();
+		assertThat(prefilter.isFirstChar('z')).isTrue();
+		assertThat(prefilter.isFirstChar('y')).isFalse();
+
+		assertThat(prefilter("a?b").hasFirstChars()).isFalse();
+		assertThat(prefilter("[^a]b").hasFirstChars()).isFalse();
+		assertThat(prefilter("\\sb").getRequired()).isEqualTo("b");
+	}
+
+	@Test
+	public void testNoPrefilter() {
+		assertThat(prefilter("a*")).isNull();
+		assertThat(prefilter("(?i)user=")).isNull();
+		assertThat(prefilter("\\Gab")).isNull();
+		assertThat(prefilter(".+")).isNull();
+		assertThat(Pattern.compile("ab+c", Pattern.CASE_INSENSITIVE).getPrefilter()).isNull();
+
+		// Read past the index where a search attempt fails
+		assertThat(prefilter("\\w|(?=.*z)[ab]")).isNull();
+		assertThat(prefilter("ab(?!c)")).isNull();
+		assertThat(prefilter("ab$")).isNull();
+		assertThat(prefilter("ab\\Z")).isNull();
+		assertThat(prefilter("(?m)ab$")).isNull();
+		assertThat(Pattern.compile("ab$", Pattern.MULTILINE).getPrefilter().getPrefix()).isEqualTo("ab");
+		assertThat(prefilter("\\bab\\b").getPrefix()).isEqualTo("ab");
+	}
+
+	@Test
+	public void testHitEndAfterSkippedPositions() {
+		// The lookahead reads to the end of the text from the positions before the match
+		Matcher matcher = Pattern.compile("\\w|(?=.*z)[ab]").matcher("a b");
+		java.util.regex.Matcher expected = java.util.regex.Pattern.compile("\\w|(?=.*z)[ab]").matcher("a b");
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(matcher.find()).isEqualTo(expected.find());
+			assertThat(matcher.hitEnd()).isEqualTo(expected.hitEnd());
+		}
+	}
+
+	@Test
+	public void testSameMatches() {
+		String[] regexes = { "ERROR (?<code>\\d+)", "abc?d", "[a-c\\d]+ user=(\\w+)", "(?:\\d|x)y|z", "(?<=a)b",
+				"^ab", "(?m)^ab$", "b\\b", "(a)\\1", "\\d{2,}", "x|", "ab(?=c)", "[]x]y", "[\\Q-]\\E]z",
+				"\\w|(?=.*z)[ab]", "\\bab\\b", "x$\\n?", "ab\\z" };
+		String[] texts = { "", "ab", "abd abcd", "ERROR 12 ERROR x ERROR 3", "c1 user=bob d user= 9 user=x",
+				"xyzy1yz", "ab\nab", "aab b", "aa a", "123 4 56", "abcab", "]y xy", "-z ]z", "ERRO", "a b", " ab z",
+				"x\n", "ax x\r\n" };
+
+		for (String regex : regexes) {
+			java.util.regex.Pattern expected = java.util.regex.Pattern.compile(regex);
+
+			for (String text : texts) {
+				for (CharSequence input : new CharSequence[] { text, new StringBuilder(text) }) {
+					assertThat(findAll(Pattern.compile(regex).matcher(input)))
+							.as("%s in \"%s\"", regex, text)
+							.isEqualTo(findAll(expected.matcher(input)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFindAfterFailedSearch() {
+		for (String regex : new String[] { "ab", "[a-c\\d]+ user=(\\w+)" }) {
+			String text = "ab 1 user=x ab";
+			Matcher matcher = Pattern.compile(regex).matcher(text);
+			java.util.regex.Matcher expected = java.util.regex.Pattern.compile(regex).matcher(text);
+
+			for (int i = 0; i < 5; i++) {
+				assertThat(matcher.find()).as(regex).isEqualTo(expected.find());
+				assertThat(matcher.hitEnd()).as(regex).isEqualTo(expected.hitEnd());
+			}
+		}
+	}
+
+	private static List<String> findAll(final Matcher matcher) {
+		List<String> matches = new ArrayList<>();
+
+		while (matcher.find()) {
+			matches.add(matcher.start() + ":" + matcher.group() + ":" + matcher.hitEnd());
+		}
+
+		matches.add("hitEnd=" + matcher.hitEnd());
+		return matches;
+	}
+
+	private static List<String> findAll(final java.util.regex.Matcher matcher) {
+		List<String> matches = new ArrayList<>();
+
+		while (matcher.find()) {
+			matches.add(matcher.start() + ":" + matcher.group() + ":" + matcher.hitEnd());
+		}
+
+		matches.add("hitEnd=" + matcher.hitEnd());
+		return matches;
+	}
+}
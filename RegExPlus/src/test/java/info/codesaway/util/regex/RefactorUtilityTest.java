@@ -0,0 +1,81 @@
+package info.codesaway.util.regex;
+
+import static info.codesaway.util.regex.RefactorUtility.isParsableInt;
+import static info.codesaway.util.regex.RefactorUtility.requiresRefactor;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class RefactorUtilityTest {
+	@Test
+	public void testPlainJavaSyntax() {
+		String[] regexes = {
+				"abc",
+				"(a)(?:b)(c)",
+				"(?i)abc(?-i:def)",
+				"(?=a)(?!b)(?<=c)(?<!d)(?>e)",
+				"a{2,3}[{}]\\{\\}",
+				"\\x41\\u0041\\p{L}\\Q(?<name>\\1\\E",
+				"[]a][^]a]",
+		};
+
+		for (String regex : regexes) {
+			assertThat(requiresRefactor(regex, 0)).as(regex).isFalse();
+
+			Pattern pattern = Pattern.compile(regex);
+			assertThat(pattern.internalPattern()).isEqualTo(regex);
+		}
+	}
+
+	@Test
+	public void testRegExPlusSyntax() {
+		String[] regexes = {
+				"(?<name>a)",
+				"(?'name'a)",
+				"(?P<name>a)",
+				"(a)\\1",
+				"\\0",
+				"\\g{1}",
+				"\\k<name>",
+				"(?(1)a|b)",
+				"(?|(a)|(b))",
+				"(?1)",
+				"(?&name)",
+				"(?Z[1..10])",
+				"(?#comment)",
+				"(*FAIL)",
+				"(?J)",
+				"(?n)",
+				"(?x)",
+				"\\x{41}",
+				"\\x4",
+				"\\u41",
+				"\\cA",
+				"\\X",
+				"[[:alpha:]]",
+				"a}",
+		};
+
+		for (String regex : regexes) {
+			assertThat(requiresRefactor(regex, 0)).as(regex).isTrue();
+		}
+
+		assertThat(requiresRefactor("abc", Pattern.COMMENTS)).isTrue();
+		assertThat(requiresRefactor("(abc)", Pattern.EXPLICIT_CAPTURE)).isTrue();
+	}
+
+	@Test
+	public void testIsParsableInt() {
+		String[] parsable = { "0", "-1", "+7", "0012", "2147483647", "-2147483648", "\u0661" };
+		String[] notParsable = { "", "-", "+", "a", "1a", "2147483648", "-2147483649", "99999999999" };
+
+		for (String string : parsable) {
+			assertThat(isParsableInt(string)).as(string).isTrue();
+			Integer.parseInt(string);
+		}
+
+		for (String string : notParsable) {
+			assertThat(isParsableInt(string)).as(string).isFalse();
+		}
+	}
+}
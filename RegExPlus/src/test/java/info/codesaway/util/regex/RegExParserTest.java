@@ -0,0 +1,100 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class RegExParserTest {
+	@Test
+	public void testInternalPattern() {
+		String[][] tests = {
+				{ "(?<year>\\d{4})-(?'month'\\d\\d)-(?P<day>\\d\\d)", "(\\d{4})-(\\d\\d)-(\\d\\d)" },
+				{ "(?<a>x)\\k<a>\\k'a'\\k{a}\\g{a}(?P=a)", "(x)\\1\\1\\1\\1\\1" },
+				{ "(?<a>x)\\k<a>2", "(x)\\1[2]" },
+				{ "(a)(b)\\2", "(a)(b)\\2" },
+				{ "a(?#comment)b", "ab" },
+				{ "(?iJ)a(?J)b(?J:c)", "(?i)ab(?:c)" },
+				{ "\\x{41}\\x{100}\\x4\\u41\\cA\\ca", "\\x41\\u0100\\x04\\u0041\\x01\\x01" },
+				{ "\\X", "(?>\\P{M}\\p{M}*)" },
+				{ "[[:alpha:][:^digit:][:word:]]", "[\\p{Alpha}\\P{Digit}\\w]" },
+				{ "a(*F)|b(*FAIL)", "a(?!)|b(?!)" },
+				{ "a}", "a\\}" },
+				{ "\\x4(?#comment)b", "\\x04b" },
+				{ "\\u004(?#comment)1", "\\u00041" },
+				{ "\\x4(?J)(?#comment)b", "\\x04b" },
+		};
+
+		for (String[] test : tests) {
+			String regex = test[0];
+			RegExTree tree = RegExParser.parse(regex, 0);
+
+			assertThat(tree).as(regex).isNotNull();
+			assertThat(tree.toString()).as(regex).isEqualTo(test[1]);
+			assertThat(Pattern.compile(regex).internalPattern()).as(regex).isEqualTo(test[1]);
+		}
+	}
+
+	@Test
+	public void testRefactorRemovedComment() {
+		// The conditional isn't supported by the parser, so these are refactored by Refactor (same result as the parser)
+		String[][] tests = {
+				{ "\\x4(?#comment)b(?(?=x)x|y)", "\\x04b" },
+				{ "\\u004(?#comment)1(?(?=x)x|y)", "\\u00041" },
+				{ "\\x4(?J)(?#comment)b(?(?=x)x|y)", "\\x04b" },
+				{ "\\x41(?#comment)b(?(?=x)x|y)", "\\x41b" },
+				{ "\\\\x4(?#comment)b(?(?=x)x|y)", "\\\\x4b" },
+		};
+
+		for (String[] test : tests) {
+			String regex = test[0];
+
+			assertThat(RegExParser.parse(regex, 0)).as(regex).isNull();
+			assertThat(Pattern.compile(regex).internalPattern()).as(regex).startsWith(test[1]);
+		}
+
+		assertThat(Pattern.compile("\\x4(?#comment)b(?(?=x)x|y)").matcher("\u0004by").matches()).isTrue();
+	}
+
+	@Test
+	public void testGroupMapping() {
+		Pattern pattern = Pattern.compile("(?<year>\\d{4})-(\\d\\d)-(?<day>\\d\\d)");
+
+		assertThat(pattern.groupCount()).isEqualTo(3);
+		assertThat(pattern.getGroupMapping()).containsEntry("year[1]", 1).containsEntry("[2][1]", 2)
+				.containsEntry("day[1]", 3);
+		assertThat(pattern.getGroupCounts()).containsEntry("year", 1).containsEntry("day", 1).containsEntry("", 3);
+
+		Matcher matcher = pattern.matcher("2024-01-31");
+		assertThat(matcher.matches()).isTrue();
+		assertThat(matcher.group("year")).isEqualTo("2024");
+		assertThat(matcher.group("day")).isEqualTo("31");
+	}
+
+	@Test
+	public void testRefactorRequired() {
+		String[] regexes = {
+				"(?<a>x)(?<a>y)",
+				"\\k<a>(?<a>x)",
+				"\\1(a)",
+				"(a)\\10",
+				"\\01",
+				"(?(1)a|b)",
+				"(?|(a)|(b))",
+				"(a)(?1)",
+				"(?Z[1..10])",
+				"(?x)a b",
+				"(?n)(a)",
+				"[:alpha:]",
+				"[[:unknown:]]",
+				"(a",
+				"a)",
+		};
+
+		for (String regex : regexes) {
+			assertThat(RegExParser.parse(regex, 0)).as(regex).isNull();
+		}
+
+		assertThat(RegExParser.parse("(?<a>x)", Pattern.COMMENTS)).isNull();
+		assertThat(RegExParser.parse("(?<a>x)", Pattern.EXPLICIT_CAPTURE)).isNull();
+	}
+}
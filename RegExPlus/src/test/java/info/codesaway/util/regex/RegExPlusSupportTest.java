@@ -0,0 +1,56 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RegExPlusSupportTest {
+	@After
+	public void restore() {
+		RegExPlusSupport.setLastMatcherTracked(true);
+		RegExPlusSupport.setLastMatcher(null);
+	}
+
+	@Test
+	public void testLastMatcherTracked() {
+		Pattern pattern = Pattern.compile("\\d+\\.\\d+");
+
+		assertThat(RegExPlusSupport.isLastMatcherTracked()).isTrue();
+		assertThat(pattern.isPartialMatch("12.")).isTrue();
+		assertThat(RegExPlusSupport.getLastMatcher().text()).isEqualTo("12.");
+
+		assertThat(pattern.isCase("1.5")).isTrue();
+		assertThat(RegExPlusSupport.getLastMatcher().group()).isEqualTo("1.5");
+
+		// The last matcher isn't returned to the pool
+		MatcherPool pool = pattern.getMatcherPool();
+		Matcher matcher = pool.acquire("");
+		pool.release(matcher);
+		assertThat(pattern.isPartialMatch("1")).isTrue();
+		assertThat(RegExPlusSupport.getLastMatcher()).isSameAs(matcher);
+		assertThat(pool.acquire("")).isNotSameAs(matcher);
+	}
+
+	@Test
+	public void testLastMatcherNotTracked() {
+		Pattern pattern = Pattern.compile("\\d+\\.\\d+");
+		RegExPlusSupport.setLastMatcher(pattern.matcher("1.0"));
+
+		RegExPlusSupport.setLastMatcherTracked(false);
+		assertThat(RegExPlusSupport.getLastMatcher()).isNull();
+
+		assertThat(pattern.isPartialMatch("12.")).isTrue();
+		assertThat(pattern.isPartialMatch("12x")).isFalse();
+		assertThat(pattern.isCase("1.5")).isTrue();
+		assertThat(pattern.matcher("a 1.5").asBoolean()).isTrue();
+		assertThat(RegExPlusSupport.getLastMatcher()).isNull();
+
+		// The matcher is returned to the pool
+		MatcherPool pool = pattern.getMatcherPool();
+		Matcher matcher = pool.acquire("");
+		pool.release(matcher);
+		assertThat(pattern.isPartialMatch("1")).isTrue();
+		assertThat(pool.acquire("")).isSameAs(matcher);
+	}
+}
@@ -0,0 +1,106 @@
+package info.codesaway.util.regex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ConcurrentModificationException;
+
+import org.junit.Test;
+
+public class ReplacementTest {
+	@Test
+	public void testReplaceAll() {
+		Pattern pattern = Pattern.compile("(?<year>\\d{4})-(?<month>\\d\\d)-(\\d\\d)");
+		String text = "from 2024-01-31 to 2024-02-29";
+
+		assertThat(pattern.matcher(text).replaceAll("$2/$3/$1")).isEqualTo("from 01/31/2024 to 02/29/2024");
+		assertThat(pattern.matcher(text).replaceAll("${month}/${3}/${year}"))
+				.isEqualTo("from 01/31/2024 to 02/29/2024");
+		assertThat(pattern.matcher(text).replaceAll("$<month>\\$$0")).isEqualTo("from 01$2024-01-31 to 02$2024-02-29");
+		assertThat(pattern.matcher(text).replaceAll("${-1}")).isEqualTo("from 31 to 29");
+		assertThat(pattern.matcher(text).replaceFirst("$10")).isEqualTo("from 20240 to 2024-02-29");
+		assertThat(pattern.matcher(text).replaceAll("x")).isEqualTo("from x to x");
+	}
+
+	@Test
+	public void testCompileReplacement() {
+		Pattern pattern = Pattern.compile("(?J)(?<d>a)|(?<d>b)");
+		Replacement replacement = pattern.compileReplacement("<${d}${d[2]}>");
+
+		assertThat(pattern.compileReplacement("<${d}${d[2]}>")).isSameAs(replacement);
+		assertThat(replacement.pattern()).isSameAs(pattern);
+		assertThat(replacement.isLiteral()).isFalse();
+		assertThat(replacement).hasToString("<${d}${d[2]}>");
+
+		Matcher matcher = pattern.matcher("ab");
+		assertThat(matcher.replaceAll(replacement)).isEqualTo("<a><bb>");
+		assertThat(matcher.replaceFirst(replacement)).isEqualTo("<a>b");
+
+		// Compiled again when used with a different pattern
+		assertThat(Pattern.compile("(?J)(?<d>.)(?<d>.)").matcher("xy").replaceAll(replacement)).isEqualTo("<xy>");
+		assertThatThrownBy(() -> Pattern.compile("(?<d>.)").matcher("x").replaceAll(replacement))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testInvalidReplacement() {
+		Pattern pattern = Pattern.compile("(a)");
+
+		assertThatThrownBy(() -> pattern.compileReplacement("${z}")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> pattern.compileReplacement("$<z>")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> pattern.compileReplacement("${2}")).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> pattern.compileReplacement("$x")).isInstanceOf(IllegalArgumentException.class);
+
+		// The replacement isn't parsed unless there is a match
+		assertThat(pattern.matcher("b").replaceAll("${z}")).isEqualTo("b");
+		assertThatThrownBy(() -> pattern.matcher("a").replaceAll("${z}"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testAppendReplacement() throws IOException {
+		Pattern pattern = Pattern.compile("(?<w>[a-z]+)(\\d)?");
+		Matcher matcher = pattern.matcher("ab1 cd ef2!");
+
+		StringBuilder sb = new StringBuilder();
+		while (matcher.find()) {
+			matcher.appendReplacement(sb, "[$2${w}]");
+		}
+		assertThat(matcher.appendTail(sb)).hasToString("[1ab] [cd] [2ef]!");
+
+		StringWriter writer = new StringWriter();
+		assertThat(matcher.replaceAll(writer, "<$1>")).isSameAs(writer);
+		assertThat(writer).hasToString("<ab> <cd> <ef>!");
+
+		writer = new StringWriter();
+		matcher.replaceAll(writer, pattern.compileReplacement("$2"));
+		assertThat(writer).hasToString("1  2!");
+
+		writer = new StringWriter();
+		pattern.matcher("123").replaceAll(writer, "x");
+		assertThat(writer).hasToString("123");
+
+		// treatNullAsEmptyString doesn't change the replacement
+		matcher.treatNullAsEmptyString(true);
+		assertThat(matcher.replaceAll("$2")).isEqualTo("1  2!");
+	}
+
+	@Test
+	public void testReplaceWithFunction() {
+		Pattern pattern = Pattern.compile("(?J)(?<n>\\d+)|(?<n>[a-z]+)");
+		Matcher matcher = pattern.matcher("ab 12 $");
+
+		assertThat(matcher.replaceAll(mr -> mr.group("n").toUpperCase() + mr.occurrence("n")))
+				.isEqualTo("AB2 121 $");
+		assertThat(matcher.replaceFirst(mr -> "$1\\")).isEqualTo("$1\\ 12 $");
+		assertThat(pattern.matcher("$").replaceAll(mr -> "x")).isEqualTo("$");
+
+		assertThatThrownBy(() -> matcher.replaceAll(mr -> null)).isInstanceOf(NullPointerException.class);
+		assertThatThrownBy(() -> matcher.replaceAll(mr -> {
+			matcher.find();
+			return "x";
+		})).isInstanceOf(ConcurrentModificationException.class);
+	}
+}